@@ -8,67 +8,111 @@
 
 package com.mohanathas.spiffer.algorithm;
 
-import com.mohanathas.spiffer.util.BinaryMinHeap;
 import com.mohanathas.spiffer.util.Point;
 import java.util.List;
 
 /**
  * PathFinder implementation of the A* algorithm.
+ *
+ * The search state, including the open list, is kept in the SearchContext of the calling thread,
+ * so an instance may be used by multiple threads at once.
  */
 public class AStarPathFinder implements PathFinder {
     private final Heuristic mHeuristic;
+    private final OpenListType mOpenListType;
+    private final TieBreaking mTieBreaking;
 
     public AStarPathFinder(Heuristic heuristic) {
+        this(heuristic, OpenListType.BinaryHeap);
+    }
+
+    public AStarPathFinder(Heuristic heuristic, OpenListType openListType) {
+        this(heuristic, openListType, TieBreaking.LargerStartDistance);
+    }
+
+    public AStarPathFinder(Heuristic heuristic, OpenListType openListType,
+                           TieBreaking tieBreaking) {
         mHeuristic = heuristic;
+        mOpenListType = openListType;
+        mTieBreaking = tieBreaking;
+    }
+
+    OpenListType getOpenListType() {
+        return mOpenListType;
+    }
+
+    TieBreaking getTieBreaking() {
+        return mTieBreaking;
     }
 
     @Override
     public List<Point> findPath(Graph graph, Point startPoint, Point goalPoint) {
-        final Node startNode = graph.getNode(startPoint);
-        final Node goalNode = graph.getNode(goalPoint);
-        final BinaryMinHeap<Node> heap = new BinaryMinHeap<>();
-        startNode.setStartDistance(0.0f);
-        heap.add(startNode);
-        startNode.setQueued();
+        final int startNode = graph.getNode(startPoint);
+        final int goalNode = graph.getNode(goalPoint);
+        final SearchContext context = graph.beginSearch();
+        final OpenList openList = context.getOpenList(mOpenListType, mTieBreaking);
+        final int startIndex = context.visit(startNode);
+        context.setStartDistance(startIndex, 0);
+        openList.add(startIndex, 0, 0);
+        context.setQueued(startIndex);
 
         do {
-            final Node node = heap.poll();
-            node.setProcessed();
-            if (node.equals(goalNode)) {
-                return node.getParentPoints();
+            final int startDistance = openList.peekStartDistance();
+            final int index = openList.poll();
+            final int node = context.getNode(index);
+            context.setProcessed(index);
+            context.checkCancellation();
+            if (node == goalNode) {
+                return context.getParentPoints(graph, index);
             }
 
-            handleNeighbors(graph, heap, node, goalNode);
-        } while (!heap.isEmpty());
+            handleNeighbors(graph, context, openList, index, node, startDistance, goalNode);
+        } while (!openList.isEmpty());
 
         return null;
     }
 
-    void handleNeighbors(Graph graph, BinaryMinHeap<Node> heap, Node node, Node goalNode) {
-        for (final Node neighbor : graph.findNodeNeighbors(node)) {
-            relax(heap, node, neighbor, goalNode);
+    /**
+     * Relaxes the successors of an expanded node.
+     *
+     * @param index Local index of the node in the search context.
+     * @param node The node.
+     * @param startDistance Distance to the start node from the node.
+     */
+    void handleNeighbors(Graph graph, SearchContext context, OpenList openList, int index,
+                         int node, int startDistance, int goalNode) {
+        final int[] neighbors = context.getNeighborBuffer();
+        final int count = graph.findNodeNeighbors(node, neighbors);
+        for (int i = 0; i < count; ++i) {
+            final int neighbor = neighbors[i];
+            final int distance = startDistance + graph.getStepCost(node, neighbor);
+            relax(graph, context, openList, index, distance, neighbor, goalNode);
         }
     }
 
-    void relax(BinaryMinHeap<Node> heap, Node node, Node neighbor, Node goalNode) {
-        if (neighbor.isProcessed()) {
+    /**
+     * Updates the neighbor if the path to it through the node is shorter than its current one.
+     *
+     * @param index Local index of the node in the search context.
+     * @param distance Distance to the start node from the neighbor through the node.
+     */
+    void relax(Graph graph, SearchContext context, OpenList openList, int index, int distance,
+               int neighbor, int goalNode) {
+        final int neighborIndex = context.visit(neighbor);
+        if (context.isProcessed(neighborIndex)) {
             return;
         }
 
-        final float distance = node.getPoint().distanceTo(neighbor.getPoint());
-        if (neighbor.getStartDistance() > node.getStartDistance() + distance) {
-            neighbor.setParent(node);
-            neighbor.setStartDistance(node.getStartDistance() + distance);
+        if (context.getStartDistance(neighborIndex) > distance) {
+            final int cost = distance + mHeuristic.cost(graph, neighbor, goalNode);
+            context.setParent(neighborIndex, index);
+            context.setStartDistance(neighborIndex, distance);
 
-            if (neighbor.isQueued()) {
-                heap.reorder(neighbor);
+            if (context.isQueued(neighborIndex)) {
+                openList.decreaseKey(neighborIndex, cost, distance);
             } else {
-                final int dx = neighbor.getX() - goalNode.getX();
-                final int dy = neighbor.getY() - goalNode.getY();
-                neighbor.setGoalDistance(mHeuristic.distance(dx, dy));
-
-                heap.add(neighbor);
-                neighbor.setQueued();
+                openList.add(neighborIndex, cost, distance);
+                context.setQueued(neighborIndex);
             }
         }
     }
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+
+/**
+ * PathFinder implementation of bidirectional A*. One search runs forward from the start and
+ * another backward from the goal, each with its own open list. The side with the smaller open
+ * list is expanded next.
+ *
+ * Both sides use the average of the two heuristic distances as their potential, i.e. the forward
+ * key of a node is <tt>g + (h(node, goal) - h(node, start)) / 2</tt> and the backward key
+ * <tt>g + (h(node, start) - h(node, goal)) / 2</tt>. The potentials of the two sides sum to zero,
+ * so they form a consistent pair and the search may stop as soon as the sum of the smallest keys
+ * of the open lists is at least the cost of the best path through a node reached from both sides.
+ * Without a heuristic, this is bidirectional Dijkstra. The keys are doubled to keep them integral.
+ */
+public class BidirectionalAStarPathFinder implements PathFinder {
+    private final Heuristic mHeuristic;
+    private final OpenListType mOpenListType;
+    private final TieBreaking mTieBreaking;
+
+    /**
+     * Best path found so far through a node reached from both sides.
+     */
+    private static final class Meeting {
+        int mCost = Integer.MAX_VALUE;
+        int mNode = Graph.NO_NODE;
+    }
+
+    public BidirectionalAStarPathFinder(Heuristic heuristic) {
+        this(heuristic, OpenListType.BinaryHeap);
+    }
+
+    public BidirectionalAStarPathFinder(Heuristic heuristic, OpenListType openListType) {
+        this(heuristic, openListType, TieBreaking.LargerStartDistance);
+    }
+
+    public BidirectionalAStarPathFinder(Heuristic heuristic, OpenListType openListType,
+                                        TieBreaking tieBreaking) {
+        mHeuristic = heuristic;
+        mOpenListType = openListType;
+        mTieBreaking = tieBreaking;
+    }
+
+    @Override
+    public List<Point> findPath(Graph graph, Point startPoint, Point goalPoint) {
+        final int startNode = graph.getNode(startPoint);
+        final int goalNode = graph.getNode(goalPoint);
+        final SearchContext forward = graph.beginSearch();
+        final SearchContext backward = forward.beginBackwardSearch();
+        final OpenList forwardList = forward.getOpenList(mOpenListType, mTieBreaking);
+        final OpenList backwardList = backward.getOpenList(mOpenListType, mTieBreaking);
+        start(forward, forwardList, startNode);
+        start(backward, backwardList, goalNode);
+
+        final Meeting meeting = new Meeting();
+        if (startNode == goalNode) {
+            meeting.mCost = 0;
+            meeting.mNode = startNode;
+        }
+
+        // Added to the keys of both sides to keep them non-negative.
+        final int offset = -potential(graph, startNode, startNode, goalNode);
+        while (!forwardList.isEmpty() && !backwardList.isEmpty()) {
+            final long forwardKey = peekKey(graph, forward, forwardList, startNode, goalNode, 1);
+            final long backwardKey =
+                peekKey(graph, backward, backwardList, startNode, goalNode, -1);
+            if (forwardKey + backwardKey >= 2L * meeting.mCost) {
+                break;
+            }
+
+            if (forwardList.size() <= backwardList.size()) {
+                expand(graph, forward, backward, forwardList, startNode, goalNode, 1, offset,
+                       meeting);
+                forward.checkCancellation();
+            } else {
+                expand(graph, backward, forward, backwardList, startNode, goalNode, -1, offset,
+                       meeting);
+                backward.checkCancellation();
+            }
+        }
+
+        if (meeting.mNode == Graph.NO_NODE) {
+            return null;
+        }
+
+        // Join the forward path to the meeting node with the backward path from it.
+        final List<Point> path = forward.getParentPoints(graph, forward.find(meeting.mNode));
+        int index = backward.getParent(backward.find(meeting.mNode));
+        while (index != SearchContext.NO_INDEX) {
+            path.add(graph.getPoint(backward.getNode(index)));
+            index = backward.getParent(index);
+        }
+        return path;
+    }
+
+    private static void start(SearchContext context, OpenList openList, int node) {
+        final int index = context.visit(node);
+        context.setStartDistance(index, 0);
+        // The key of the first node does not matter as it is the only one.
+        openList.add(index, 0, 0);
+        context.setQueued(index);
+    }
+
+    /**
+     * @return Difference of the heuristic distances from the node to the goal and to the start.
+     */
+    private int potential(Graph graph, int node, int startNode, int goalNode) {
+        return mHeuristic.cost(graph, node, goalNode) - mHeuristic.cost(graph, node, startNode);
+    }
+
+    /**
+     * @param sign 1 for the forward side and -1 for the backward side.
+     * @return Doubled key of the first node in the open list.
+     */
+    private long peekKey(Graph graph, SearchContext context, OpenList openList, int startNode,
+                         int goalNode, int sign) {
+        final int node = context.getNode(openList.peek());
+        return 2L * openList.peekStartDistance() +
+               sign * potential(graph, node, startNode, goalNode);
+    }
+
+    /**
+     * Expands the first node in the open list of one side.
+     *
+     * @param context Context of the side to expand.
+     * @param other Context of the opposite side.
+     * @param sign 1 for the forward side and -1 for the backward side.
+     * @param offset Added to the keys to keep them non-negative.
+     */
+    private void expand(Graph graph, SearchContext context, SearchContext other,
+                        OpenList openList, int startNode, int goalNode, int sign, int offset,
+                        Meeting meeting) {
+        final int startDistance = openList.peekStartDistance();
+        final int index = openList.poll();
+        final int node = context.getNode(index);
+        context.setProcessed(index);
+
+        final int[] neighbors = context.getNeighborBuffer();
+        final int count = graph.findNodeNeighbors(node, neighbors);
+        for (int i = 0; i < count; ++i) {
+            final int neighbor = neighbors[i];
+            final int distance = startDistance + graph.getStepCost(node, neighbor);
+            final int neighborIndex = context.visit(neighbor);
+            if (context.isProcessed(neighborIndex) ||
+                context.getStartDistance(neighborIndex) <= distance) {
+                continue;
+            }
+
+            final int key = Math.max(
+                0, 2 * distance + sign * potential(graph, neighbor, startNode, goalNode) + offset);
+            context.setParent(neighborIndex, index);
+            context.setStartDistance(neighborIndex, distance);
+            if (context.isQueued(neighborIndex)) {
+                openList.decreaseKey(neighborIndex, key, distance);
+            } else {
+                openList.add(neighborIndex, key, distance);
+                context.setQueued(neighborIndex);
+            }
+
+            // Nodes touched by the other side always have a finite distance.
+            final int otherIndex = other.find(neighbor);
+            if (otherIndex != SearchContext.NO_INDEX &&
+                distance + other.getStartDistance(otherIndex) < meeting.mCost) {
+                meeting.mCost = distance + other.getStartDistance(otherIndex);
+                meeting.mNode = neighbor;
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+/**
+ * Walkable state of a Graph packed into 64-bit words, once by rows and once by columns, for
+ * scanning straight lines 64 nodes at a time as in JPS-B (block-based Jump Point Search).
+ *
+ * Positions include the sentinel border of the graph, i.e. position <tt>x + 1</tt> of row
+ * <tt>y + 1</tt> holds node (x, y). Every line starts with an empty word and ends with enough empty
+ * words that a block of 64 bits can be read at any position within the line plus one.
+ */
+final class BitGrid {
+    private final int mRowWords;
+    private final int mColumnWords;
+    private final long[] mRows;
+    private final long[] mColumns;
+
+    /**
+     * Creates a grid of unwalkable nodes.
+     */
+    BitGrid(int width, int height) {
+        mRowWords = getLineWords(width + 2);
+        mColumnWords = getLineWords(height + 2);
+        mRows = new long[(height + 2) * mRowWords];
+        mColumns = new long[(width + 2) * mColumnWords];
+    }
+
+    private static int getLineWords(int length) {
+        // A leading empty word, the line itself and room for reading a block past its end.
+        return 1 + (length + 63) / 64 + 2;
+    }
+
+    void set(int x, int y, boolean walkable) {
+        setBit(mRows, (y + 1) * mRowWords, x + 1, walkable);
+        setBit(mColumns, (x + 1) * mColumnWords, y + 1, walkable);
+    }
+
+    private static void setBit(long[] bits, int line, int position, boolean value) {
+        final int index = line + 1 + (position >>> 6);
+        final long mask = 1L << position;
+        if (value) {
+            bits[index] |= mask;
+        } else {
+            bits[index] &= ~mask;
+        }
+    }
+
+    /**
+     * Reads the 64 bits of a line starting at the given position, which may be -64 at minimum.
+     */
+    private static long getBlock(long[] bits, int line, int position) {
+        final int bit = position + 64;
+        final int index = line + (bit >>> 6);
+        final int shift = bit & 63;
+        final long low = bits[index] >>> shift;
+        return shift == 0 ? low : low | (bits[index + 1] << (64 - shift));
+    }
+
+    /**
+     * Finds the first node, starting from the given walkable node and moving horizontally, that
+     * is either unwalkable or has a forced neighbor.
+     *
+     * @param dx Direction of movement, either 1 or -1.
+     * @return X-position of the node, which may be the sentinel position -1 or width.
+     */
+    int findHorizontalStop(int x, int y, int dx) {
+        return findStop(mRows, mRowWords, y + 1, x + 1, dx) - 1;
+    }
+
+    /**
+     * Finds the first node, starting from the given walkable node and moving vertically, that is
+     * either unwalkable or has a forced neighbor.
+     *
+     * @param dy Direction of movement, either 1 or -1.
+     * @return Y-position of the node, which may be the sentinel position -1 or height.
+     */
+    int findVerticalStop(int x, int y, int dy) {
+        return findStop(mColumns, mColumnWords, x + 1, y + 1, dy) - 1;
+    }
+
+    /**
+     * Scans a line from a position until a node is unwalkable or one of the adjacent lines
+     * changes from unwalkable to walkable in the direction of movement, which makes the node in
+     * the adjacent line that becomes walkable a forced neighbor.
+     *
+     * @param lineIndex Index of the line, which must have a line on both sides.
+     * @return Position of the first such node.
+     */
+    private static int findStop(long[] bits, int words, int lineIndex, int position,
+                                int direction) {
+        final int line = lineIndex * words;
+        final int before = line - words;
+        final int after = line + words;
+        if (direction > 0) {
+            for (int start = position; ; start += 64) {
+                final long stops = ~getBlock(bits, line, start) |
+                    (getBlock(bits, before, start + 1) & ~getBlock(bits, before, start)) |
+                    (getBlock(bits, after, start + 1) & ~getBlock(bits, after, start));
+                if (stops != 0) {
+                    return start + Long.numberOfTrailingZeros(stops);
+                }
+            }
+        } else {
+            for (int end = position; ; end -= 64) {
+                final int start = end - 63;
+                final long stops = ~getBlock(bits, line, start) |
+                    (getBlock(bits, before, start - 1) & ~getBlock(bits, before, start)) |
+                    (getBlock(bits, after, start - 1) & ~getBlock(bits, after, start));
+                if (stops != 0) {
+                    return end - Long.numberOfLeadingZeros(stops);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+
+/**
+ * PathFinder that answers repeated queries from a PathCache and passes the others on to another
+ * PathFinder. A cache may be shared by several CachingPathFinders, as the paths of each wrapped
+ * PathFinder instance are cached separately. Wrap the same instance wherever the same algorithm
+ * and heuristic are used so that the paths are shared.
+ *
+ * Paths returned from the cache do not expand any nodes, so Graph.getExpandedCount and
+ * Graph.wasProcessed describe the last search that missed the cache.
+ */
+public class CachingPathFinder implements PathFinder {
+    private final PathFinder mFinder;
+    private final PathCache mCache;
+
+    public CachingPathFinder(PathFinder finder, PathCache cache) {
+        mFinder = finder;
+        mCache = cache;
+    }
+
+    public PathCache getCache() {
+        return mCache;
+    }
+
+    @Override
+    public List<Point> findPath(Graph graph, Point startPoint, Point goalPoint) {
+        return mCache.findPath(mFinder, graph, startPoint, goalPoint);
+    }
+}
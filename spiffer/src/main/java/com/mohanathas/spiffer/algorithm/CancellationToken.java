@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests a search started by Graph.findPath to stop early. A token is cancelled either
+ * explicitly by calling cancel(), possibly from another thread, or implicitly once its deadline
+ * has passed.
+ *
+ * The search polls the token periodically rather than after every node, so a cancelled search may
+ * still expand a few hundred nodes before it stops.
+ */
+public final class CancellationToken {
+    private final boolean mHasDeadline;
+    private final long mDeadline;
+    private volatile boolean mCancelled = false;
+
+    /**
+     * Creates a token without a deadline.
+     */
+    public CancellationToken() {
+        mHasDeadline = false;
+        mDeadline = 0;
+    }
+
+    /**
+     * Creates a token that is cancelled once the given time has elapsed.
+     *
+     * @param timeout Time from now until the deadline.
+     * @param unit Unit of the timeout.
+     */
+    public CancellationToken(long timeout, TimeUnit unit) {
+        mHasDeadline = true;
+        mDeadline = System.nanoTime() + unit.toNanos(timeout);
+    }
+
+    public void cancel() {
+        mCancelled = true;
+    }
+
+    /**
+     * @return True if cancel() has been called or the deadline has passed.
+     */
+    public boolean isCancelled() {
+        return mCancelled || isExpired();
+    }
+
+    /**
+     * @return True if the token has a deadline and it has passed.
+     */
+    public boolean isExpired() {
+        return mHasDeadline && System.nanoTime() - mDeadline >= 0;
+    }
+
+    /**
+     * @return Nanoseconds until the deadline, which may be negative, or Long.MAX_VALUE if the
+     *         token has no deadline.
+     */
+    long getRemainingNanos() {
+        return mHasDeadline ? mDeadline - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    /**
+     * @throws CancellationException If the token has been cancelled.
+     */
+    public void throwIfCancelled() {
+        if (mCancelled) {
+            throw new CancellationException("Search cancelled");
+        }
+        if (isExpired()) {
+            throw new CancellationException("Search deadline expired");
+        }
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Abstract graph for HPA* (Hierarchical Path-Finding A* by Botea et al.). The graph is
+ * partitioned into square clusters. Each maximal run of walkable node pairs across the border of
+ * two clusters is an entrance, which is crossed by one transition in its middle, or by two at its
+ * ends if it is long. The nodes of the transitions are the entrance nodes of the clusters, and
+ * the distances between the entrance nodes of each cluster are precomputed by searching within
+ * the cluster.
+ *
+ * Changing a node marks its cluster as changed, along with the borders it lies on and the
+ * clusters beyond them. The changed parts are rebuilt by the next call to update.
+ */
+final class ClusterGraph {
+    /** Entrances shorter than this are crossed by a single transition. */
+    private static final int SINGLE_TRANSITION_LENGTH = 6;
+
+    /** Distance between two entrance nodes that are not connected within their cluster. */
+    static final int NO_DISTANCE = Integer.MAX_VALUE;
+
+    private final Graph mGraph;
+    private final int mClusterSize;
+    private final int mClustersX;
+    private final int mClustersY;
+
+    /**
+     * Transitions across the right and bottom border of each cluster as pairs of nodes, with the
+     * node inside the cluster first.
+     */
+    private final int[][] mRightTransitions;
+    private final int[][] mBottomTransitions;
+
+    /** Entrance nodes of each cluster. */
+    private final int[][] mEntrances;
+
+    /** Distances between the entrance nodes of each cluster at index i * count + j. */
+    private final int[][] mDistances;
+
+    private final boolean[] mChangedRightBorders;
+    private final boolean[] mChangedBottomBorders;
+    private final boolean[] mChangedClusters;
+    private boolean mChanged = true;
+
+    /**
+     * Creates the abstract graph with every cluster marked as changed.
+     */
+    ClusterGraph(Graph graph, int clusterSize) {
+        mGraph = graph;
+        mClusterSize = clusterSize;
+        mClustersX = (graph.getWidth() + clusterSize - 1) / clusterSize;
+        mClustersY = (graph.getHeight() + clusterSize - 1) / clusterSize;
+        final int count = mClustersX * mClustersY;
+        mRightTransitions = new int[count][0];
+        mBottomTransitions = new int[count][0];
+        mEntrances = new int[count][0];
+        mDistances = new int[count][0];
+        mChangedRightBorders = new boolean[count];
+        mChangedBottomBorders = new boolean[count];
+        mChangedClusters = new boolean[count];
+        Arrays.fill(mChangedRightBorders, true);
+        Arrays.fill(mChangedBottomBorders, true);
+        Arrays.fill(mChangedClusters, true);
+    }
+
+    int getClusterSize() {
+        return mClusterSize;
+    }
+
+    /**
+     * @return Index of the cluster containing a node within the bounds.
+     */
+    int getCluster(int node) {
+        return (mGraph.getY(node) / mClusterSize) * mClustersX + mGraph.getX(node) / mClusterSize;
+    }
+
+    /**
+     * @return Index of a node within its cluster, which is less than <tt>clusterSize^2</tt>.
+     */
+    int getLocalIndex(int node) {
+        return (mGraph.getY(node) % mClusterSize) * mClusterSize +
+               mGraph.getX(node) % mClusterSize;
+    }
+
+    int[] getEntrances(int cluster) {
+        return mEntrances[cluster];
+    }
+
+    /**
+     * @return Distance between the i-th and j-th entrance node of a cluster within the cluster or
+     *         NO_DISTANCE if they are not connected.
+     */
+    int getDistance(int cluster, int i, int j) {
+        return mDistances[cluster][i * mEntrances[cluster].length + j];
+    }
+
+    /**
+     * Finds the nodes across the cluster borders that are connected to an entrance node by a
+     * transition.
+     *
+     * @param partners Array of at least 4 elements to store the nodes in.
+     * @return Number of nodes stored.
+     */
+    int findPartners(int node, int[] partners) {
+        final int cluster = getCluster(node);
+        final int cx = cluster % mClustersX;
+        final int cy = cluster / mClustersX;
+        int count = findPartners(mRightTransitions[cluster], node, 0, partners, 0);
+        count = findPartners(mBottomTransitions[cluster], node, 0, partners, count);
+        if (cx > 0) {
+            count = findPartners(mRightTransitions[cluster - 1], node, 1, partners, count);
+        }
+        if (cy > 0) {
+            count = findPartners(
+                mBottomTransitions[cluster - mClustersX], node, 1, partners, count);
+        }
+        return count;
+    }
+
+    private static int findPartners(int[] transitions, int node, int side, int[] partners,
+                                    int count) {
+        for (int i = 0; i < transitions.length; i += 2) {
+            if (transitions[i + side] == node) {
+                partners[count++] = transitions[i + 1 - side];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Marks the parts of the abstract graph that depend on a node as changed.
+     */
+    void markChanged(int x, int y) {
+        final int cx = x / mClusterSize;
+        final int cy = y / mClusterSize;
+        final int cluster = cy * mClustersX + cx;
+        mChangedClusters[cluster] = true;
+        if (x % mClusterSize == 0 && cx > 0) {
+            mChangedRightBorders[cluster - 1] = true;
+            mChangedClusters[cluster - 1] = true;
+        }
+        if (x % mClusterSize == mClusterSize - 1 && cx < mClustersX - 1) {
+            mChangedRightBorders[cluster] = true;
+            mChangedClusters[cluster + 1] = true;
+        }
+        if (y % mClusterSize == 0 && cy > 0) {
+            mChangedBottomBorders[cluster - mClustersX] = true;
+            mChangedClusters[cluster - mClustersX] = true;
+        }
+        if (y % mClusterSize == mClusterSize - 1 && cy < mClustersY - 1) {
+            mChangedBottomBorders[cluster] = true;
+            mChangedClusters[cluster + mClustersX] = true;
+        }
+        mChanged = true;
+    }
+
+    /**
+     * Rebuilds the parts of the abstract graph that have changed.
+     *
+     * @return Number of clusters rebuilt.
+     */
+    int update() {
+        if (!mChanged) {
+            return 0;
+        }
+
+        for (int cluster = 0; cluster < mEntrances.length; ++cluster) {
+            final int x0 = (cluster % mClustersX) * mClusterSize;
+            final int y0 = (cluster / mClustersX) * mClusterSize;
+            if (mChangedRightBorders[cluster]) {
+                mChangedRightBorders[cluster] = false;
+                final int x = x0 + mClusterSize - 1;
+                mRightTransitions[cluster] = x + 1 < mGraph.getWidth()
+                    ? findTransitions(mGraph.getNode(x, y0), 0, 1, 1, 0,
+                                      Math.min(mClusterSize, mGraph.getHeight() - y0))
+                    : new int[0];
+            }
+            if (mChangedBottomBorders[cluster]) {
+                mChangedBottomBorders[cluster] = false;
+                final int y = y0 + mClusterSize - 1;
+                mBottomTransitions[cluster] = y + 1 < mGraph.getHeight()
+                    ? findTransitions(mGraph.getNode(x0, y), 1, 0, 0, 1,
+                                      Math.min(mClusterSize, mGraph.getWidth() - x0))
+                    : new int[0];
+            }
+        }
+
+        final int[] localDistances = new int[mClusterSize * mClusterSize];
+        final OpenList openList = OpenListType.BinaryHeap.create(TieBreaking.LargerStartDistance);
+        int rebuilt = 0;
+        for (int cluster = 0; cluster < mEntrances.length; ++cluster) {
+            if (mChangedClusters[cluster]) {
+                mChangedClusters[cluster] = false;
+                buildCluster(cluster, localDistances, openList);
+                ++rebuilt;
+            }
+        }
+
+        mChanged = false;
+        return rebuilt;
+    }
+
+    /**
+     * Finds the transitions across a border.
+     *
+     * @param node First node of the border inside the cluster.
+     * @param dx Direction along the border along the X-axis.
+     * @param dy Direction along the border along the Y-axis.
+     * @param acrossX Direction across the border along the X-axis.
+     * @param acrossY Direction across the border along the Y-axis.
+     * @param length Number of nodes along the border.
+     * @return Pairs of nodes, with the node inside the cluster first.
+     */
+    private int[] findTransitions(int node, int dx, int dy, int acrossX, int acrossY,
+                                  int length) {
+        final Graph g = mGraph;
+        final int[] transitions = new int[2 * (length + 1)];
+        int count = 0;
+        int runStart = -1;
+        for (int i = 0; i <= length; ++i) {
+            final int inside = g.getNeighbor(node, i * dx, i * dy);
+            final boolean open = i < length && g.isWalkable(inside) &&
+                g.isWalkable(g.getNeighbor(inside, acrossX, acrossY));
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                final int runLength = i - runStart;
+                if (runLength < SINGLE_TRANSITION_LENGTH) {
+                    count = addTransition(transitions, count, node, runStart + runLength / 2,
+                                          dx, dy, acrossX, acrossY);
+                } else {
+                    count = addTransition(transitions, count, node, runStart, dx, dy, acrossX,
+                                          acrossY);
+                    count = addTransition(transitions, count, node, i - 1, dx, dy, acrossX,
+                                          acrossY);
+                }
+                runStart = -1;
+            }
+        }
+        return Arrays.copyOf(transitions, count);
+    }
+
+    private int addTransition(int[] transitions, int count, int node, int offset, int dx, int dy,
+                              int acrossX, int acrossY) {
+        final int inside = mGraph.getNeighbor(node, offset * dx, offset * dy);
+        transitions[count] = inside;
+        transitions[count + 1] = mGraph.getNeighbor(inside, acrossX, acrossY);
+        return count + 2;
+    }
+
+    /**
+     * Collects the entrance nodes of a cluster and computes the distances between them.
+     */
+    private void buildCluster(int cluster, int[] localDistances, OpenList openList) {
+        final int cx = cluster % mClustersX;
+        final int cy = cluster / mClustersX;
+        final int[] entrances = new int[4 * 2 * mClusterSize];
+        int count = addEntrances(entrances, 0, mRightTransitions[cluster], 0);
+        count = addEntrances(entrances, count, mBottomTransitions[cluster], 0);
+        if (cx > 0) {
+            count = addEntrances(entrances, count, mRightTransitions[cluster - 1], 1);
+        }
+        if (cy > 0) {
+            count = addEntrances(entrances, count, mBottomTransitions[cluster - mClustersX], 1);
+        }
+
+        final int[] distances = new int[count * count];
+        for (int i = 0; i < count; ++i) {
+            searchCluster(entrances[i], localDistances, openList);
+            for (int j = 0; j < count; ++j) {
+                distances[i * count + j] = localDistances[getLocalIndex(entrances[j])];
+            }
+        }
+
+        mEntrances[cluster] = Arrays.copyOf(entrances, count);
+        mDistances[cluster] = distances;
+    }
+
+    private static int addEntrances(int[] entrances, int count, int[] transitions, int side) {
+        for (int i = side; i < transitions.length; i += 2) {
+            final int node = transitions[i];
+            boolean found = false;
+            for (int j = 0; j < count && !found; ++j) {
+                found = entrances[j] == node;
+            }
+            if (!found) {
+                entrances[count++] = node;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Computes the distances from a node to the nodes of its cluster with Dijkstra's algorithm,
+     * moving only within the cluster.
+     *
+     * @param distances Array of at least <tt>clusterSize^2</tt> elements to store the distance of
+     *        each node in at its local index, or NO_DISTANCE if it cannot be reached.
+     * @param openList Open list to use for the search.
+     */
+    void searchCluster(int node, int[] distances, OpenList openList) {
+        final Graph g = mGraph;
+        final int cluster = getCluster(node);
+        final int x0 = (cluster % mClustersX) * mClusterSize;
+        final int y0 = (cluster / mClustersX) * mClusterSize;
+        final int x1 = Math.min(x0 + mClusterSize, g.getWidth());
+        final int y1 = Math.min(y0 + mClusterSize, g.getHeight());
+        Arrays.fill(distances, NO_DISTANCE);
+        openList.clear();
+        distances[getLocalIndex(node)] = 0;
+        openList.add(getLocalIndex(node), 0, 0);
+        while (!openList.isEmpty()) {
+            final int startDistance = openList.peekStartDistance();
+            final int index = openList.poll();
+            final int current = g.getNode(x0 + index % mClusterSize, y0 + index / mClusterSize);
+            for (int mask = g.getSuccessors(current); mask != 0; mask &= mask - 1) {
+                final int neighbor = g.getSuccessor(current, mask);
+                final int x = g.getX(neighbor);
+                final int y = g.getY(neighbor);
+                if (x < x0 || x >= x1 || y < y0 || y >= y1) {
+                    continue;
+                }
+
+                final int distance = startDistance + g.getStepCost(current, neighbor);
+                final int neighborIndex = (y - y0) * mClusterSize + (x - x0);
+                if (distance < distances[neighborIndex]) {
+                    distances[neighborIndex] = distance;
+                    if (openList.contains(neighborIndex)) {
+                        openList.decreaseKey(neighborIndex, distance, distance);
+                    } else {
+                        openList.add(neighborIndex, distance, distance);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,534 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Compressed path database (CPD, by Botea and Harabor) of a Graph. For every walkable source node,
+ * it stores the direction of the first move of a shortest path to every target node, so a path is
+ * found by repeatedly looking up the first move towards the goal without any search.
+ *
+ * The targets are numbered in the depth-first order of the walkable nodes, which keeps nearby
+ * nodes close to each other in the order, and the first moves of each source are stored as runs
+ * of consecutive targets with a common first move. Where several first moves are optimal, the one
+ * that extends the current run is chosen. The first moves are found with one Dijkstra
+ * search per source, which are run in parallel. This takes time quadratic in the number of nodes,
+ * so the database is meant to be built once for a map and then stored with write.
+ *
+ * The database belongs to the graph it was built or read for, and can only be used until the
+ * walkable state of that graph changes.
+ */
+public final class CompressedPathDatabase {
+    /** Identifies the file format. */
+    private static final int MAGIC = 0x43504442;
+    private static final int FORMAT_VERSION = 1;
+
+    /** Number of sources searched sequentially by a BuildTask. */
+    private static final int SOURCES_PER_TASK = 16;
+
+    /** Number of bits of a run used for the direction of the first move. */
+    private static final int DIRECTION_BITS = 3;
+
+    /** Number of ints allocated for an array before more of it has been read. */
+    private static final int READ_CHUNK_LENGTH = 1 << 16;
+
+    private final Graph mGraph;
+    private final int mVersion;
+
+    /** Rank of each node in the order of the targets or -1 if it is not walkable. */
+    private final int[] mRanks;
+
+    /** Node of each rank. */
+    private final int[] mNodes;
+
+    /** Connected components as ranges of ranks from mComponentStarts[i] on. */
+    private final int[] mComponentStarts;
+
+    /** Component of each rank. */
+    private final int[] mComponents;
+
+    /**
+     * Runs of the source with rank r from mRuns[mRunOffsets[r]] on. Each run is the first target
+     * rank of the run shifted left by DIRECTION_BITS and combined with the direction.
+     */
+    private final int[] mRunOffsets;
+    private final int[] mRuns;
+
+    private CompressedPathDatabase(Graph graph, int[] nodes, int[] componentStarts,
+                                   int[] runOffsets, int[] runs) {
+        mGraph = graph;
+        mVersion = graph.getVersion();
+        mNodes = nodes;
+        mComponentStarts = componentStarts;
+        mRunOffsets = runOffsets;
+        mRuns = runs;
+        mRanks = new int[graph.getNodeCount()];
+        Arrays.fill(mRanks, -1);
+        for (int rank = 0; rank < nodes.length; ++rank) {
+            mRanks[nodes[rank]] = rank;
+        }
+        mComponents = new int[nodes.length];
+        for (int i = 0; i + 1 < componentStarts.length; ++i) {
+            Arrays.fill(mComponents, componentStarts[i], componentStarts[i + 1], i);
+        }
+    }
+
+    /**
+     * Builds the database for the current state of the graph on a pool shared by all graphs.
+     */
+    public static CompressedPathDatabase build(Graph graph) {
+        final Builder builder = new Builder(graph);
+        PathQueryTask.getDefaultPool().invoke(builder.new BuildTask(0, builder.mNodes.length));
+        final int[] runOffsets = new int[builder.mNodes.length + 1];
+        for (int rank = 0; rank < builder.mNodes.length; ++rank) {
+            runOffsets[rank + 1] = runOffsets[rank] + builder.mRuns[rank].length;
+        }
+        final int[] runs = new int[runOffsets[builder.mNodes.length]];
+        for (int rank = 0; rank < builder.mNodes.length; ++rank) {
+            System.arraycopy(builder.mRuns[rank], 0, runs, runOffsets[rank],
+                             builder.mRuns[rank].length);
+        }
+        return new CompressedPathDatabase(graph, builder.mNodes, builder.mComponentStarts,
+                                          runOffsets, runs);
+    }
+
+    /**
+     * Reads a database written by write for a graph with the same walkable state.
+     *
+     * @throws IOException If reading fails, the data is not a database of this format or it was
+     *         built for a different map.
+     */
+    public static CompressedPathDatabase read(InputStream in, Graph graph) throws IOException {
+        final DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a path database of a supported version");
+        }
+        if (data.readInt() != graph.getWidth() || data.readInt() != graph.getHeight() ||
+            data.readLong() != computeMapHash(graph)) {
+            throw new IOException("Path database was built for a different map");
+        }
+
+        final int[] nodes = readInts(data, graph.getWidth() * graph.getHeight());
+        final boolean[] seen = new boolean[graph.getNodeCount()];
+        for (int i = 0; i < nodes.length; ++i) {
+            final int position = nodes[i];
+            if (position < 0 || position >= graph.getWidth() * graph.getHeight()) {
+                throw new IOException("Invalid node in path database");
+            }
+            final int node =
+                graph.getNode(position % graph.getWidth(), position / graph.getWidth());
+            if (!graph.isWalkable(node) || seen[node]) {
+                throw new IOException("Invalid node in path database");
+            }
+            seen[node] = true;
+            nodes[i] = node;
+        }
+        final int[] componentStarts = readInts(data, nodes.length + 1);
+        final int[] runOffsets = readInts(data, nodes.length + 1);
+
+        // Each source has at most one run per target.
+        final int[] runs =
+            readInts(data, (int)Math.min((long)nodes.length * nodes.length, Integer.MAX_VALUE));
+        if (runOffsets.length != nodes.length + 1 || runOffsets[0] != 0 ||
+            runOffsets[nodes.length] != runs.length || componentStarts.length == 0 ||
+            componentStarts[0] != 0 ||
+            componentStarts[componentStarts.length - 1] != nodes.length) {
+            throw new IOException("Inconsistent path database");
+        }
+        for (int i = 1; i < componentStarts.length; ++i) {
+            if (componentStarts[i] <= componentStarts[i - 1]) {
+                throw new IOException("Inconsistent path database");
+            }
+        }
+        checkRuns(graph, nodes, componentStarts, runOffsets, runs);
+        return new CompressedPathDatabase(graph, nodes, componentStarts, runOffsets, runs);
+    }
+
+    /**
+     * Checks that the runs of each source start at its component, increase strictly within it and
+     * only move to its successors, as getFirstMove and the path finder rely on that.
+     *
+     * @throws IOException If the runs of a source are invalid.
+     */
+    private static void checkRuns(Graph graph, int[] nodes, int[] componentStarts,
+                                  int[] runOffsets, int[] runs) throws IOException {
+        int component = 0;
+        for (int rank = 0; rank < nodes.length; ++rank) {
+            if (rank == componentStarts[component + 1]) {
+                ++component;
+            }
+            final int begin = componentStarts[component];
+            final int end = componentStarts[component + 1];
+            final int runBegin = runOffsets[rank];
+            final int runEnd = runOffsets[rank + 1];
+            if (runEnd <= runBegin || runEnd > runs.length) {
+                throw new IOException("Inconsistent path database");
+            }
+
+            // The only target of a source without neighbors is the source, which has no move.
+            final int successors = end - begin > 1 ? graph.getSuccessors(nodes[rank]) : 0xFF;
+            int previousTarget = begin - 1;
+            for (int i = runBegin; i < runEnd; ++i) {
+                final int target = runs[i] >>> DIRECTION_BITS;
+                final int direction = runs[i] & ((1 << DIRECTION_BITS) - 1);
+                if ((i == runBegin ? target != begin : target <= previousTarget) ||
+                    target >= end || (successors & (1 << direction)) == 0) {
+                    throw new IOException("Invalid run in path database");
+                }
+                previousTarget = target;
+            }
+        }
+    }
+
+    /**
+     * Writes the database in a binary format that read accepts. The stream is flushed, but not
+     * closed.
+     */
+    public void write(OutputStream out) throws IOException {
+        final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeInt(mGraph.getWidth());
+        data.writeInt(mGraph.getHeight());
+        data.writeLong(computeMapHash(mGraph));
+
+        // The nodes are stored as positions so that the file does not depend on the padding.
+        final int[] positions = new int[mNodes.length];
+        for (int i = 0; i < mNodes.length; ++i) {
+            positions[i] = mGraph.getY(mNodes[i]) * mGraph.getWidth() + mGraph.getX(mNodes[i]);
+        }
+        writeInts(data, positions);
+        writeInts(data, mComponentStarts);
+        writeInts(data, mRunOffsets);
+        writeInts(data, mRuns);
+        data.flush();
+    }
+
+    /**
+     * Reads the database of the graph from a file, or builds it and writes it to the file if the
+     * file does not exist or was built for a different state of the map.
+     *
+     * @throws IOException If writing the file fails.
+     */
+    public static CompressedPathDatabase load(Path path, Graph graph) throws IOException {
+        if (Files.exists(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                return read(in, graph);
+            } catch (IOException ex) {
+                // Rebuild the database below.
+            }
+        }
+
+        final CompressedPathDatabase database = build(graph);
+        try (OutputStream out = Files.newOutputStream(path)) {
+            database.write(out);
+        }
+        return database;
+    }
+
+    /**
+     * @return Whether the database can be used to find paths on the graph.
+     */
+    public boolean isValidFor(Graph graph) {
+        return graph == mGraph && graph.getVersion() == mVersion;
+    }
+
+    /**
+     * @return Number of walkable nodes, which bounds the number of steps of a path.
+     */
+    int getNodeCount() {
+        return mNodes.length;
+    }
+
+    /**
+     * @return Total number of runs, which is the size of the database.
+     */
+    public int getRunCount() {
+        return mRuns.length;
+    }
+
+    /**
+     * Looks up the first move of a shortest path between two walkable nodes.
+     *
+     * @return Index of the direction in Graph.DIRECTION_X and Graph.DIRECTION_Y, or -1 if there is
+     *     no path or the nodes are the same.
+     */
+    int getFirstMove(int node, int targetNode) {
+        final int rank = mRanks[node];
+        final int targetRank = mRanks[targetNode];
+        if (rank == -1 || targetRank == -1 || rank == targetRank ||
+            mComponents[rank] != mComponents[targetRank]) {
+            return -1;
+        }
+
+        // Find the last run that starts at or before the target.
+        int low = mRunOffsets[rank];
+        int high = mRunOffsets[rank + 1] - 1;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (mRuns[middle] >>> DIRECTION_BITS <= targetRank) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return mRuns[low] & ((1 << DIRECTION_BITS) - 1);
+    }
+
+    /**
+     * @return Hash of the size and walkable state of the graph.
+     */
+    private static long computeMapHash(Graph graph) {
+        // 64-bit FNV-1a.
+        long hash = 0xCBF29CE484222325L;
+        final int width = graph.getWidth();
+        final int height = graph.getHeight();
+        hash = (hash ^ width) * 0x100000001B3L;
+        hash = (hash ^ height) * 0x100000001B3L;
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                hash = (hash ^ (graph.isWalkable(x, y) ? 1 : 0)) * 0x100000001B3L;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Reads an array written by writeInts.
+     *
+     * @throws IOException If reading fails or the length is negative or above maxLength.
+     */
+    private static int[] readInts(DataInputStream data, int maxLength) throws IOException {
+        final int length = data.readInt();
+        if (length < 0 || length > maxLength) {
+            throw new IOException("Invalid array length in path database");
+        }
+
+        // The array grows as it is read, so a truncated file fails before the whole length is
+        // allocated.
+        int[] ints = new int[Math.min(length, READ_CHUNK_LENGTH)];
+        for (int i = 0; i < length; ++i) {
+            if (i == ints.length) {
+                ints = Arrays.copyOf(ints, (int)Math.min(2L * i, length));
+            }
+            ints[i] = data.readInt();
+        }
+        return ints;
+    }
+
+    private static void writeInts(DataOutputStream data, int[] ints) throws IOException {
+        data.writeInt(ints.length);
+        for (int value : ints) {
+            data.writeInt(value);
+        }
+    }
+
+    /**
+     * Orders the nodes and computes the runs of each source.
+     */
+    private static final class Builder {
+        private final Graph mGraph;
+        private final int[] mRanks;
+        final int[] mNodes;
+        final int[] mComponentStarts;
+        final int[][] mRuns;
+
+        private final ThreadLocal<Search> mSearches = new ThreadLocal<Search>() {
+            @Override
+            protected Search initialValue() {
+                return new Search(mNodes.length);
+            }
+        };
+
+        /**
+         * Computes the runs of a range of sources.
+         */
+        private final class BuildTask extends RecursiveAction {
+            private final int mBegin;
+            private final int mEnd;
+
+            BuildTask(int begin, int end) {
+                mBegin = begin;
+                mEnd = end;
+            }
+
+            @Override
+            protected void compute() {
+                if (mEnd - mBegin > SOURCES_PER_TASK) {
+                    final int middle = (mBegin + mEnd) >>> 1;
+                    invokeAll(new BuildTask(mBegin, middle), new BuildTask(middle, mEnd));
+                    return;
+                }
+
+                final Search search = mSearches.get();
+                for (int rank = mBegin; rank < mEnd; ++rank) {
+                    mRuns[rank] = search.findRuns(rank);
+                }
+            }
+        }
+
+        /**
+         * Numbers the walkable nodes in depth-first order, one connected component after another.
+         */
+        Builder(Graph graph) {
+            mGraph = graph;
+            mRanks = new int[graph.getNodeCount()];
+            Arrays.fill(mRanks, -1);
+            int[] nodes = new int[64];
+            int[] componentStarts = new int[8];
+            int count = 0;
+            int componentCount = 0;
+            int[] stack = new int[64];
+            for (int y = 0; y < graph.getHeight(); ++y) {
+                for (int x = 0; x < graph.getWidth(); ++x) {
+                    final int root = graph.getNode(x, y);
+                    if (mRanks[root] != -1 || !graph.isWalkable(root)) {
+                        continue;
+                    }
+
+                    if (componentCount == componentStarts.length) {
+                        componentStarts = Arrays.copyOf(componentStarts, 2 * componentCount);
+                    }
+                    componentStarts[componentCount++] = count;
+                    int size = 0;
+                    stack[size++] = root;
+                    while (size > 0) {
+                        final int node = stack[--size];
+                        if (mRanks[node] != -1) {
+                            continue;
+                        }
+
+                        if (count == nodes.length) {
+                            nodes = Arrays.copyOf(nodes, 2 * count);
+                        }
+                        mRanks[node] = count;
+                        nodes[count++] = node;
+                        for (int mask = graph.getSuccessors(node); mask != 0; mask &= mask - 1) {
+                            final int neighbor = graph.getSuccessor(node, mask);
+                            if (mRanks[neighbor] == -1) {
+                                if (size == stack.length) {
+                                    stack = Arrays.copyOf(stack, 2 * size);
+                                }
+                                stack[size++] = neighbor;
+                            }
+                        }
+                    }
+                }
+            }
+
+            mNodes = Arrays.copyOf(nodes, count);
+            mComponentStarts = Arrays.copyOf(componentStarts, componentCount + 1);
+            mComponentStarts[componentCount] = count;
+            mRuns = new int[count][];
+        }
+
+        /**
+         * Dijkstra search from a source over its component that records the first moves. Each
+         * thread has its own. A binary heap builds the database faster than a radix heap, even
+         * though the distances only ever increase.
+         */
+        private final class Search {
+            private final int[] mDistances;
+
+            /** Mask of the directions of the first moves of all shortest paths to each node. */
+            private final int[] mFirstMoves;
+            private final OpenList mOpenList = OpenListType.BinaryHeap.create(TieBreaking.None);
+
+            Search(int count) {
+                mDistances = new int[count];
+                mFirstMoves = new int[count];
+            }
+
+            /**
+             * @return Runs of the first moves from the source to the targets of its component.
+             */
+            int[] findRuns(int source) {
+                final int component = findComponent(source);
+                final int begin = mComponentStarts[component];
+                final int end = mComponentStarts[component + 1];
+                Arrays.fill(mDistances, begin, end, Integer.MAX_VALUE);
+                mOpenList.clear();
+                mDistances[source] = 0;
+                mFirstMoves[source] = 0xFF;
+                mOpenList.add(source, 0, 0);
+                while (!mOpenList.isEmpty()) {
+                    final int distance = mOpenList.peekStartDistance();
+                    final int rank = mOpenList.poll();
+                    final int node = mNodes[rank];
+                    for (int mask = mGraph.getSuccessors(node); mask != 0; mask &= mask - 1) {
+                        final int neighborRank = mRanks[mGraph.getSuccessor(node, mask)];
+                        final int neighborDistance =
+                            distance + mGraph.getStepCost(node, mNodes[neighborRank]);
+                        final int firstMoves =
+                            rank == source ? Integer.lowestOneBit(mask) : mFirstMoves[rank];
+                        if (neighborDistance == mDistances[neighborRank]) {
+                            // Every predecessor on a shortest path is settled before the node, so
+                            // the mask is complete when the node is settled.
+                            mFirstMoves[neighborRank] |= firstMoves;
+                        } else if (neighborDistance < mDistances[neighborRank]) {
+                            final boolean queued = mDistances[neighborRank] != Integer.MAX_VALUE;
+                            mDistances[neighborRank] = neighborDistance;
+                            mFirstMoves[neighborRank] = firstMoves;
+                            if (queued) {
+                                mOpenList.decreaseKey(neighborRank, neighborDistance,
+                                                      neighborDistance);
+                            } else {
+                                mOpenList.add(neighborRank, neighborDistance, neighborDistance);
+                            }
+                        }
+                    }
+                }
+
+                // Each run greedily extends over the following targets as long as they share a
+                // first move with all targets of the run. The source itself accepts any move. The
+                // first run covers the start of the component.
+                int[] runs = new int[8];
+                int count = 0;
+                int runMoves = 0;
+                for (int target = begin; target < end; ++target) {
+                    final int moves = runMoves & mFirstMoves[target];
+                    if (moves != 0) {
+                        runMoves = moves;
+                        continue;
+                    }
+
+                    if (count > 0) {
+                        runs[count - 1] |= Integer.numberOfTrailingZeros(runMoves);
+                    }
+                    if (count == runs.length) {
+                        runs = Arrays.copyOf(runs, 2 * count);
+                    }
+                    runs[count++] = target << DIRECTION_BITS;
+                    runMoves = mFirstMoves[target];
+                }
+                runs[count - 1] |= Integer.numberOfTrailingZeros(runMoves);
+                return Arrays.copyOf(runs, count);
+            }
+
+            private int findComponent(int rank) {
+                int index = Arrays.binarySearch(mComponentStarts, rank);
+                if (index < 0) {
+                    index = -index - 2;
+                }
+                return index;
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.DynamicArray;
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+
+/**
+ * PathFinder implementation that follows the first moves stored in a CompressedPathDatabase from
+ * the start to the goal, which takes time proportional to the length of the path times the
+ * logarithm of the number of runs of a node.
+ */
+public class CompressedPathDatabasePathFinder implements PathFinder {
+    private final CompressedPathDatabase mDatabase;
+
+    public CompressedPathDatabasePathFinder(CompressedPathDatabase database) {
+        mDatabase = database;
+    }
+
+    /**
+     * @throws IllegalStateException If the database was not built for the current state of the
+     *     graph or following it does not reach the goal.
+     */
+    @Override
+    public List<Point> findPath(Graph graph, Point startPoint, Point goalPoint) {
+        if (!mDatabase.isValidFor(graph)) {
+            throw new IllegalStateException("Path database does not match the graph");
+        }
+
+        final int startNode = graph.getNode(startPoint);
+        final int goalNode = graph.getNode(goalPoint);
+        if (startNode == goalNode) {
+            return new DynamicArray<>();
+        } else if (!graph.isWalkable(goalNode)) {
+            return null;
+        }
+
+        int node = startNode;
+        if (!graph.isWalkable(startNode)) {
+            // A start that is not walkable is left by moving to the neighbor with the shortest
+            // path to the goal.
+            node = findBestNeighbor(graph, startNode, goalNode);
+            if (node == Graph.NO_NODE) {
+                return null;
+            }
+        } else if (mDatabase.getFirstMove(startNode, goalNode) == -1) {
+            return null;
+        }
+
+        final DynamicArray<Point> path = new DynamicArray<>();
+        if (node != startNode) {
+            path.add(graph.getPoint(node));
+        }
+        while (node != goalNode) {
+            node = graph.getSuccessor(node, 1 << mDatabase.getFirstMove(node, goalNode));
+            path.add(graph.getPoint(node));
+            if (path.size() > mDatabase.getNodeCount()) {
+                throw new IllegalStateException("Path database contains a cycle");
+            }
+        }
+        return path;
+    }
+
+    /**
+     * @return Neighbor of the node through which the path to the goal is shortest or NO_NODE if
+     *     the goal cannot be reached from any neighbor.
+     */
+    private int findBestNeighbor(Graph graph, int node, int goalNode) {
+        int bestNeighbor = Graph.NO_NODE;
+        int bestCost = Integer.MAX_VALUE;
+        for (int mask = graph.getSuccessors(node); mask != 0; mask &= mask - 1) {
+            final int neighbor = graph.getSuccessor(node, mask);
+            final int cost = graph.getStepCost(node, neighbor) + getPathCost(graph, neighbor,
+                                                                             goalNode);
+            if (cost >= 0 && cost < bestCost) {
+                bestCost = cost;
+                bestNeighbor = neighbor;
+            }
+        }
+        return bestNeighbor;
+    }
+
+    /**
+     * @return Cost of the path from a walkable node to the goal or a negative value if there is no
+     *     path.
+     */
+    private int getPathCost(Graph graph, int node, int goalNode) {
+        int cost = 0;
+        for (int steps = 0; node != goalNode; ++steps) {
+            final int move = mDatabase.getFirstMove(node, goalNode);
+            if (move == -1) {
+                return Integer.MIN_VALUE;
+            } else if (steps == mDatabase.getNodeCount()) {
+                throw new IllegalStateException("Path database contains a cycle");
+            }
+
+            final int next = graph.getSuccessor(node, 1 << move);
+            cost += graph.getStepCost(node, next);
+            node = next;
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,506 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.DynamicArray;
+import com.mohanathas.spiffer.util.Point;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Contraction hierarchy (by Geisberger et al.) of the walkable nodes of a Graph. The nodes are
+ * contracted one after another. Contracting a node removes it from the remaining graph and adds a
+ * shortcut between two of its neighbors if the path through it is the only shortest path between
+ * them, as judged by a bounded witness search. A query then only needs to follow edges to nodes
+ * that were contracted later, i.e. upward edges, from both ends.
+ *
+ * The contraction proceeds in rounds. Each round contracts the nodes whose priority is lower than
+ * that of all their remaining neighbors. These nodes are independent, so their priorities and
+ * shortcuts are computed in parallel, with the witness searches avoiding all nodes of the round.
+ * The priority of a node is the number of shortcuts it would add minus the number of its edges,
+ * plus the number of its neighbors that have already been contracted and its level, which spread
+ * the contraction evenly over the grid. The shortcuts are estimated with a smaller witness search
+ * than the one used when the node is actually contracted.
+ *
+ * The nodes are identified by dense IDs. The upward edges of each node are stored as triples of
+ * the target ID, the cost and the ID of the contracted node that a shortcut bypasses, or -1 for
+ * the edges of the graph.
+ */
+final class ContractionHierarchy {
+    /** Number of nodes settled by a witness search before it gives up and adds the shortcut. */
+    private static final int WITNESS_SETTLE_LIMIT = 256;
+
+    /** Number of nodes settled by a witness search when only estimating the priority. */
+    private static final int ESTIMATE_SETTLE_LIMIT = 8;
+
+    /** Number of nodes handled sequentially by a RoundTask. */
+    private static final int NODES_PER_TASK = 256;
+
+    private final Graph mGraph;
+    private final int mVersion;
+
+    /** ID of each node or -1 if it is not walkable. */
+    private final int[] mIds;
+
+    /** Node of each ID. */
+    private final int[] mNodes;
+
+    /** Position of each ID in the contraction order. */
+    private final int[] mRanks;
+
+    /** Upward edges of ID i as triples from mUpEdges[3 * mUpOffsets[i]] on. */
+    private final int[] mUpOffsets;
+    private final int[] mUpEdges;
+
+    /**
+     * Builds the hierarchy for the current state of the graph.
+     */
+    ContractionHierarchy(Graph graph, int version) {
+        mGraph = graph;
+        mVersion = version;
+        mIds = new int[graph.getNodeCount()];
+        Arrays.fill(mIds, -1);
+        int count = 0;
+        for (int y = 0; y < graph.getHeight(); ++y) {
+            for (int x = 0; x < graph.getWidth(); ++x) {
+                final int node = graph.getNode(x, y);
+                if (graph.isWalkable(node)) {
+                    mIds[node] = count++;
+                }
+            }
+        }
+
+        mNodes = new int[count];
+        for (int node = 0; node < mIds.length; ++node) {
+            if (mIds[node] != -1) {
+                mNodes[mIds[node]] = node;
+            }
+        }
+
+        final Builder builder = new Builder(count);
+        builder.contract();
+        mRanks = builder.mRanks;
+        mUpOffsets = new int[count + 1];
+        for (int id = 0; id < count; ++id) {
+            mUpOffsets[id + 1] = mUpOffsets[id] + builder.mEdgeCounts[id];
+        }
+        mUpEdges = new int[3 * mUpOffsets[count]];
+        for (int id = 0; id < count; ++id) {
+            System.arraycopy(builder.mEdges[id], 0, mUpEdges, 3 * mUpOffsets[id],
+                             3 * builder.mEdgeCounts[id]);
+        }
+    }
+
+    int getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * @return ID of the node or -1 if it is not walkable.
+     */
+    int getId(int node) {
+        return mIds[node];
+    }
+
+    int getNode(int id) {
+        return mNodes[id];
+    }
+
+    int getUpBegin(int id) {
+        return mUpOffsets[id];
+    }
+
+    int getUpEnd(int id) {
+        return mUpOffsets[id + 1];
+    }
+
+    int getUpTarget(int edge) {
+        return mUpEdges[3 * edge];
+    }
+
+    int getUpCost(int edge) {
+        return mUpEdges[3 * edge + 1];
+    }
+
+    /**
+     * Adds the points of the path represented by the edge between two IDs to a path, excluding
+     * the point of the first ID. Shortcuts are unpacked iteratively into the edges they bypass.
+     */
+    void unpack(int fromId, int toId, DynamicArray<Point> path) {
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = fromId;
+        stack[size++] = toId;
+        while (size > 0) {
+            final int to = stack[--size];
+            final int from = stack[--size];
+            final int middle = mUpEdges[3 * findEdge(from, to) + 2];
+            if (middle == -1) {
+                path.add(mGraph.getPoint(mNodes[to]));
+                continue;
+            }
+
+            if (size + 4 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[size++] = middle;
+            stack[size++] = to;
+            stack[size++] = from;
+            stack[size++] = middle;
+        }
+    }
+
+    /**
+     * @return Index of the edge between two IDs, which is an upward edge of the lower ranked one.
+     */
+    private int findEdge(int a, int b) {
+        final int lower = mRanks[a] < mRanks[b] ? a : b;
+        final int higher = lower == a ? b : a;
+        for (int edge = mUpOffsets[lower]; edge < mUpOffsets[lower + 1]; ++edge) {
+            if (mUpEdges[3 * edge] == higher) {
+                return edge;
+            }
+        }
+        throw new IllegalStateException("No edge between " + a + " and " + b);
+    }
+
+    /**
+     * @return Scrambled ID. Each step is invertible, so different IDs never have equal hashes.
+     */
+    private static int hash(int id) {
+        final int h = id * 0x9E3779B1;
+        return (h ^ (h >>> 16)) * 0x85EBCA6B;
+    }
+
+    /**
+     * State of the contraction. Once it is complete, the edges of each ID are its upward edges.
+     */
+    private final class Builder {
+        private final int mCount;
+
+        /** Edges of each ID as triples like the upward edges. */
+        final int[][] mEdges;
+        final int[] mEdgeCounts;
+        final int[] mRanks;
+
+        private final boolean[] mContracted;
+        private final boolean[] mInRound;
+        private final boolean[] mChanged;
+        private final int[] mPriorities;
+        private final int[] mContractedNeighbors;
+
+        /** Length of the longest chain of contracted nodes leading to each ID. */
+        private final int[] mLevels;
+
+        /** Shortcuts of the nodes in the current round as triples of two IDs and the cost. */
+        private final int[][] mShortcuts;
+
+        private final ThreadLocal<WitnessSearch> mWitnessSearches =
+            new ThreadLocal<WitnessSearch>() {
+                @Override
+                protected WitnessSearch initialValue() {
+                    return new WitnessSearch(mCount);
+                }
+            };
+
+        /**
+         * Computes the priorities or the shortcuts of a range of nodes.
+         */
+        private final class RoundTask extends RecursiveAction {
+            private final int[] mRoundIds;
+            private final boolean mFindShortcuts;
+            private final int mBegin;
+            private final int mEnd;
+
+            RoundTask(int[] ids, boolean findShortcuts, int begin, int end) {
+                mRoundIds = ids;
+                mFindShortcuts = findShortcuts;
+                mBegin = begin;
+                mEnd = end;
+            }
+
+            @Override
+            protected void compute() {
+                if (mEnd - mBegin > NODES_PER_TASK) {
+                    final int middle = (mBegin + mEnd) >>> 1;
+                    invokeAll(new RoundTask(mRoundIds, mFindShortcuts, mBegin, middle),
+                              new RoundTask(mRoundIds, mFindShortcuts, middle, mEnd));
+                    return;
+                }
+
+                final WitnessSearch search = mWitnessSearches.get();
+                for (int i = mBegin; i < mEnd; ++i) {
+                    final int id = mRoundIds[i];
+                    if (mFindShortcuts) {
+                        mShortcuts[id] = search.findShortcuts(id, WITNESS_SETTLE_LIMIT);
+                    } else if (mChanged[id]) {
+                        mChanged[id] = false;
+                        mPriorities[id] =
+                            search.findShortcuts(id, ESTIMATE_SETTLE_LIMIT).length / 3 -
+                            mEdgeCounts[id] + mContractedNeighbors[id] + mLevels[id];
+                    }
+                }
+            }
+        }
+
+        Builder(int count) {
+            mCount = count;
+            mEdges = new int[count][];
+            mEdgeCounts = new int[count];
+            mRanks = new int[count];
+            mContracted = new boolean[count];
+            mInRound = new boolean[count];
+            mChanged = new boolean[count];
+            mPriorities = new int[count];
+            mContractedNeighbors = new int[count];
+            mLevels = new int[count];
+            mShortcuts = new int[count][];
+            Arrays.fill(mChanged, true);
+
+            final Graph g = mGraph;
+            for (int id = 0; id < count; ++id) {
+                final int node = mNodes[id];
+                mEdges[id] = new int[3 * 8];
+                for (int mask = g.getSuccessors(node); mask != 0; mask &= mask - 1) {
+                    final int neighbor = g.getSuccessor(node, mask);
+                    addEdge(id, mIds[neighbor], g.getStepCost(node, neighbor), -1);
+                }
+            }
+        }
+
+        void contract() {
+            int[] remaining = new int[mCount];
+            for (int id = 0; id < mCount; ++id) {
+                remaining[id] = id;
+            }
+
+            int remainingCount = mCount;
+            int rank = 0;
+            while (remainingCount > 0) {
+                PathQueryTask.getDefaultPool().invoke(
+                    new RoundTask(remaining, false, 0, remainingCount));
+
+                final int[] round = selectRound(remaining, remainingCount);
+                PathQueryTask.getDefaultPool().invoke(new RoundTask(round, true, 0, round.length));
+                for (int id : round) {
+                    contractNode(id, rank++);
+                }
+
+                int kept = 0;
+                for (int i = 0; i < remainingCount; ++i) {
+                    if (!mContracted[remaining[i]]) {
+                        remaining[kept++] = remaining[i];
+                    }
+                }
+                remainingCount = kept;
+            }
+        }
+
+        /**
+         * Selects the nodes whose priority is lower than that of all their remaining neighbors,
+         * with ties broken by a hash of the ID. Most nodes of a grid start with equal priorities,
+         * so breaking ties by the ID itself would only select a few nodes in each round.
+         */
+        private int[] selectRound(int[] remaining, int remainingCount) {
+            final int[] round = new int[remainingCount];
+            int count = 0;
+            for (int i = 0; i < remainingCount; ++i) {
+                final int id = remaining[i];
+                final int[] edges = mEdges[id];
+                boolean lowest = true;
+                for (int e = 0; e < mEdgeCounts[id] && lowest; ++e) {
+                    final int neighbor = edges[3 * e];
+                    lowest = mPriorities[id] < mPriorities[neighbor] ||
+                             (mPriorities[id] == mPriorities[neighbor] &&
+                              hash(id) < hash(neighbor));
+                }
+                if (lowest) {
+                    round[count++] = id;
+                    mInRound[id] = true;
+                }
+            }
+            return Arrays.copyOf(round, count);
+        }
+
+        /**
+         * Removes a node from the remaining graph and adds its shortcuts. Its remaining edges
+         * become its upward edges.
+         */
+        private void contractNode(int id, int rank) {
+            mRanks[id] = rank;
+            mContracted[id] = true;
+            mInRound[id] = false;
+            final int[] edges = mEdges[id];
+            for (int e = 0; e < mEdgeCounts[id]; ++e) {
+                final int neighbor = edges[3 * e];
+                removeEdge(neighbor, id);
+                ++mContractedNeighbors[neighbor];
+                mLevels[neighbor] = Math.max(mLevels[neighbor], mLevels[id] + 1);
+                mChanged[neighbor] = true;
+            }
+
+            final int[] shortcuts = mShortcuts[id];
+            for (int i = 0; i < shortcuts.length; i += 3) {
+                addEdge(shortcuts[i], shortcuts[i + 1], shortcuts[i + 2], id);
+                addEdge(shortcuts[i + 1], shortcuts[i], shortcuts[i + 2], id);
+            }
+            mShortcuts[id] = null;
+            mEdges[id] = Arrays.copyOf(edges, 3 * mEdgeCounts[id]);
+        }
+
+        /**
+         * Adds an edge or lowers the cost of an existing edge between the same IDs.
+         */
+        private void addEdge(int from, int to, int cost, int middle) {
+            int[] edges = mEdges[from];
+            final int count = mEdgeCounts[from];
+            for (int e = 0; e < count; ++e) {
+                if (edges[3 * e] == to) {
+                    if (cost < edges[3 * e + 1]) {
+                        edges[3 * e + 1] = cost;
+                        edges[3 * e + 2] = middle;
+                    }
+                    return;
+                }
+            }
+
+            if (3 * count == edges.length) {
+                edges = Arrays.copyOf(edges, edges.length * 2);
+                mEdges[from] = edges;
+            }
+            edges[3 * count] = to;
+            edges[3 * count + 1] = cost;
+            edges[3 * count + 2] = middle;
+            mEdgeCounts[from] = count + 1;
+        }
+
+        private void removeEdge(int from, int to) {
+            final int[] edges = mEdges[from];
+            final int last = mEdgeCounts[from] - 1;
+            for (int e = 0; e <= last; ++e) {
+                if (edges[3 * e] == to) {
+                    System.arraycopy(edges, 3 * last, edges, 3 * e, 3);
+                    mEdgeCounts[from] = last;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Bounded Dijkstra search on the remaining graph. Each thread has its own.
+         */
+        private final class WitnessSearch {
+            private final int[] mDistances;
+            private final int[] mGenerations;
+            private int mGeneration = 0;
+
+            /** Generation in which each ID was made a target of the search. */
+            private final int[] mTargetGenerations;
+            private int mTargetCount;
+            private final OpenList mOpenList =
+                OpenListType.BinaryHeap.create(TieBreaking.LargerStartDistance);
+
+            WitnessSearch(int count) {
+                mDistances = new int[count];
+                mGenerations = new int[count];
+                mTargetGenerations = new int[count];
+            }
+
+            /**
+             * Finds the shortcuts needed if a node was contracted, avoiding the contracted nodes
+             * and the nodes of the current round.
+             *
+             * @return Triples of two neighbor IDs and the cost of the path between them.
+             */
+            int[] findShortcuts(int id, int limit) {
+                final int[] edges = mEdges[id];
+                final int count = mEdgeCounts[id];
+                int[] shortcuts = new int[0];
+                int shortcutCount = 0;
+                for (int i = 0; i < count - 1; ++i) {
+                    final int from = edges[3 * i];
+                    final int fromCost = edges[3 * i + 1];
+                    ++mGeneration;
+                    int maxCost = 0;
+                    for (int j = i + 1; j < count; ++j) {
+                        maxCost = Math.max(maxCost, fromCost + edges[3 * j + 1]);
+                        mTargetGenerations[edges[3 * j]] = mGeneration;
+                    }
+                    mTargetCount = count - i - 1;
+                    search(from, id, maxCost, limit);
+                    for (int j = i + 1; j < count; ++j) {
+                        final int to = edges[3 * j];
+                        final int cost = fromCost + edges[3 * j + 1];
+                        if (getDistance(to) > cost) {
+                            if (3 * shortcutCount == shortcuts.length) {
+                                shortcuts = Arrays.copyOf(
+                                    shortcuts, Math.max(12, 2 * shortcuts.length));
+                            }
+                            shortcuts[3 * shortcutCount] = from;
+                            shortcuts[3 * shortcutCount + 1] = to;
+                            shortcuts[3 * shortcutCount + 2] = cost;
+                            ++shortcutCount;
+                        }
+                    }
+                }
+                return Arrays.copyOf(shortcuts, 3 * shortcutCount);
+            }
+
+            private int getDistance(int id) {
+                return mGenerations[id] == mGeneration ? mDistances[id] : Integer.MAX_VALUE;
+            }
+
+            /**
+             * Searches from a source until the targets are settled, the distance exceeds the
+             * maximum cost or the settle limit is reached.
+             */
+            private void search(int source, int ignored, int maxCost, int limit) {
+                mOpenList.clear();
+                mDistances[source] = 0;
+                mGenerations[source] = mGeneration;
+                mOpenList.add(source, 0, 0);
+                int settled = 0;
+                while (!mOpenList.isEmpty() && settled < limit) {
+                    final int distance = mOpenList.peekStartDistance();
+                    if (distance > maxCost) {
+                        break;
+                    }
+
+                    final int id = mOpenList.poll();
+                    ++settled;
+                    if (mTargetGenerations[id] == mGeneration && --mTargetCount == 0) {
+                        break;
+                    }
+
+                    final int[] edges = mEdges[id];
+                    for (int e = 0; e < mEdgeCounts[id]; ++e) {
+                        final int neighbor = edges[3 * e];
+                        if (neighbor == ignored || mInRound[neighbor]) {
+                            continue;
+                        }
+
+                        final int neighborDistance = distance + edges[3 * e + 1];
+                        if (neighborDistance < getDistance(neighbor)) {
+                            final boolean queued = mGenerations[neighbor] == mGeneration &&
+                                                   mOpenList.contains(neighbor);
+                            mDistances[neighbor] = neighborDistance;
+                            mGenerations[neighbor] = mGeneration;
+                            if (queued) {
+                                mOpenList.decreaseKey(neighbor, neighborDistance,
+                                                      neighborDistance);
+                            } else {
+                                mOpenList.add(neighbor, neighborDistance, neighborDistance);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
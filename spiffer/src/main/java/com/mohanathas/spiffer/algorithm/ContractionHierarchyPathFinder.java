@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.DynamicArray;
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+
+/**
+ * PathFinder implementation of contraction hierarchy queries. A Dijkstra search runs upward from
+ * both the start and the goal, always advancing the side with the smaller distance, until neither
+ * side can improve on the best path through a node reached from both. Nodes that are reached
+ * more cheaply from above are stalled rather than expanded. The shortcuts of the path are then
+ * unpacked into neighboring points.
+ *
+ * The ContractionHierarchy is built by the first search after the graph has changed, which takes
+ * far longer than a search, so this is only worthwhile for many queries on an unchanging graph.
+ */
+public class ContractionHierarchyPathFinder implements PathFinder {
+    private final OpenListType mOpenListType;
+    private final TieBreaking mTieBreaking;
+
+    public ContractionHierarchyPathFinder() {
+        this(OpenListType.BinaryHeap);
+    }
+
+    public ContractionHierarchyPathFinder(OpenListType openListType) {
+        this(openListType, TieBreaking.LargerStartDistance);
+    }
+
+    public ContractionHierarchyPathFinder(OpenListType openListType, TieBreaking tieBreaking) {
+        mOpenListType = openListType;
+        mTieBreaking = tieBreaking;
+    }
+
+    @Override
+    public List<Point> findPath(Graph graph, Point startPoint, Point goalPoint) {
+        final int startNode = graph.getNode(startPoint);
+        final int goalNode = graph.getNode(goalPoint);
+        final ContractionHierarchy hierarchy = graph.getContractionHierarchy();
+        final SearchContext forward = graph.beginSearch();
+        final SearchContext backward = forward.beginBackwardSearch();
+        if (startNode == goalNode) {
+            return new DynamicArray<>();
+        } else if (hierarchy.getId(goalNode) == -1) {
+            return null;
+        }
+
+        final OpenList forwardList = forward.getOpenList(mOpenListType, mTieBreaking);
+        final OpenList backwardList = backward.getOpenList(mOpenListType, mTieBreaking);
+        final int startIndex = forward.visit(startNode);
+        forward.setStartDistance(startIndex, 0);
+        if (hierarchy.getId(startNode) != -1) {
+            forward.setQueued(startIndex);
+            forwardList.add(startIndex, 0, 0);
+        } else {
+            // A start that is not walkable is left by moving to one of its neighbors.
+            forward.setProcessed(startIndex);
+            for (int mask = graph.getSuccessors(startNode); mask != 0; mask &= mask - 1) {
+                final int neighbor = graph.getSuccessor(startNode, mask);
+                final int distance = graph.getStepCost(startNode, neighbor);
+                final int index = forward.visit(neighbor);
+                forward.setParent(index, startIndex);
+                forward.setStartDistance(index, distance);
+                forward.setQueued(index);
+                forwardList.add(index, distance, distance);
+            }
+        }
+
+        final int goalIndex = backward.visit(goalNode);
+        backward.setStartDistance(goalIndex, 0);
+        backward.setQueued(goalIndex);
+        backwardList.add(goalIndex, 0, 0);
+
+        int bestCost = Integer.MAX_VALUE;
+        int meetingNode = Graph.NO_NODE;
+        while (true) {
+            final int forwardKey =
+                forwardList.isEmpty() ? Integer.MAX_VALUE : forwardList.peekStartDistance();
+            final int backwardKey =
+                backwardList.isEmpty() ? Integer.MAX_VALUE : backwardList.peekStartDistance();
+            if (Math.min(forwardKey, backwardKey) >= bestCost) {
+                break;
+            }
+
+            final boolean isForward = forwardKey <= backwardKey;
+            final SearchContext context = isForward ? forward : backward;
+            final SearchContext other = isForward ? backward : forward;
+            final int node = settle(hierarchy, context, isForward ? forwardList : backwardList);
+            final int otherIndex = other.find(node);
+            if (otherIndex != SearchContext.NO_INDEX) {
+                final int cost = context.getStartDistance(context.find(node)) +
+                                 other.getStartDistance(otherIndex);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    meetingNode = node;
+                }
+            }
+            context.checkCancellation();
+        }
+
+        if (meetingNode == Graph.NO_NODE) {
+            return null;
+        }
+
+        return unpackPath(graph, hierarchy, forward, backward, meetingNode);
+    }
+
+    /**
+     * Settles the first node in the open list of one side and relaxes its upward edges.
+     *
+     * @return The settled node.
+     */
+    private static int settle(ContractionHierarchy hierarchy, SearchContext context,
+                              OpenList openList) {
+        final int startDistance = openList.peekStartDistance();
+        final int index = openList.poll();
+        final int node = context.getNode(index);
+        context.setProcessed(index);
+
+        final int id = hierarchy.getId(node);
+        if (isStalled(hierarchy, context, id, startDistance)) {
+            return node;
+        }
+
+        for (int edge = hierarchy.getUpBegin(id); edge < hierarchy.getUpEnd(id); ++edge) {
+            final int neighbor = hierarchy.getNode(hierarchy.getUpTarget(edge));
+            final int distance = startDistance + hierarchy.getUpCost(edge);
+            final int neighborIndex = context.visit(neighbor);
+            if (context.isProcessed(neighborIndex) ||
+                context.getStartDistance(neighborIndex) <= distance) {
+                continue;
+            }
+
+            context.setParent(neighborIndex, index);
+            context.setStartDistance(neighborIndex, distance);
+            if (context.isQueued(neighborIndex)) {
+                openList.decreaseKey(neighborIndex, distance, distance);
+            } else {
+                openList.add(neighborIndex, distance, distance);
+                context.setQueued(neighborIndex);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Checks if a node can be reached more cheaply through a higher ranked node already reached
+     * by the same side. The search need not continue from such a node, as the path to it cannot
+     * be part of a shortest path. The graph is undirected, so the edges from the higher ranked
+     * nodes are the upward edges of the node.
+     */
+    private static boolean isStalled(ContractionHierarchy hierarchy, SearchContext context, int id,
+                                     int startDistance) {
+        for (int edge = hierarchy.getUpBegin(id); edge < hierarchy.getUpEnd(id); ++edge) {
+            final int index = context.find(hierarchy.getNode(hierarchy.getUpTarget(edge)));
+            if (index != SearchContext.NO_INDEX &&
+                context.getStartDistance(index) + hierarchy.getUpCost(edge) < startDistance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Joins the paths of both sides at the meeting node and unpacks their shortcuts.
+     */
+    private static List<Point> unpackPath(Graph graph, ContractionHierarchy hierarchy,
+                                          SearchContext forward, SearchContext backward,
+                                          int meetingNode) {
+        final DynamicArray<Integer> nodes = new DynamicArray<>();
+        for (int index = forward.find(meetingNode); index != SearchContext.NO_INDEX;
+             index = forward.getParent(index)) {
+            nodes.add(forward.getNode(index));
+        }
+        nodes.reverse();
+        for (int index = backward.getParent(backward.find(meetingNode));
+             index != SearchContext.NO_INDEX; index = backward.getParent(index)) {
+            nodes.add(backward.getNode(index));
+        }
+
+        final DynamicArray<Point> path = new DynamicArray<>();
+        for (int i = 1; i < nodes.size(); ++i) {
+            final int fromId = hierarchy.getId(nodes.get(i - 1));
+            if (fromId == -1) {
+                path.add(graph.getPoint(nodes.get(i)));
+            } else {
+                hierarchy.unpack(fromId, hierarchy.getId(nodes.get(i)), path);
+            }
+        }
+        return path;
+    }
+}
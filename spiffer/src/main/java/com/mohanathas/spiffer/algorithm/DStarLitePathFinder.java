@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.DynamicArray;
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+
+/**
+ * PathFinder implementation of D* Lite. The search state is kept by the graph, so a query with
+ * the same goal as the previous one only repairs the part of the search affected by the walls
+ * changed since then and by the movement of the start. This makes replanning after small changes
+ * far cheaper than a new search, while the first search costs about as much as A*.
+ *
+ * Queries on the same graph run one at a time. The heuristic is only used with the distances
+ * between points, so Landmarks behaves like Octile.
+ */
+public class DStarLitePathFinder implements PathFinder {
+    private final Heuristic mHeuristic;
+
+    public DStarLitePathFinder(Heuristic heuristic) {
+        mHeuristic = heuristic;
+    }
+
+    @Override
+    public List<Point> findPath(Graph graph, Point startPoint, Point goalPoint) {
+        final int startNode = graph.getNode(startPoint);
+        final int goalNode = graph.getNode(goalPoint);
+        final SearchContext context = graph.beginSearch();
+        if (startNode == goalNode) {
+            return new DynamicArray<>();
+        } else if (!graph.isWalkable(goalNode)) {
+            return null;
+        }
+
+        return graph.getDStarLiteSearch().findPath(mHeuristic, startNode, goalNode, context);
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.DynamicArray;
+import com.mohanathas.spiffer.util.Point;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * State of a D* Lite search (by Koenig and Likhachev) that is kept by a Graph between queries.
+ * The search runs backward from the goal, so g is the distance of a node to the goal as of its
+ * last expansion and rhs the distance computed from the g values of its successors. Nodes whose
+ * g and rhs differ are inconsistent and queued by a key that is ordered by their distance
+ * through the start. When walls change, only the nodes around the changes become inconsistent,
+ * and the next query expands those that affect the path from the start.
+ *
+ * The heuristic keys stay valid when the start moves by adding the distance moved to mKm instead
+ * of recomputing the keys of the queued nodes. A new goal or heuristic starts a new search, as do
+ * changes to more than an eighth of the nodes, which are cheaper to search from scratch.
+ *
+ * Like in SearchContext, the nodes touched by the search are given consecutive local indices that
+ * the state is stored by, and the mapping is kept in pages that are allocated when first touched
+ * and reset lazily by starting a new generation. The state thus only takes memory in proportion
+ * to the part of the graph that the search has touched, and a new search does not clear it.
+ */
+final class DStarLiteSearch {
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private static final int PAGE_SHIFT = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int NO_INDEX = -1;
+
+    /** Number of nodes divided by the number of changes at which a new search is started. */
+    private static final int RESTART_CHANGE_RATIO = 8;
+
+    private final Graph mGraph;
+    private final int mNodeCount;
+    private final int[][] mPages;
+    private final int[] mPageGenerations;
+    private int mGeneration = 0;
+
+    /** Number of nodes touched by the current search. */
+    private int mCount = 0;
+
+    /** Node, g and rhs value of each local index. */
+    private int[] mNodes = new int[64];
+    private int[] mG = new int[64];
+    private int[] mRhs = new int[64];
+
+    /** Binary heap of the local indices of the inconsistent nodes ordered by their keys. */
+    private int[] mHeap = new int[64];
+    private long[] mHeapKeys = new long[64];
+
+    /** Position of each local index in the heap or -1 if it is not queued. */
+    private int[] mHeapPositions = new int[64];
+    private int mHeapSize = 0;
+
+    private Heuristic mHeuristic = null;
+    private int mGoal = Graph.NO_NODE;
+    private int mStart = Graph.NO_NODE;
+    private boolean mStartWalkable = true;
+    private int mKm = 0;
+
+    /** Nodes whose walkable state has changed since the last query. */
+    private int[] mChanges = new int[64];
+    private int mChangeCount = 0;
+    private final int mMaxChangeCount;
+    private boolean mChangesOverflowed = false;
+
+    DStarLiteSearch(Graph graph) {
+        mGraph = graph;
+        mNodeCount = graph.getNodeCount();
+        final int pageCount = (mNodeCount + PAGE_SIZE - 1) >>> PAGE_SHIFT;
+        mPages = new int[pageCount][];
+        mPageGenerations = new int[pageCount];
+        mMaxChangeCount = mNodeCount / RESTART_CHANGE_RATIO;
+    }
+
+    /**
+     * Records a change to the walkable state of a node for the next query.
+     */
+    synchronized void markChanged(int node) {
+        if (mChangeCount == mMaxChangeCount) {
+            mChangesOverflowed = true;
+            return;
+        }
+
+        if (mChangeCount == mChanges.length) {
+            mChanges = Arrays.copyOf(mChanges, Math.min(2 * mChanges.length, mMaxChangeCount));
+        }
+        mChanges[mChangeCount++] = node;
+    }
+
+    /**
+     * @return Number of nodes that the current search has stored state for.
+     */
+    synchronized int getTouchedCount() {
+        return mCount;
+    }
+
+    /**
+     * Finds a path by continuing the last search if it had the same goal and heuristic.
+     *
+     * @param context Search context that records the nodes expanded by this query.
+     * @return List of Points if a path was found or <tt>null</tt> otherwise.
+     */
+    synchronized List<Point> findPath(Heuristic heuristic, int startNode, int goalNode,
+                                      SearchContext context) {
+        if (goalNode != mGoal || heuristic != mHeuristic || mChangesOverflowed) {
+            initialize(heuristic, startNode, goalNode);
+        } else {
+            // The walkable state of the start may have changed even if it has not moved.
+            final int previousStart = mStart;
+            setStart(startNode);
+            if (startNode != previousStart) {
+                mKm += getHeuristicCost(previousStart, startNode);
+                updateVertex(visit(previousStart));
+                updateVertex(visit(startNode));
+            }
+
+            // A change affects the edges of the node and those between its neighbors.
+            for (int i = 0; i < mChangeCount; ++i) {
+                final int node = mChanges[i];
+                updateVertex(visit(node));
+                for (int direction = 0; direction < 8; ++direction) {
+                    updateVertex(visit(mGraph.getNeighbor(node, Graph.DIRECTION_X[direction],
+                                                          Graph.DIRECTION_Y[direction])));
+                }
+            }
+            mChangeCount = 0;
+        }
+
+        computeShortestPath(context);
+        if (getG(mStart) == INFINITY) {
+            return null;
+        }
+
+        final DynamicArray<Point> path = new DynamicArray<>();
+        for (int node = mStart; node != mGoal;) {
+            int next = Graph.NO_NODE;
+            int nextCost = INFINITY;
+            for (int mask = mGraph.getSuccessors(node); mask != 0; mask &= mask - 1) {
+                final int neighbor = mGraph.getSuccessor(node, mask);
+                final int g = getG(neighbor);
+                if (g != INFINITY && g + mGraph.getStepCost(node, neighbor) < nextCost) {
+                    next = neighbor;
+                    nextCost = g + mGraph.getStepCost(node, neighbor);
+                }
+            }
+            node = next;
+            path.add(mGraph.getPoint(node));
+        }
+        return path;
+    }
+
+    /**
+     * Starts a new search in which only the goal is inconsistent.
+     */
+    private void initialize(Heuristic heuristic, int startNode, int goalNode) {
+        ++mGeneration;
+        if (mGeneration == 0) {
+            // The counter wrapped around so old stamps could match again.
+            Arrays.fill(mPageGenerations, 0);
+            mGeneration = 1;
+        }
+        mCount = 0;
+        mHeapSize = 0;
+        mHeuristic = heuristic;
+        mGoal = goalNode;
+        setStart(startNode);
+        mKm = 0;
+        mChangeCount = 0;
+        mChangesOverflowed = false;
+        final int goalIndex = visit(goalNode);
+        mRhs[goalIndex] = 0;
+        insert(goalIndex, calculateKey(goalIndex));
+    }
+
+    private void setStart(int startNode) {
+        mStart = startNode;
+        mStartWalkable = mGraph.isWalkable(startNode);
+    }
+
+    /**
+     * Expands inconsistent nodes until the start is consistent and no queued node could lie on a
+     * shorter path to it.
+     */
+    private void computeShortestPath(SearchContext context) {
+        final int startIndex = visit(mStart);
+        while (mHeapSize > 0 && (mHeapKeys[0] < calculateKey(startIndex) ||
+                                 mRhs[startIndex] != mG[startIndex])) {
+            final int index = mHeap[0];
+            final long key = calculateKey(index);
+            if (mHeapKeys[0] < key) {
+                // The key is outdated as the start has moved since the node was queued.
+                update(index, key);
+                continue;
+            }
+
+            final int node = mNodes[index];
+            context.setProcessed(context.visit(node));
+            if (mG[index] > mRhs[index]) {
+                mG[index] = mRhs[index];
+                remove(index);
+            } else {
+                mG[index] = INFINITY;
+                updateVertex(index);
+            }
+            updatePredecessors(node);
+            context.checkCancellation();
+        }
+    }
+
+    /**
+     * Recomputes the rhs values of the nodes that have an edge to a node whose g value changed.
+     */
+    private void updatePredecessors(int node) {
+        if (!mGraph.isWalkable(node)) {
+            return;
+        }
+
+        // The edges between walkable nodes go both ways.
+        for (int mask = mGraph.getSuccessors(node); mask != 0; mask &= mask - 1) {
+            updateVertex(visit(mGraph.getSuccessor(node, mask)));
+        }
+
+        // A start that is not walkable still has edges to its neighbors.
+        if (!mStartWalkable && Math.abs(mGraph.getX(node) - mGraph.getX(mStart)) <= 1 &&
+            Math.abs(mGraph.getY(node) - mGraph.getY(mStart)) <= 1) {
+            updateVertex(visit(mStart));
+        }
+    }
+
+    /**
+     * Recomputes the rhs value of a node and queues it if it is inconsistent.
+     */
+    private void updateVertex(int index) {
+        if (mNodes[index] != mGoal) {
+            mRhs[index] = calculateRhs(mNodes[index]);
+        }
+
+        final boolean queued = mHeapPositions[index] != -1;
+        if (mG[index] != mRhs[index]) {
+            if (queued) {
+                update(index, calculateKey(index));
+            } else {
+                insert(index, calculateKey(index));
+            }
+        } else if (queued) {
+            remove(index);
+        }
+    }
+
+    private int calculateRhs(int node) {
+        if (node != mStart && !mGraph.isWalkable(node)) {
+            return INFINITY;
+        }
+
+        int rhs = INFINITY;
+        for (int mask = mGraph.getSuccessors(node); mask != 0; mask &= mask - 1) {
+            final int neighbor = mGraph.getSuccessor(node, mask);
+            final int g = getG(neighbor);
+            if (g != INFINITY) {
+                rhs = Math.min(rhs, g + mGraph.getStepCost(node, neighbor));
+            }
+        }
+        return rhs;
+    }
+
+    /**
+     * @return Distance through the start in the high and distance to the goal in the low bits.
+     */
+    private long calculateKey(int index) {
+        final int distance = Math.min(mG[index], mRhs[index]);
+        if (distance == INFINITY) {
+            return Long.MAX_VALUE;
+        }
+
+        final long startDistance =
+            (long)distance + getHeuristicCost(mStart, mNodes[index]) + mKm;
+        return startDistance << 32 | distance;
+    }
+
+    /**
+     * D* Lite needs a consistent heuristic, so inadmissible ones such as Manhattan are capped at
+     * the octile distance.
+     */
+    private int getHeuristicCost(int node, int targetNode) {
+        final int dx = mGraph.getX(node) - mGraph.getX(targetNode);
+        final int dy = mGraph.getY(node) - mGraph.getY(targetNode);
+        return Math.min(mHeuristic.cost(dx, dy), Graph.getOctileCost(dx, dy));
+    }
+
+    /**
+     * @return The g value of a node, which is infinite if the search has not touched it.
+     */
+    private int getG(int node) {
+        final int pageIndex = node >>> PAGE_SHIFT;
+        if (mPageGenerations[pageIndex] != mGeneration) {
+            return INFINITY;
+        }
+
+        final int index = mPages[pageIndex][node & PAGE_MASK];
+        return index != NO_INDEX ? mG[index] : INFINITY;
+    }
+
+    /**
+     * Gets the local index of a node, initializing its state if the search has not touched it.
+     */
+    private int visit(int node) {
+        final int pageIndex = node >>> PAGE_SHIFT;
+        int[] page = mPages[pageIndex];
+        if (mPageGenerations[pageIndex] != mGeneration) {
+            if (page == null) {
+                page = new int[PAGE_SIZE];
+                mPages[pageIndex] = page;
+            }
+
+            Arrays.fill(page, NO_INDEX);
+            mPageGenerations[pageIndex] = mGeneration;
+        }
+
+        int index = page[node & PAGE_MASK];
+        if (index == NO_INDEX) {
+            index = mCount++;
+            if (index == mNodes.length) {
+                grow();
+            }
+
+            mNodes[index] = node;
+            mG[index] = INFINITY;
+            mRhs[index] = INFINITY;
+            mHeapPositions[index] = -1;
+            page[node & PAGE_MASK] = index;
+        }
+        return index;
+    }
+
+    private void grow() {
+        // The heap never holds more than the touched nodes.
+        final int capacity = mNodes.length * 2;
+        mNodes = Arrays.copyOf(mNodes, capacity);
+        mG = Arrays.copyOf(mG, capacity);
+        mRhs = Arrays.copyOf(mRhs, capacity);
+        mHeap = Arrays.copyOf(mHeap, capacity);
+        mHeapKeys = Arrays.copyOf(mHeapKeys, capacity);
+        mHeapPositions = Arrays.copyOf(mHeapPositions, capacity);
+    }
+
+    private void insert(int index, long key) {
+        final int position = mHeapSize++;
+        mHeap[position] = index;
+        mHeapKeys[position] = key;
+        mHeapPositions[index] = position;
+        siftUp(position);
+    }
+
+    private void update(int index, long key) {
+        final int position = mHeapPositions[index];
+        final long previousKey = mHeapKeys[position];
+        mHeapKeys[position] = key;
+        if (key < previousKey) {
+            siftUp(position);
+        } else {
+            siftDown(position);
+        }
+    }
+
+    private void remove(int index) {
+        final int position = mHeapPositions[index];
+        mHeapPositions[index] = -1;
+        if (--mHeapSize == position) {
+            return;
+        }
+
+        final long previousKey = mHeapKeys[position];
+        move(mHeapSize, position);
+        if (mHeapKeys[position] < previousKey) {
+            siftUp(position);
+        } else {
+            siftDown(position);
+        }
+    }
+
+    private void siftUp(int position) {
+        final int index = mHeap[position];
+        final long key = mHeapKeys[position];
+        while (position > 0) {
+            final int parent = (position - 1) >>> 1;
+            if (mHeapKeys[parent] <= key) {
+                break;
+            }
+            move(parent, position);
+            position = parent;
+        }
+        mHeap[position] = index;
+        mHeapKeys[position] = key;
+        mHeapPositions[index] = position;
+    }
+
+    private void siftDown(int position) {
+        final int index = mHeap[position];
+        final long key = mHeapKeys[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= mHeapSize) {
+                break;
+            }
+            if (child + 1 < mHeapSize && mHeapKeys[child + 1] < mHeapKeys[child]) {
+                ++child;
+            }
+            if (key <= mHeapKeys[child]) {
+                break;
+            }
+            move(child, position);
+            position = child;
+        }
+        mHeap[position] = index;
+        mHeapKeys[position] = key;
+        mHeapPositions[index] = position;
+    }
+
+    private void move(int from, int to) {
+        mHeap[to] = mHeap[from];
+        mHeapKeys[to] = mHeapKeys[from];
+        mHeapPositions[mHeap[to]] = to;
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * D-ary min heap of node indices ordered by their cost. This is a primitive counterpart to
+ * BinaryMinHeap that stores the nodes and their keys in parallel arrays to avoid boxing. A higher
+ * arity gives a shallower heap whose children are adjacent in memory, at the expense of more
+ * comparisons when sifting down.
+ *
+ * Ties between nodes with equal costs are broken according to a TieBreaking policy. The cost and
+ * the secondary key of the policy are packed into a single long key so that ordering two nodes
+ * takes a single comparison.
+ *
+ * The heap position of every node is tracked so that decreaseKey() and remove() do not need to
+ * search for the node. The arrays are kept when the heap is cleared so that a heap reused across
+ * searches stops allocating once it has grown to the size needed.
+ */
+final class DaryHeapOpenList implements OpenList {
+    /** Base 2 logarithm of the arity. */
+    private final int mArityShift;
+
+    private final TieBreaking mTieBreaking;
+    private int mSequence = 0;
+
+    private int[] mNodes = new int[8];
+    private long[] mKeys = new long[8];
+    private int mSize = 0;
+
+    /** Heap position of each node. Only valid for nodes that are currently in the heap. */
+    private int[] mSlots = new int[8];
+
+    /** Start distance of each node. Only valid for nodes that are currently in the heap. */
+    private int[] mStartDistances = new int[8];
+
+    /**
+     * @param arity Number of children per heap element. Must be a power of two.
+     * @param tieBreaking Policy for ordering nodes with equal costs.
+     */
+    public DaryHeapOpenList(int arity, TieBreaking tieBreaking) {
+        if (arity < 2 || Integer.bitCount(arity) != 1) {
+            throw new IllegalArgumentException("Arity must be a power of two");
+        }
+
+        mArityShift = Integer.numberOfTrailingZeros(arity);
+        mTieBreaking = tieBreaking;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(mNodes, mSize));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Removes all nodes from this heap.
+     */
+    @Override
+    public void clear() {
+        mSize = 0;
+        mSequence = 0;
+    }
+
+    /**
+     * Checks if the specified node is in this heap.
+     *
+     * @param node Node to check.
+     * @return True if the node is in this heap.
+     */
+    @Override
+    public boolean contains(int node) {
+        if (node < 0 || node >= mSlots.length) {
+            return false;
+        }
+
+        final int slot = mSlots[node];
+        return slot < mSize && mNodes[slot] == node;
+    }
+
+    /**
+     * Inserts the specified node into this heap.
+     *
+     * @param node Node to insert.
+     * @param cost Cost of the node.
+     * @param startDistance Distance to the start node from the node.
+     */
+    @Override
+    public void add(int node, int cost, int startDistance) {
+        ensureCapacity();
+        ensureSlotCapacity(node);
+
+        ++mSize;
+        mStartDistances[node] = startDistance;
+        siftUp(mSize - 1, node, toKey(cost, startDistance));
+    }
+
+    /**
+     * Lowers the cost of a node in this heap and reorders it accordingly.
+     *
+     * @param node Previously added node that is to be reordered.
+     * @param cost New cost of the node. This must not be greater than the previous cost.
+     * @param startDistance New distance to the start node from the node.
+     */
+    @Override
+    public void decreaseKey(int node, int cost, int startDistance) {
+        if (!contains(node)) {
+            throw new NoSuchElementException();
+        }
+
+        mStartDistances[node] = startDistance;
+        siftUp(mSlots[node], node, toKey(cost, startDistance));
+    }
+
+    /**
+     * Removes the specified node from this heap.
+     *
+     * @param node Node to remove.
+     * @return True if the node was in this heap.
+     */
+    public boolean remove(int node) {
+        if (!contains(node)) {
+            return false;
+        }
+
+        final int slot = mSlots[node];
+        --mSize;
+        if (slot < mSize) {
+            final int lastNode = mNodes[mSize];
+            final long lastKey = mKeys[mSize];
+            if (slot > 0 && mKeys[parent(slot)] > lastKey) {
+                siftUp(slot, lastNode, lastKey);
+            } else {
+                siftDown(slot, lastNode, lastKey);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves, but does not remove, the node with the smallest cost.
+     *
+     * @return Topmost heap node, or NO_NODE if this heap is empty.
+     */
+    @Override
+    public int peek() {
+        return isEmpty() ? Graph.NO_NODE : mNodes[0];
+    }
+
+    /**
+     * Retrieves the start distance of the node with the smallest cost.
+     *
+     * @return Start distance of the topmost heap node. Undefined if this heap is empty.
+     */
+    @Override
+    public int peekStartDistance() {
+        return mStartDistances[mNodes[0]];
+    }
+
+    /**
+     * Retrieves and removes the node with the smallest cost.
+     *
+     * @return Topmost heap node, or NO_NODE if this heap is empty.
+     */
+    @Override
+    public int poll() {
+        final int node = peek();
+        if (node != Graph.NO_NODE) {
+            --mSize;
+            if (mSize > 0) {
+                siftDown(0, mNodes[mSize], mKeys[mSize]);
+            }
+        }
+        return node;
+    }
+
+    private long toKey(int cost, int startDistance) {
+        return TieBreaking.toKey(cost, mTieBreaking.secondaryKey(startDistance, mSequence++));
+    }
+
+    /**
+     * Moves the hole at position i towards the root until the given node can be placed in it.
+     */
+    private void siftUp(int i, int node, long key) {
+        while (i > 0) {
+            final int parent = parent(i);
+            if (mKeys[parent] <= key) {
+                break;
+            }
+            move(parent, i);
+            i = parent;
+        }
+        place(i, node, key);
+    }
+
+    /**
+     * Moves the hole at position i towards the leaves until the given node can be placed in it.
+     */
+    private void siftDown(int i, int node, long key) {
+        while (true) {
+            final int firstChild = (i << mArityShift) + 1;
+            if (firstChild >= mSize) {
+                break;
+            }
+
+            int child = firstChild;
+            final int lastChild = Math.min(firstChild + (1 << mArityShift), mSize);
+            for (int j = firstChild + 1; j < lastChild; ++j) {
+                if (mKeys[j] < mKeys[child]) {
+                    child = j;
+                }
+            }
+            if (mKeys[child] >= key) {
+                break;
+            }
+            move(child, i);
+            i = child;
+        }
+        place(i, node, key);
+    }
+
+    private int parent(int i) {
+        return (i - 1) >> mArityShift;
+    }
+
+    private void move(int from, int to) {
+        mNodes[to] = mNodes[from];
+        mKeys[to] = mKeys[from];
+        mSlots[mNodes[to]] = to;
+    }
+
+    private void place(int i, int node, long key) {
+        mNodes[i] = node;
+        mKeys[i] = key;
+        mSlots[node] = i;
+    }
+
+    private void ensureSlotCapacity(int node) {
+        if (node < mSlots.length) return;
+
+        final int capacity = Math.max(node + 1, mSlots.length * 2);
+        mSlots = Arrays.copyOf(mSlots, capacity);
+        mStartDistances = Arrays.copyOf(mStartDistances, capacity);
+    }
+
+    private void ensureCapacity() {
+        if (mSize < mNodes.length) return;
+
+        mNodes = Arrays.copyOf(mNodes, mNodes.length * 2);
+        mKeys = Arrays.copyOf(mKeys, mKeys.length * 2);
+    }
+}
@@ -16,4 +16,8 @@ public class DijkstraPathFinder extends AStarPathFinder {
     public DijkstraPathFinder() {
         super(Heuristic.Zero);
     }
+
+    public DijkstraPathFinder(OpenListType openListType) {
+        super(Heuristic.Zero, openListType);
+    }
 }
@@ -8,56 +8,344 @@
 
 package com.mohanathas.spiffer.algorithm;
 
-import com.mohanathas.spiffer.util.DynamicArray;
 import com.mohanathas.spiffer.util.Point;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Container of Nodes for every combination of X and Y within the bounds of the
- * graph.
+ * Grid of nodes for every combination of X and Y within the bounds of the graph.
+ *
+ * The graph only stores the walkable state of the nodes. The state of a search is kept in a
+ * SearchContext owned by the searching thread, so multiple threads may search the same graph at
+ * once as long as it is not modified meanwhile.
+ *
+ * The state of the nodes is stored in flat arrays indexed by <tt>(y + 1) * stride + (x + 1)</tt>
+ * where <tt>stride = width + 2</tt>. Throughout the package, a node is identified by its index in
+ * these arrays. The grid is surrounded by a one cell border of unwalkable sentinel nodes, so the
+ * neighbors of any node within the bounds can be accessed without bounds checks.
  */
 public final class Graph {
-    private Node[][] mGrid = new Node[1][1];
-    private boolean mDirty = false;
+    /** Index returned for positions outside the bounds of the graph. */
+    static final int NO_NODE = -1;
+
+    /** Direction to each of the 8 neighbors in the order enumerated by findNodeNeighbors. */
+    static final int[] DIRECTION_X = {-1, 0, 1, -1, 1, -1, 0, 1};
+    static final int[] DIRECTION_Y = {-1, -1, -1, 0, 0, 1, 1, 1};
+
+    /**
+     * Fixed-point costs of straight and diagonal moves. 577 / 408 is a convergent of the square
+     * root of 2 that is slightly larger than it, so the costs can be compared exactly without
+     * making the Euclidean heuristic inadmissible. A path may contain up to 3.7 million diagonal
+     * moves before its cost overflows.
+     */
+    static final int STRAIGHT_COST = 408;
+    static final int DIAGONAL_COST = 577;
+
+    private int mWidth = 0;
+    private int mHeight = 0;
+    private int mStride = 2;
+    private boolean[] mWalkable = new boolean[0];
+
+    /** Index offset to each of the 8 neighbors in the order of DIRECTION_X and DIRECTION_Y. */
+    private final int[] mNeighborOffsets = new int[8];
+
+    /**
+     * Legal successor directions of each node. Bit i is set if the neighbor in direction i is
+     * walkable and, for diagonal directions, at least one of the two shared neighbors is walkable.
+     * The masks are kept up to date by setWalkable and are always zero for the sentinel nodes.
+     */
+    private byte[] mSuccessors = new byte[0];
+
+    /** Walkable state packed into bits for scanning straight lines. */
+    private BitGrid mBits = new BitGrid(0, 0);
+
+    /** Search context of each thread that has searched this graph. */
+    private final ThreadLocal<SearchContext> mSearchContexts = new ThreadLocal<>();
+
+    /** Incremented when the node indices change so that stale search contexts are replaced. */
+    private int mLayoutVersion = 0;
+
+    /** Incremented when the walkable state changes so that derived data is rebuilt. */
+    private int mVersion = 0;
+
+    /** Jump table built by the last call to getJumpTable or null. */
+    private volatile JumpTable mJumpTable = null;
+
+    /** Subgoal graph built by the last call to getSubgoalGraph or null. */
+    private volatile SubgoalGraph mSubgoalGraph = null;
+
+    /** Contraction hierarchy built by the last call to getContractionHierarchy or null. */
+    private volatile ContractionHierarchy mContractionHierarchy = null;
+
+    /** Landmark distances built by the last call to getLandmarkTable or null. */
+    private volatile LandmarkTable mLandmarkTable = null;
+
+    /** HPA* abstraction built by the last call to getClusterGraph or null. */
+    private ClusterGraph mClusterGraph = null;
+
+    /** D* Lite state kept between queries by DStarLitePathFinder or null. */
+    private DStarLiteSearch mDStarLiteSearch = null;
 
     public Graph(int width, int height) {
         resize(width, height);
     }
 
     public int getHeight() {
-        return mGrid.length;
+        return mHeight;
     }
 
     public int getWidth() {
-        return mGrid.length > 0 ? mGrid[0].length : 0;
+        return mWidth;
     }
 
     /**
-     * Gets the Node on the given position.
+     * Gets the node on the given position.
      *
-     * @return A Node object if the position is valid or |null| otherwise.
+     * @return Index of the node if the position is valid or NO_NODE otherwise.
      */
-    Node getNode(int x, int y) {
-        if (y >= 0 && y < mGrid.length && x >= 0 && x < mGrid[y].length) {
-            return mGrid[y][x];
+    int getNode(int x, int y) {
+        if (y >= 0 && y < mHeight && x >= 0 && x < mWidth) {
+            return (y + 1) * mStride + (x + 1);
         }
-        return null;
+        return NO_NODE;
     }
 
-    Node getNode(Point point) {
+    /**
+     * Gets the node at the given offset from a node within the bounds. The returned node may be
+     * a sentinel node, which is never walkable.
+     */
+    int getNeighbor(int node, int dx, int dy) {
+        return node + dy * mStride + dx;
+    }
+
+    int getNode(Point point) {
         return getNode(point.getX(), point.getY());
     }
 
+    int getX(int node) {
+        return node % mStride - 1;
+    }
+
+    int getY(int node) {
+        return node / mStride - 1;
+    }
+
+    Point getPoint(int node) {
+        return new Point(getX(node), getY(node));
+    }
+
+    boolean isWalkable(int node) {
+        return mWalkable[node];
+    }
+
+    /**
+     * @return True if the node is within the bounds of the graph, i.e. not a sentinel node.
+     */
+    boolean isInside(int node) {
+        final int x = getX(node);
+        final int y = getY(node);
+        return x >= 0 && x < mWidth && y >= 0 && y < mHeight;
+    }
+
+    /**
+     * @return Number of nodes, including the sentinel nodes.
+     */
+    int getNodeCount() {
+        return mWalkable.length;
+    }
+
+    BitGrid getBits() {
+        return mBits;
+    }
+
+    /**
+     * @return Counter that is incremented whenever the walkable state of the graph changes.
+     */
+    int getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * Gets the JPS+ jump table for the current state of the graph, building it if the graph has
+     * changed since it was last built.
+     */
+    JumpTable getJumpTable() {
+        JumpTable table = mJumpTable;
+        if (table == null || table.getVersion() != mVersion) {
+            synchronized (this) {
+                table = mJumpTable;
+                if (table == null || table.getVersion() != mVersion) {
+                    table = new JumpTable(this, mVersion);
+                    mJumpTable = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Gets the subgoal graph for the current state of the graph, building it if the graph has
+     * changed since it was last built.
+     */
+    SubgoalGraph getSubgoalGraph() {
+        SubgoalGraph subgoals = mSubgoalGraph;
+        if (subgoals == null || subgoals.getVersion() != mVersion) {
+            synchronized (this) {
+                subgoals = mSubgoalGraph;
+                if (subgoals == null || subgoals.getVersion() != mVersion) {
+                    subgoals = new SubgoalGraph(this, mVersion);
+                    mSubgoalGraph = subgoals;
+                }
+            }
+        }
+        return subgoals;
+    }
+
+    /**
+     * Gets the contraction hierarchy for the current state of the graph, building it if the graph
+     * has changed since it was last built.
+     */
+    ContractionHierarchy getContractionHierarchy() {
+        ContractionHierarchy hierarchy = mContractionHierarchy;
+        if (hierarchy == null || hierarchy.getVersion() != mVersion) {
+            synchronized (this) {
+                hierarchy = mContractionHierarchy;
+                if (hierarchy == null || hierarchy.getVersion() != mVersion) {
+                    hierarchy = new ContractionHierarchy(this, mVersion);
+                    mContractionHierarchy = hierarchy;
+                }
+            }
+        }
+        return hierarchy;
+    }
+
+    /**
+     * Gets the landmark distances for the current state of the graph, computing them if the graph
+     * has changed since they were last computed.
+     */
+    LandmarkTable getLandmarkTable() {
+        LandmarkTable table = mLandmarkTable;
+        if (table == null || table.getVersion() != mVersion) {
+            synchronized (this) {
+                table = mLandmarkTable;
+                if (table == null || table.getVersion() != mVersion) {
+                    table = new LandmarkTable(this, mVersion, LandmarkTable.DEFAULT_LANDMARK_COUNT);
+                    mLandmarkTable = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Gets the HPA* abstraction with the given cluster size for the current state of the graph.
+     * Only the clusters affected by the changes since the last call are rebuilt.
+     */
+    synchronized ClusterGraph getClusterGraph(int clusterSize) {
+        if (mClusterGraph == null || mClusterGraph.getClusterSize() != clusterSize) {
+            mClusterGraph = new ClusterGraph(this, clusterSize);
+        }
+        mClusterGraph.update();
+        return mClusterGraph;
+    }
+
+    /**
+     * Gets the D* Lite state of the graph, which is told about every change to the walkable state
+     * until the layout of the graph changes.
+     */
+    synchronized DStarLiteSearch getDStarLiteSearch() {
+        if (mDStarLiteSearch == null) {
+            mDStarLiteSearch = new DStarLiteSearch(this);
+        }
+        return mDStarLiteSearch;
+    }
+
+    /**
+     * Gets the bit for the given direction in the masks returned by getSuccessors.
+     */
+    static int getDirectionBit(int dx, int dy) {
+        return 1 << getDirection(dx, dy);
+    }
+
     /**
-     * Checks if a point was processed by a previous call to findPath.
+     * @return Index of the direction in DIRECTION_X and DIRECTION_Y.
+     */
+    static int getDirection(int dx, int dy) {
+        final int index = (dy + 1) * 3 + (dx + 1);
+        return index > 4 ? index - 1 : index;
+    }
+
+    /**
+     * @return Bit mask of the legal successor directions of a node within the bounds.
+     */
+    int getSuccessors(int node) {
+        return mSuccessors[node] & 0xFF;
+    }
+
+    /**
+     * Gets the node in the direction of the lowest bit set in a successor mask.
+     */
+    int getSuccessor(int node, int mask) {
+        return node + mNeighborOffsets[Integer.numberOfTrailingZeros(mask)];
+    }
+
+    /**
+     * Gets the search context of the calling thread and clears it for a new search.
+     */
+    SearchContext beginSearch() {
+        final SearchContext context = getSearchContext();
+        context.reset();
+        return context;
+    }
+
+    /**
+     * Gets the search context of the calling thread, replacing it if the layout has changed.
+     */
+    private SearchContext getSearchContext() {
+        SearchContext context = mSearchContexts.get();
+        if (context == null || context.getLayoutVersion() != mLayoutVersion) {
+            context = new SearchContext(mWalkable.length, mLayoutVersion);
+            mSearchContexts.set(context);
+        }
+        return context;
+    }
+
+    /**
+     * Replaces the search context of the calling thread.
+     *
+     * @param context Context to use from now on or null to remove the context of the thread.
+     * @return Previous context of the calling thread or null if it had none.
+     */
+    SearchContext swapSearchContext(SearchContext context) {
+        final SearchContext previous = mSearchContexts.get();
+        if (context != null) {
+            mSearchContexts.set(context);
+        } else {
+            mSearchContexts.remove();
+        }
+        return previous;
+    }
+
+    /**
+     * @return Search context of the last search by the calling thread or null if there is none.
+     */
+    private SearchContext getLastSearchContext() {
+        final SearchContext context = mSearchContexts.get();
+        return context != null && context.getLayoutVersion() == mLayoutVersion ? context : null;
+    }
+
+    /**
+     * Checks if a point was processed by the last call to findPath on the calling thread.
      *
      * @param x X-position of the point to check.
      * @param y Y-position of the point to check.
      * @return True if the point has been walked.
      */
     public boolean wasProcessed(int x, int y) {
-        final Node node = getNode(x, y);
-        return node != null ? node.isProcessed() : false;
+        final SearchContext context = getLastSearchContext();
+        final int node = getNode(x, y);
+        return context != null && node != NO_NODE && context.wasProcessed(node);
     }
 
     public boolean wasProcessed(Point point) {
@@ -72,8 +360,8 @@ public final class Graph {
      * @return True if the point is walkable.
      */
     public boolean isWalkable(int x, int y) {
-        final Node node = getNode(x, y);
-        return node != null ? node.isWalkable() : false;
+        final int node = getNode(x, y);
+        return node != NO_NODE ? mWalkable[node] : false;
     }
 
     public boolean isWalkable(Point point) {
@@ -88,9 +376,22 @@ public final class Graph {
      * @param walkable New walkable state.
      */
     public void setWalkable(int x, int y, boolean walkable) {
-        final Node node = getNode(x, y);
-        if (node != null) {
-            node.setWalkable(walkable);
+        final int node = getNode(x, y);
+        if (node != NO_NODE && mWalkable[node] != walkable) {
+            mWalkable[node] = walkable;
+            mBits.set(x, y, walkable);
+            ++mVersion;
+            if (mClusterGraph != null) {
+                mClusterGraph.markChanged(x, y);
+            }
+            if (mDStarLiteSearch != null) {
+                mDStarLiteSearch.markChanged(node);
+            }
+            for (int ny = Math.max(y - 1, 0); ny <= Math.min(y + 1, mHeight - 1); ++ny) {
+                for (int nx = Math.max(x - 1, 0); nx <= Math.min(x + 1, mWidth - 1); ++nx) {
+                    updateSuccessors(getNode(nx, ny));
+                }
+            }
         }
     }
 
@@ -107,14 +408,68 @@ public final class Graph {
      * @return List of Points if a path was found or <tt>null</tt> otherwise.
      */
     public List<Point> findPath(PathFinder finder, Point startPoint, Point goalPoint) {
-        if (mDirty) {
-            // We need to clear e.g. the processed flag of the nodes.
-            reset();
+        return finder.findPath(this, startPoint, goalPoint);
+    }
+
+    /**
+     * Finds a path like findPath, but gives up once the token is cancelled. The token is polled by
+     * the built-in PathFinder implementations while they expand nodes.
+     *
+     * @param token Token to poll during the search.
+     * @return List of Points if a path was found or <tt>null</tt> otherwise.
+     * @throws java.util.concurrent.CancellationException If the token was cancelled before the
+     *         search completed.
+     */
+    public List<Point> findPath(PathFinder finder, Point startPoint, Point goalPoint,
+                                CancellationToken token) {
+        token.throwIfCancelled();
+        final SearchContext context = getSearchContext();
+        context.setCancellationToken(token);
+        try {
+            return finder.findPath(this, startPoint, goalPoint);
+        } finally {
+            context.setCancellationToken(null);
+        }
+    }
+
+    /**
+     * Answers a batch of queries in parallel on a pool shared by all graphs. The pool has one
+     * worker per available processor.
+     *
+     * @see #findPaths(PathFinder, List, ForkJoinPool)
+     */
+    public List<List<Point>> findPaths(PathFinder finder, List<PathQuery> queries) {
+        return findPaths(finder, queries, PathQueryTask.getDefaultPool());
+    }
+
+    /**
+     * Answers a batch of queries in parallel on the given pool. The graph must not be modified
+     * until the call returns. Each worker keeps its search state between queries, so the pool
+     * should be reused across batches. The parallelism of the pool controls how many queries are
+     * searched at once.
+     *
+     * @param finder A PathFinder instance used for the searches. It is shared by the workers.
+     * @param queries Start and goal points of each query.
+     * @param pool Pool to run the searches on.
+     * @return Path of each query in the order of the queries. The paths are as returned by
+     *         findPath, i.e. <tt>null</tt> for queries without a path.
+     */
+    public List<List<Point>> findPaths(PathFinder finder, List<PathQuery> queries,
+                                       ForkJoinPool pool) {
+        @SuppressWarnings("unchecked")
+        final List<Point>[] paths = new List[queries.size()];
+        if (!queries.isEmpty()) {
+            pool.invoke(new PathQueryTask(this, finder, queries, paths, pool.getParallelism()));
         }
+        return Arrays.asList(paths);
+    }
 
-        final List<Point> path = finder.findPath(this, startPoint, goalPoint);
-        mDirty = true;
-        return path;
+    /**
+     * @return Number of nodes expanded by the last call to findPath on the calling thread.
+     */
+    public int getExpandedCount() {
+        final SearchContext context = getLastSearchContext();
+        return context != null ? context.getExpandedCount() : 0;
     }
 
     /**
@@ -135,52 +490,87 @@ public final class Graph {
         return length;
     }
 
+    /**
+     * Gets the cost of moving between two adjacent nodes.
+     */
+    int getStepCost(int node, int neighbor) {
+        final int delta = Math.abs(neighbor - node);
+        return delta == 1 || delta == mStride ? STRAIGHT_COST : DIAGONAL_COST;
+    }
+
+    /**
+     * Gets the cost of the shortest path between two points in an empty graph, i.e. of moving
+     * diagonally until either coordinate matches and then straight.
+     */
+    static int getOctileCost(int dx, int dy) {
+        dx = Math.abs(dx);
+        dy = Math.abs(dy);
+        return dx < dy
+            ? DIAGONAL_COST * dx + STRAIGHT_COST * (dy - dx)
+            : DIAGONAL_COST * dy + STRAIGHT_COST * (dx - dy);
+    }
+
     /**
      * Finds the walkable neighbors of the specified node.
      *
      * @param node Node to get the neighbors of.
-     * @return List of neighbor nodes.
-     */
-    List<Node> findNodeNeighbors(Node node) {
-        final List<Node> neighbors = new DynamicArray<>();
-        for (int y = -1; y <= 1; ++y) {
-            for (int x = -1; x <= 1; ++x) {
-                if (y == 0 && x == 0) {
-                    continue;
-                }
+     * @param neighbors Array of at least 8 elements to store the neighbor nodes in.
+     * @return Number of neighbors stored.
+     */
+    int findNodeNeighbors(int node, int[] neighbors) {
+        int count = 0;
+        for (int mask = getSuccessors(node); mask != 0; mask &= mask - 1) {
+            neighbors[count++] = getSuccessor(node, mask);
+        }
 
-                final Node neighbor = getNode(node.getX() + x, node.getY() + y);
-                if (neighbor == null || !neighbor.isWalkable()) {
-                    continue;
-                }
+        return count;
+    }
 
-                // Skip diagonal neighbors if both shared neighbors between the node and the
-                // neighbor are unwalkable.
-                if (x != 0 && y != 0 &&
-                    !getNode(node.getX(), node.getY() + y).isWalkable() &&
-                    !getNode(node.getX() + x, node.getY()).isWalkable()) {
-                    continue;
-                }
+    /**
+     * Recomputes the successor mask of a node within the bounds.
+     */
+    private void updateSuccessors(int node) {
+        final boolean[] walkable = mWalkable;
+        int mask = 0;
+        for (int i = 0; i < 8; ++i) {
+            if (!walkable[node + mNeighborOffsets[i]]) {
+                continue;
+            }
 
-                neighbors.add(neighbor);
+            // Skip diagonal neighbors if both shared neighbors between the node and the neighbor
+            // are unwalkable.
+            if (DIRECTION_X[i] != 0 && DIRECTION_Y[i] != 0 &&
+                !walkable[node + DIRECTION_X[i]] &&
+                !walkable[node + DIRECTION_Y[i] * mStride]) {
+                continue;
             }
+
+            mask |= 1 << i;
         }
 
-        return neighbors;
+        mSuccessors[node] = (byte)mask;
+    }
+
+    private void updateAllSuccessors() {
+        mBits = new BitGrid(mWidth, mHeight);
+        mClusterGraph = null;
+        mDStarLiteSearch = null;
+        for (int y = 0; y < mHeight; ++y) {
+            for (int x = 0; x < mWidth; ++x) {
+                final int node = getNode(x, y);
+                updateSuccessors(node);
+                mBits.set(x, y, mWalkable[node]);
+            }
+        }
     }
 
     /**
-     * Resets the nodes in the grid if needed.
+     * Clears the search state of the last search by the calling thread.
      */
     public void reset() {
-        if (mDirty) {
-            for (int y = 0; y < mGrid.length; ++y) {
-                for (int x = 0; x < mGrid[y].length; ++x) {
-                    mGrid[y][x].reset();
-                }
-            }
-
-            mDirty = false;
+        final SearchContext context = getLastSearchContext();
+        if (context != null) {
+            context.reset();
         }
     }
 
@@ -188,15 +578,16 @@ public final class Graph {
      * Sets all points to be walkable.
      */
     public void setAllWalkable() {
-        for (int y = 0; y < mGrid.length; ++y) {
-            for (int x = 0; x < mGrid[y].length; ++x) {
-                mGrid[y][x].setWalkable(true);
-            }
+        for (int y = 0; y < mHeight; ++y) {
+            final int rowStart = getNode(0, y);
+            Arrays.fill(mWalkable, rowStart, rowStart + mWidth, true);
         }
+        ++mVersion;
+        updateAllSuccessors();
     }
 
     /**
-     * Resize the graph while keeping the Nodes within the new bounds intact.
+     * Resize the graph while keeping the walkable state within the new bounds intact.
      *
      * @param width New width.
      * @param height New height.
@@ -204,16 +595,28 @@ public final class Graph {
     public void resize(int width, int height) {
         if (width == getWidth() && height == getHeight()) return;
 
-        final Node[][] newGrid = new Node[height][width];
+        final int stride = width + 2;
+        final int size = stride * (height + 2);
+        final boolean[] newWalkable = new boolean[size];
         for (int y = 0; y < height; ++y) {
             for (int x = 0; x < width; ++x) {
-                newGrid[y][x] = getNode(x, y);
-                if (newGrid[y][x] == null) {
-                    newGrid[y][x] = new Node(x, y);
-                }
+                final int node = getNode(x, y);
+                newWalkable[(y + 1) * stride + (x + 1)] = node != NO_NODE ? mWalkable[node] : true;
             }
         }
-        mGrid = newGrid;
+
+        mWidth = width;
+        mHeight = height;
+        mStride = stride;
+        ++mLayoutVersion;
+        ++mVersion;
+        mWalkable = newWalkable;
+        for (int i = 0; i < 8; ++i) {
+            mNeighborOffsets[i] = DIRECTION_Y[i] * stride + DIRECTION_X[i];
+        }
+
+        mSuccessors = new byte[size];
+        updateAllSuccessors();
     }
 
     /**
@@ -225,14 +628,14 @@ public final class Graph {
      */
     public String serialize(Point startPoint, Point goalPoint) {
         final StringBuilder sb = new StringBuilder();
-        for (int y = 0; y < mGrid.length; ++y) {
-            for (int x = 0; x < mGrid[y].length; ++x) {
+        for (int y = 0; y < mHeight; ++y) {
+            for (int x = 0; x < mWidth; ++x) {
                 char ch = '.';
                 if (startPoint != null && x == startPoint.getX() && y == startPoint.getY()) {
                     ch = 'S';
                 } else if (goalPoint != null && x == goalPoint.getX() && y == goalPoint.getY()) {
                     ch = 'G';
-                } else if (!mGrid[y][x].isWalkable()) {
+                } else if (!isWalkable(x, y)) {
                     ch = '#';
                 }
                 sb.append(ch);
@@ -261,13 +664,13 @@ public final class Graph {
                 continue;
             }
 
-            if (y < mGrid.length && x < mGrid[0].length) {
+            if (y < mHeight && x < mWidth) {
                 if (ch == 'S' && startPoint != null) {
                     startPoint.set(x, y);
                 } else if (ch == 'G' && goalPoint != null) {
                     goalPoint.set(x, y);
                 } else if (ch == '#' || ch == '.') {
-                    mGrid[y][x].setWalkable(ch == '.');
+                    setWalkable(x, y, ch == '.');
                 }
             }
 
@@ -289,10 +692,7 @@ public final class Graph {
         for (int y = 0; y < ints.length; ++y) {
             if (ints[y].length != ints[0].length) return null;
             for (int x = 0; x < ints[y].length; ++x) {
-                graph.mGrid[y][x] = new Node(x, y);
-                if (ints[y][x] == 0) {
-                    graph.mGrid[y][x].setWalkable(false);
-                }
+                graph.setWalkable(x, y, ints[y][x] != 0);
             }
         }
         return graph;
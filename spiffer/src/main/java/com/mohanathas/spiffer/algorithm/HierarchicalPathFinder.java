@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.DynamicArray;
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+
+/**
+ * PathFinder implementation of HPA*. The query is first answered with A* on the ClusterGraph of
+ * the graph, which connects the start and goal to the entrance nodes of their clusters by
+ * searching within the clusters. Each step of the resulting abstract path is then refined with
+ * A* on the graph. The paths within the clusters are not stored, but found again when a step is
+ * refined.
+ *
+ * The paths are close to the shortest ones, but not always the shortest. The ClusterGraph is
+ * kept by the graph, so setWalkable only causes the affected clusters to be rebuilt by the next
+ * search.
+ *
+ * The expanded count of a query includes the abstract search and every refined step, but as each
+ * step is a new search, Graph.wasProcessed only reports the nodes of the last step.
+ */
+public class HierarchicalPathFinder extends AStarPathFinder {
+    private static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    private final int mClusterSize;
+
+    public HierarchicalPathFinder(Heuristic heuristic) {
+        this(heuristic, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * @param clusterSize Width and height of the clusters.
+     */
+    public HierarchicalPathFinder(Heuristic heuristic, int clusterSize) {
+        super(heuristic);
+        if (clusterSize < 1) {
+            throw new IllegalArgumentException("Cluster size must be positive");
+        }
+
+        mClusterSize = clusterSize;
+    }
+
+    @Override
+    public List<Point> findPath(Graph graph, Point startPoint, Point goalPoint) {
+        final int startNode = graph.getNode(startPoint);
+        final int goalNode = graph.getNode(goalPoint);
+        final ClusterGraph clusters = graph.getClusterGraph(mClusterSize);
+        final SearchContext context = graph.beginSearch();
+        final int[] nodes = findAbstractPath(graph, context, clusters, startNode, goalNode);
+        if (nodes == null) {
+            return null;
+        }
+
+        // Each step resets the context, so the counts of the earlier searches are added back.
+        int expandedCount = context.getExpandedCount();
+        if (nodes.length == 1) {
+            final List<Point> path = super.findPath(graph, startPoint, goalPoint);
+            context.addExpandedCount(expandedCount);
+            return path;
+        }
+
+        final List<Point> path = new DynamicArray<>();
+        for (int i = 1; i < nodes.length; ++i) {
+            final List<Point> step = super.findPath(
+                graph, graph.getPoint(nodes[i - 1]), graph.getPoint(nodes[i]));
+            if (step == null) {
+                context.addExpandedCount(expandedCount);
+                return null;
+            }
+            for (Point point : step) {
+                path.add(point);
+            }
+            if (i + 1 < nodes.length) {
+                expandedCount += context.getExpandedCount();
+            }
+        }
+        context.addExpandedCount(expandedCount);
+        return path;
+    }
+
+    /**
+     * Finds a path on the abstract graph.
+     *
+     * @return Nodes of the path from the start to the goal or null if there is none.
+     */
+    private int[] findAbstractPath(Graph graph, SearchContext context, ClusterGraph clusters,
+                                   int startNode, int goalNode) {
+        // The searches within the clusters use the scratch space of the context and are done
+        // before its open list is used for the abstract search.
+        final int area = mClusterSize * mClusterSize;
+        final OpenList localList = context.getOpenList(OpenListType.BinaryHeap, TieBreaking.None);
+        final int[] startDistances = context.getScratchBuffer(0, area);
+        final int[] goalDistances = context.getScratchBuffer(1, area);
+        clusters.searchCluster(startNode, startDistances, localList);
+        clusters.searchCluster(goalNode, goalDistances, localList);
+        final int goalCluster = clusters.getCluster(goalNode);
+
+        final OpenList openList =
+            context.getOpenList(OpenListType.BinaryHeap, TieBreaking.LargerStartDistance);
+        final int startIndex = context.visit(startNode);
+        context.setStartDistance(startIndex, 0);
+        openList.add(startIndex, 0, 0);
+        context.setQueued(startIndex);
+
+        final int[] partners = context.getNeighborBuffer();
+        do {
+            final int startDistance = openList.peekStartDistance();
+            final int index = openList.poll();
+            final int node = context.getNode(index);
+            context.setProcessed(index);
+            context.checkCancellation();
+            if (node == goalNode) {
+                return getAbstractPath(context, index);
+            }
+
+            final int cluster = clusters.getCluster(node);
+            final int[] entrances = clusters.getEntrances(cluster);
+            if (node == startNode) {
+                for (int entrance : entrances) {
+                    relaxAbstract(graph, context, openList, index, startDistance,
+                                  startDistances[clusters.getLocalIndex(entrance)], entrance,
+                                  goalNode);
+                }
+            } else {
+                final int i = indexOf(entrances, node);
+                for (int j = 0; j < entrances.length; ++j) {
+                    relaxAbstract(graph, context, openList, index, startDistance,
+                                  clusters.getDistance(cluster, i, j), entrances[j], goalNode);
+                }
+            }
+
+            if (cluster == goalCluster) {
+                final int distance = node == startNode
+                    ? startDistances[clusters.getLocalIndex(goalNode)]
+                    : goalDistances[clusters.getLocalIndex(node)];
+                relaxAbstract(graph, context, openList, index, startDistance, distance, goalNode,
+                              goalNode);
+            }
+
+            final int count = clusters.findPartners(node, partners);
+            for (int k = 0; k < count; ++k) {
+                relax(graph, context, openList, index, startDistance + Graph.STRAIGHT_COST,
+                      partners[k], goalNode);
+            }
+        } while (!openList.isEmpty());
+
+        return null;
+    }
+
+    private void relaxAbstract(Graph graph, SearchContext context, OpenList openList, int index,
+                               int startDistance, int distance, int neighbor, int goalNode) {
+        if (distance != ClusterGraph.NO_DISTANCE) {
+            relax(graph, context, openList, index, startDistance + distance, neighbor, goalNode);
+        }
+    }
+
+    private static int indexOf(int[] nodes, int node) {
+        for (int i = 0; i < nodes.length; ++i) {
+            if (nodes[i] == node) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] getAbstractPath(SearchContext context, int index) {
+        int length = 0;
+        for (int i = index; i != SearchContext.NO_INDEX; i = context.getParent(i)) {
+            ++length;
+        }
+
+        final int[] nodes = new int[length];
+        for (int i = index; i != SearchContext.NO_INDEX; i = context.getParent(i)) {
+            nodes[--length] = context.getNode(i);
+        }
+        return nodes;
+    }
+}
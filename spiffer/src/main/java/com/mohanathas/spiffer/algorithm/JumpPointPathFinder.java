@@ -8,10 +8,6 @@
 
 package com.mohanathas.spiffer.algorithm;
 
-import com.mohanathas.spiffer.util.BinaryMinHeap;
-import com.mohanathas.spiffer.util.DynamicArray;
-import java.util.List;
-
 /**
  * PathFinder implementation of the Jump Point Search algorithm, which behaves similarly to A*
  * except that it avoids traversing "unnecessary" neighbors.
@@ -23,113 +19,196 @@ public class JumpPointPathFinder extends AStarPathFinder {
         super(heuristic);
     }
 
+    public JumpPointPathFinder(Heuristic heuristic, OpenListType openListType) {
+        super(heuristic, openListType);
+    }
+
+    public JumpPointPathFinder(Heuristic heuristic, OpenListType openListType,
+                               TieBreaking tieBreaking) {
+        super(heuristic, openListType, tieBreaking);
+    }
+
     @Override
-    void handleNeighbors(Graph graph, BinaryMinHeap<Node> heap, Node node, Node goalNode) {
-        for (final Node neighbor : findPrunedNeighbors(graph, node)) {
-            final Node jumpNode = findJumpNode(graph, neighbor, node, goalNode);
-            if (jumpNode != null) {
-                relax(heap, node, jumpNode, goalNode);
+    void handleNeighbors(Graph graph, SearchContext context, OpenList openList, int index,
+                         int node, int startDistance, int goalNode) {
+        final int x = graph.getX(node);
+        final int y = graph.getY(node);
+        final int[] neighbors = context.getNeighborBuffer();
+        final int count = findPrunedNeighbors(graph, context, index, node, neighbors);
+        for (int i = 0; i < count; ++i) {
+            final int neighbor = neighbors[i];
+            final int jumpNode = findJumpNode(
+                graph, node, graph.getX(neighbor) - x, graph.getY(neighbor) - y, goalNode);
+            if (jumpNode != Graph.NO_NODE) {
+                // The jump node is reached by moving straight or diagonally.
+                final int distance = startDistance + Graph.getOctileCost(
+                    graph.getX(jumpNode) - x, graph.getY(jumpNode) - y);
+                relax(graph, context, openList, index, distance, jumpNode, goalNode);
             }
         }
     }
 
-    private static Node findJumpNode(Graph graph, Node node, Node parentNode, Node goalNode) {
-        if (node == null || parentNode == null || !node.isWalkable()) {
-            return null;
-        }
+    /**
+     * Finds the next jump point when moving from a node in the direction of one of its legal
+     * successors.
+     *
+     * @param node Node to move from.
+     * @param dx Direction of movement along the X-axis.
+     * @param dy Direction of movement along the Y-axis.
+     * @return The jump node or NO_NODE if there is none.
+     */
+    int findJumpNode(Graph graph, int node, int dx, int dy, int goalNode) {
+        return scanJumpNode(graph, graph.getNeighbor(node, dx, dy), dx, dy, goalNode);
+    }
 
-        if (node.equals(goalNode)) {
-            return node;
+    /**
+     * Finds the next jump point by scanning in the given direction, starting from a neighbor of a
+     * node within the bounds of the graph. As the graph is surrounded by unwalkable sentinel
+     * nodes, the scan never leaves the node arrays.
+     *
+     * @param node Node to start the scan from.
+     * @param dx Direction of movement along the X-axis.
+     * @param dy Direction of movement along the Y-axis.
+     * @return The jump node or NO_NODE if there is none.
+     */
+    private static int scanJumpNode(Graph graph, int node, int dx, int dy, int goalNode) {
+        if (dx == 0 || dy == 0) {
+            return scanStraight(graph, node, dx, dy, goalNode);
         }
 
-        final int x = node.getX();
-        final int y = node.getY();
-        final int dx = x - parentNode.getX();
-        final int dy = y - parentNode.getY();
+        while (graph.isWalkable(node)) {
+            if (node == goalNode) {
+                return node;
+            }
 
-        if (dx != 0 && dy != 0) {
             // Check for diagonal forced neighbors.
-            if ((graph.isWalkable(x - dx, y + dy) && !graph.isWalkable(x - dx, y)) ||
-                (graph.isWalkable(x + dx, y - dy) && !graph.isWalkable(x, y - dy))) {
+            if ((graph.isWalkable(graph.getNeighbor(node, -dx, dy)) &&
+                 !graph.isWalkable(graph.getNeighbor(node, -dx, 0))) ||
+                (graph.isWalkable(graph.getNeighbor(node, dx, -dy)) &&
+                 !graph.isWalkable(graph.getNeighbor(node, 0, -dy)))) {
                 return node;
             }
 
             // Additional check for horizontal and vertical jump points with diagonal movements.
-            final Node xJumpNode = findJumpNode(graph, graph.getNode(x + dx, y), node, goalNode);
-            final Node yJumpNode = findJumpNode(graph, graph.getNode(x, y + dy), node, goalNode);
-            if (xJumpNode != null || yJumpNode != null) {
-                return node;
-            }
-        } else if (dx == 0) {
-            // Check for horizontal forced neighbors.
-            if ((graph.isWalkable(x + 1, y + dy) && !graph.isWalkable(x + 1, y)) ||
-                (graph.isWalkable(x - 1, y + dy) && !graph.isWalkable(x - 1, y))) {
+            if (scanStraight(graph, graph.getNeighbor(node, dx, 0), dx, 0, goalNode)
+                    != Graph.NO_NODE ||
+                scanStraight(graph, graph.getNeighbor(node, 0, dy), 0, dy, goalNode)
+                    != Graph.NO_NODE) {
                 return node;
             }
-        } else if (dy == 0) {
-            // Check for vertical forced neighbors.
-            if ((graph.isWalkable(x + dx, y + 1) && !graph.isWalkable(x, y + 1)) ||
-                (graph.isWalkable(x + dx, y - 1) && !graph.isWalkable(x, y - 1))) {
-                return node;
+
+            // For a diagonal jump, at least one shared neighbors between the node and the jump
+            // node must be walkable.
+            if (!graph.isWalkable(graph.getNeighbor(node, dx, 0)) &&
+                !graph.isWalkable(graph.getNeighbor(node, 0, dy))) {
+                break;
             }
+            node = graph.getNeighbor(node, dx, dy);
+        }
+        return Graph.NO_NODE;
+    }
+
+    /**
+     * Finds the next jump point by scanning horizontally or vertically, 64 nodes at a time. The
+     * scan stops at the first node that is unwalkable or has a forced neighbor.
+     *
+     * @param node Node to start the scan from.
+     * @return The jump node or NO_NODE if there is none.
+     */
+    private static int scanStraight(Graph graph, int node, int dx, int dy, int goalNode) {
+        if (!graph.isWalkable(node)) {
+            return Graph.NO_NODE;
         }
 
-        // For a diagonal jump, at least one shared neighbors between the node and the jump node
-        // must be walkable.
-        if (graph.isWalkable(x + dx, y) || graph.isWalkable(x, y + dy)) {
-            return findJumpNode(graph, graph.getNode(x + dx, y + dy), node, goalNode);
+        final int x = graph.getX(node);
+        final int y = graph.getY(node);
+        final int stopNode;
+        if (dy == 0) {
+            final int stopX = graph.getBits().findHorizontalStop(x, y, dx);
+            if (graph.getY(goalNode) == y && isBetween(graph.getX(goalNode), x, stopX)) {
+                return goalNode;
+            }
+            stopNode = graph.getNeighbor(node, stopX - x, 0);
+        } else {
+            final int stopY = graph.getBits().findVerticalStop(x, y, dy);
+            if (graph.getX(goalNode) == x && isBetween(graph.getY(goalNode), y, stopY)) {
+                return goalNode;
+            }
+            stopNode = graph.getNeighbor(node, 0, stopY - y);
         }
-        return null;
+
+        // The stop node is a jump point unless the scan ran into an unwalkable node.
+        return graph.isWalkable(stopNode) ? stopNode : Graph.NO_NODE;
+    }
+
+    /**
+     * @return Whether the value lies between the start, inclusive, and the end, exclusive.
+     */
+    private static boolean isBetween(int value, int start, int end) {
+        return start <= end ? value >= start && value < end : value <= start && value > end;
     }
 
-    private static List<Node> findPrunedNeighbors(Graph graph, Node node) {
-        final Node parentNode = node.getParent();
-        if (parentNode == null) {
-            return graph.findNodeNeighbors(node);
+    /**
+     * Finds the neighbors of the specified node that need to be considered when arriving from
+     * the parent node.
+     *
+     * @param graph Graph containing the node.
+     * @param context Search context containing the parent of the node.
+     * @param index Local index of the node in the search context.
+     * @param node Node to get the neighbors of.
+     * @param neighbors Array of at least 8 elements to store the neighbor nodes in.
+     * @return Number of neighbors stored.
+     */
+    private static int findPrunedNeighbors(Graph graph, SearchContext context, int index,
+                                           int node, int[] neighbors) {
+        final int parentIndex = context.getParent(index);
+        if (parentIndex == SearchContext.NO_INDEX) {
+            return graph.findNodeNeighbors(node, neighbors);
         }
 
-        final List<Node> neighbors = new DynamicArray<>(5);
-        final int x = node.getX();
-        final int y = node.getY();
-        final int dx = (x - parentNode.getX()) / Math.max(Math.abs(x - parentNode.getX()), 1);
-        final int dy = (y - parentNode.getY()) / Math.max(Math.abs(y - parentNode.getY()), 1);
+        final int parentNode = context.getNode(parentIndex);
+        final int dx = Integer.signum(graph.getX(node) - graph.getX(parentNode));
+        final int dy = Integer.signum(graph.getY(node) - graph.getY(parentNode));
+        final int successors = graph.getSuccessors(node);
+        int pruned = 0;
         if (dx != 0 && dy != 0) {
-            // Check for diagonal forced neighbors.
-            if (graph.isWalkable(x, y + dy)) {
-                neighbors.add(graph.getNode(x, y + dy));
-            }
-            if (graph.isWalkable(x + dx, y)) {
-                neighbors.add(graph.getNode(x + dx, y));
-            }
-            if (graph.isWalkable(x, y + dy) || graph.isWalkable(x + dx, y)) {
-                neighbors.add(graph.getNode(x + dx, y + dy));
-            }
-            if (!graph.isWalkable(x - dx, y) && graph.isWalkable(x, y + dy)) {
-                neighbors.add(graph.getNode(x - dx, y + dy));
+            // The natural neighbors are the diagonal successor and its two shared neighbors.
+            pruned = successors & (Graph.getDirectionBit(dx, 0) | Graph.getDirectionBit(0, dy) |
+                                   Graph.getDirectionBit(dx, dy));
+
+            // Check for diagonal forced neighbors. Given that the shared neighbor is blocked, the
+            // successor bit of the forced neighbor also implies that the other one is walkable.
+            if ((successors & Graph.getDirectionBit(-dx, 0)) == 0) {
+                pruned |= successors & Graph.getDirectionBit(-dx, dy);
             }
-            if (!graph.isWalkable(x, y - dy) && graph.isWalkable(x + dx, y)) {
-                neighbors.add(graph.getNode(x + dx, y - dy));
+            if ((successors & Graph.getDirectionBit(0, -dy)) == 0) {
+                pruned |= successors & Graph.getDirectionBit(dx, -dy);
             }
-        } else if (dx == 0 && graph.isWalkable(x, y + dy)) {
+        } else if (dx == 0 && (successors & Graph.getDirectionBit(0, dy)) != 0) {
             // Check for horizontal forced neighbors.
-            neighbors.add(graph.getNode(x, y + dy));
-            if (!graph.isWalkable(x + 1, y)) {
-                neighbors.add(graph.getNode(x + 1, y + dy));
+            pruned = Graph.getDirectionBit(0, dy);
+            if ((successors & Graph.getDirectionBit(1, 0)) == 0) {
+                pruned |= successors & Graph.getDirectionBit(1, dy);
             }
-            if (!graph.isWalkable(x - 1, y)) {
-                neighbors.add(graph.getNode(x - 1, y + dy));
+            if ((successors & Graph.getDirectionBit(-1, 0)) == 0) {
+                pruned |= successors & Graph.getDirectionBit(-1, dy);
             }
-        } else if (dy == 0 && graph.isWalkable(x + dx, y)) {
+        } else if (dy == 0 && (successors & Graph.getDirectionBit(dx, 0)) != 0) {
             // Check for vertical forced neighbors.
-            neighbors.add(graph.getNode(x + dx, y));
-            if (!graph.isWalkable(x, y + 1)) {
-                neighbors.add(graph.getNode(x + dx, y + 1));
+            pruned = Graph.getDirectionBit(dx, 0);
+            if ((successors & Graph.getDirectionBit(0, 1)) == 0) {
+                pruned |= successors & Graph.getDirectionBit(dx, 1);
             }
-            if (!graph.isWalkable(x, y - 1)) {
-                neighbors.add(graph.getNode(x + dx, y - 1));
+            if ((successors & Graph.getDirectionBit(0, -1)) == 0) {
+                pruned |= successors & Graph.getDirectionBit(dx, -1);
             }
         }
 
-        return neighbors;
+        int count = 0;
+        for (; pruned != 0; pruned &= pruned - 1) {
+            neighbors[count++] = graph.getSuccessor(node, pruned);
+        }
+
+        return count;
     }
 }
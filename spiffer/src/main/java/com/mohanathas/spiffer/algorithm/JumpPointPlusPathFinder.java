@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+/**
+ * PathFinder implementation of JPS+, which finds the same jump points as JumpPointPathFinder by
+ * looking them up in a JumpTable instead of scanning the graph node by node.
+ *
+ * The table is built when the graph is first searched and rebuilt by the first search after the
+ * graph has changed, so this is best suited for graphs that rarely change. As the table ignores
+ * the goal, a lookup also checks whether the goal lies between the node and the jump point.
+ */
+public class JumpPointPlusPathFinder extends JumpPointPathFinder {
+    public JumpPointPlusPathFinder(Heuristic heuristic) {
+        super(heuristic);
+    }
+
+    public JumpPointPlusPathFinder(Heuristic heuristic, OpenListType openListType) {
+        super(heuristic, openListType);
+    }
+
+    public JumpPointPlusPathFinder(Heuristic heuristic, OpenListType openListType,
+                                   TieBreaking tieBreaking) {
+        super(heuristic, openListType, tieBreaking);
+    }
+
+    @Override
+    int findJumpNode(Graph graph, int node, int dx, int dy, int goalNode) {
+        final JumpTable table = graph.getJumpTable();
+        final int distance = table.getDistance(node, Graph.getDirection(dx, dy));
+        final int reach = Math.abs(distance);
+        final int x = graph.getX(node);
+        final int y = graph.getY(node);
+        final int goalX = graph.getX(goalNode);
+        final int goalY = graph.getY(goalNode);
+
+        if (dy == 0 || dx == 0) {
+            // Stop at the goal if it is on the way.
+            final boolean inLine = dy == 0 ? goalY == y : goalX == x;
+            final int goalSteps = dy == 0 ? dx * (goalX - x) : dy * (goalY - y);
+            if (inLine && goalSteps > 0 && goalSteps <= reach) {
+                return goalNode;
+            }
+            return distance > 0 ? graph.getNeighbor(node, dx * distance, dy * distance)
+                                : Graph.NO_NODE;
+        }
+
+        // A diagonal move also stops where it crosses the row or the column of the goal if the
+        // goal can be reached from there by moving straight.
+        int steps = distance > 0 ? distance : Integer.MAX_VALUE;
+        final int rowSteps = dy * (goalY - y);
+        if (rowSteps > 0 && rowSteps < steps && rowSteps <= reach &&
+            canReachStraight(table, graph.getNeighbor(node, dx * rowSteps, dy * rowSteps),
+                             dx * (goalX - x - dx * rowSteps), dx, 0)) {
+            steps = rowSteps;
+        }
+        final int columnSteps = dx * (goalX - x);
+        if (columnSteps > 0 && columnSteps < steps && columnSteps <= reach &&
+            canReachStraight(table, graph.getNeighbor(node, dx * columnSteps, dy * columnSteps),
+                             dy * (goalY - y - dy * columnSteps), 0, dy)) {
+            steps = columnSteps;
+        }
+
+        return steps != Integer.MAX_VALUE ? graph.getNeighbor(node, dx * steps, dy * steps)
+                                          : Graph.NO_NODE;
+    }
+
+    /**
+     * @param steps Number of steps to take. A negative number means that the target is behind.
+     * @return True if the given number of steps can be taken from the node in the direction.
+     */
+    private static boolean canReachStraight(JumpTable table, int node, int steps, int dx,
+                                            int dy) {
+        if (steps <= 0) {
+            return steps == 0;
+        }
+        return steps <= Math.abs(table.getDistance(node, Graph.getDirection(dx, dy)));
+    }
+}
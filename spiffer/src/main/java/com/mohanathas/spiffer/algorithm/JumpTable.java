@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Precomputed jump distances for JPS+. For every node and each of the 8 directions, the table
+ * stores the number of steps to the next jump point when moving in that direction, or the
+ * negated number of steps that can be taken before the way is blocked if there is no jump point.
+ * A distance of 0 means that the node cannot be left in that direction.
+ *
+ * The jump points are the ones found by JumpPointPathFinder when ignoring the goal. Whether the
+ * goal is passed on the way is checked during the search.
+ *
+ * The distance in a direction only depends on the distance of the next node in the same
+ * direction, so the table is built in two parallel passes. The first pass computes the straight
+ * directions row by row and column by column. The second computes the diagonal directions line by
+ * line, as the jump points of a diagonal depend on the straight distances from its nodes.
+ */
+final class JumpTable {
+    /** Number of lines handled sequentially by a LineTask. */
+    private static final int LINES_PER_TASK = 16;
+
+    private final Graph mGraph;
+    private final int mVersion;
+    private final int mWidth;
+    private final int mHeight;
+
+    /** Distance of each node in each direction at index <tt>node * 8 + direction</tt>. */
+    private final int[] mDistances;
+
+    /** Direction indices in the order of Graph.DIRECTION_X and Graph.DIRECTION_Y. */
+    private static final int[] DIAGONAL_DIRECTIONS = {0, 2, 5, 7};
+    private static final int[] HORIZONTAL_DIRECTIONS = {3, 4};
+    private static final int[] VERTICAL_DIRECTIONS = {1, 6};
+
+    /**
+     * Computes the distances of a range of lines.
+     */
+    private final class LineTask extends RecursiveAction {
+        private final boolean mDiagonal;
+        private final int mBegin;
+        private final int mEnd;
+
+        LineTask(boolean diagonal, int begin, int end) {
+            mDiagonal = diagonal;
+            mBegin = begin;
+            mEnd = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (mEnd - mBegin > LINES_PER_TASK) {
+                final int middle = (mBegin + mEnd) >>> 1;
+                invokeAll(new LineTask(mDiagonal, mBegin, middle),
+                          new LineTask(mDiagonal, middle, mEnd));
+                return;
+            }
+
+            for (int line = mBegin; line < mEnd; ++line) {
+                final int[] directions = mDiagonal ? DIAGONAL_DIRECTIONS
+                                       : line < mHeight ? HORIZONTAL_DIRECTIONS
+                                       : VERTICAL_DIRECTIONS;
+                for (int direction : directions) {
+                    computeLine(direction, getLineEnd(direction, line));
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the table for the current state of the graph.
+     */
+    JumpTable(Graph graph, int version) {
+        mGraph = graph;
+        mVersion = version;
+        mWidth = graph.getWidth();
+        mHeight = graph.getHeight();
+        mDistances = new int[graph.getNodeCount() * 8];
+        if (mWidth > 0 && mHeight > 0) {
+            PathQueryTask.getDefaultPool().invoke(new LineTask(false, 0, mHeight + mWidth));
+            PathQueryTask.getDefaultPool().invoke(new LineTask(true, 0, mHeight + mWidth - 1));
+        }
+    }
+
+    int getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * @return Distance from the node in the direction with the given index.
+     */
+    int getDistance(int node, int direction) {
+        return mDistances[node * 8 + direction];
+    }
+
+    /**
+     * Gets the node at which a line of nodes in the given direction ends, i.e. the node whose
+     * distance must be computed first. The straight lines are numbered by rows and then by
+     * columns. The diagonal lines are numbered by their ends along the end column and then along
+     * the end row.
+     */
+    private int getLineEnd(int direction, int line) {
+        final int dx = Graph.DIRECTION_X[direction];
+        final int dy = Graph.DIRECTION_Y[direction];
+        final int endX = dx > 0 ? mWidth - 1 : 0;
+        final int endY = dy > 0 ? mHeight - 1 : 0;
+        if (dy == 0) {
+            return mGraph.getNode(endX, line);
+        } else if (dx == 0) {
+            return mGraph.getNode(line - mHeight, endY);
+        } else if (line < mHeight) {
+            return mGraph.getNode(endX, line);
+        }
+
+        // Skip the node shared by the end column and the end row.
+        final int x = line - mHeight;
+        return mGraph.getNode(dx > 0 ? x : x + 1, endY);
+    }
+
+    /**
+     * Computes the distances of the nodes on a line, starting from the end of the line and
+     * moving against the direction until the line leaves the graph.
+     */
+    private void computeLine(int direction, int end) {
+        final int dx = Graph.DIRECTION_X[direction];
+        final int dy = Graph.DIRECTION_Y[direction];
+        final int bit = Graph.getDirectionBit(dx, dy);
+        for (int node = end; mGraph.isInside(node); node = mGraph.getNeighbor(node, -dx, -dy)) {
+            int distance = 0;
+            if ((mGraph.getSuccessors(node) & bit) != 0) {
+                final int next = mGraph.getNeighbor(node, dx, dy);
+                final int nextDistance = mDistances[next * 8 + direction];
+                if (isJumpPoint(next, dx, dy)) {
+                    distance = 1;
+                } else if (nextDistance > 0) {
+                    distance = nextDistance + 1;
+                } else {
+                    distance = nextDistance - 1;
+                }
+            }
+            mDistances[node * 8 + direction] = distance;
+        }
+    }
+
+    /**
+     * Checks if a walkable node is a jump point when reached by moving in the given direction.
+     * This matches JumpPointPathFinder.scanJumpNode, except that the goal is ignored and the
+     * straight scans of diagonal moves are replaced by lookups.
+     */
+    private boolean isJumpPoint(int node, int dx, int dy) {
+        final Graph g = mGraph;
+        if (dx != 0 && dy != 0) {
+            return (g.isWalkable(g.getNeighbor(node, -dx, dy)) &&
+                    !g.isWalkable(g.getNeighbor(node, -dx, 0))) ||
+                   (g.isWalkable(g.getNeighbor(node, dx, -dy)) &&
+                    !g.isWalkable(g.getNeighbor(node, 0, -dy))) ||
+                   mDistances[node * 8 + Graph.getDirection(dx, 0)] > 0 ||
+                   mDistances[node * 8 + Graph.getDirection(0, dy)] > 0;
+        } else if (dx == 0) {
+            return (g.isWalkable(g.getNeighbor(node, 1, dy)) &&
+                    !g.isWalkable(g.getNeighbor(node, 1, 0))) ||
+                   (g.isWalkable(g.getNeighbor(node, -1, dy)) &&
+                    !g.isWalkable(g.getNeighbor(node, -1, 0)));
+        } else {
+            return (g.isWalkable(g.getNeighbor(node, dx, 1)) &&
+                    !g.isWalkable(g.getNeighbor(node, 0, 1))) ||
+                   (g.isWalkable(g.getNeighbor(node, dx, -1)) &&
+                    !g.isWalkable(g.getNeighbor(node, 0, -1)));
+        }
+    }
+}
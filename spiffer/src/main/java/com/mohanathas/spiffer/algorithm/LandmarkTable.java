@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Distances from a set of landmark nodes to every node of a Graph for the ALT heuristic (by
+ * Goldberg and Harrelson). By the triangle inequality, the distance between two nodes is at least
+ * the difference of their distances to any landmark, which accounts for the walls unlike the
+ * distance on an empty graph.
+ *
+ * The landmarks are chosen by farthest-point selection within the largest connected component:
+ * the first is the node farthest from an arbitrary node of the component and each further one is
+ * the node farthest from all landmarks chosen so far. Nodes outside the component get no bounds.
+ *
+ * The distances of each node to all landmarks are stored next to each other so that a lower bound
+ * reads one run of the table for each of the two nodes. They are stored as ints because the
+ * fixed-point costs of a few hundred steps already exceed the range of a short, and rounding them
+ * would make the heuristic inconsistent, which the A* implementations rely on.
+ */
+final class LandmarkTable {
+    /** Number of landmarks chosen by Graph.getLandmarkTable. */
+    static final int DEFAULT_LANDMARK_COUNT = 8;
+
+    /** Distance of the nodes that cannot be reached from the landmarks. */
+    private static final int UNREACHABLE = -1;
+
+    private final int mVersion;
+
+    /** Landmark nodes in the order they were chosen. */
+    private final int[] mLandmarks;
+
+    /** Distance to landmark i from node n at mDistances[n * mLandmarks.length + i]. */
+    private final int[] mDistances;
+
+    /**
+     * Chooses the landmarks and computes their distances for the current state of the graph.
+     *
+     * @param count Number of landmarks to choose.
+     */
+    LandmarkTable(Graph graph, int version, int count) {
+        mVersion = version;
+        final int nodeCount = graph.getNodeCount();
+        final int seed = findLargestComponent(graph);
+        if (seed == Graph.NO_NODE) {
+            mLandmarks = new int[0];
+            mDistances = new int[0];
+            return;
+        }
+
+        mLandmarks = new int[count];
+        mDistances = new int[nodeCount * count];
+        Arrays.fill(mDistances, UNREACHABLE);
+
+        final OpenList openList = OpenListType.BinaryHeap.create(TieBreaking.LargerStartDistance);
+        final int[] distances = new int[nodeCount];
+        final int[] minDistances = new int[nodeCount];
+        Arrays.fill(minDistances, Integer.MAX_VALUE);
+        search(graph, seed, distances, openList);
+        int landmark = findFarthest(distances);
+        for (int i = 0; i < count; ++i) {
+            mLandmarks[i] = landmark;
+            search(graph, landmark, distances, openList);
+            for (int node = 0; node < nodeCount; ++node) {
+                if (distances[node] != UNREACHABLE) {
+                    mDistances[node * count + i] = distances[node];
+                    minDistances[node] = Math.min(minDistances[node], distances[node]);
+                }
+            }
+            landmark = findFarthest(minDistances);
+        }
+    }
+
+    int getVersion() {
+        return mVersion;
+    }
+
+    int getLandmarkCount() {
+        return mLandmarks.length;
+    }
+
+    int getLandmark(int index) {
+        return mLandmarks[index];
+    }
+
+    /**
+     * @return Distance between the landmark and the node or -1 if they are not connected.
+     */
+    int getDistance(int index, int node) {
+        return mDistances[node * mLandmarks.length + index];
+    }
+
+    /**
+     * Calculates a lower bound for the distance between two nodes.
+     *
+     * @return The largest difference of the distances of the nodes to a landmark or 0 if the
+     *     nodes are not connected to the landmarks.
+     */
+    int getLowerBound(int node, int targetNode) {
+        final int count = mLandmarks.length;
+        final int offset = node * count;
+        final int targetOffset = targetNode * count;
+        int bound = 0;
+        for (int i = 0; i < count; ++i) {
+            final int distance = mDistances[offset + i];
+            final int targetDistance = mDistances[targetOffset + i];
+            if (distance != UNREACHABLE && targetDistance != UNREACHABLE) {
+                bound = Math.max(bound, Math.abs(distance - targetDistance));
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * @return A node of the largest set of walkable nodes that are connected to each other or
+     *     NO_NODE if no node is walkable.
+     */
+    private static int findLargestComponent(Graph graph) {
+        final boolean[] visited = new boolean[graph.getNodeCount()];
+        final int[] queue = new int[graph.getNodeCount()];
+        int largestNode = Graph.NO_NODE;
+        int largestSize = 0;
+        for (int y = 0; y < graph.getHeight(); ++y) {
+            for (int x = 0; x < graph.getWidth(); ++x) {
+                final int start = graph.getNode(x, y);
+                if (visited[start] || !graph.isWalkable(start)) {
+                    continue;
+                }
+
+                int size = 0;
+                queue[size++] = start;
+                visited[start] = true;
+                for (int i = 0; i < size; ++i) {
+                    final int node = queue[i];
+                    for (int mask = graph.getSuccessors(node); mask != 0; mask &= mask - 1) {
+                        final int neighbor = graph.getSuccessor(node, mask);
+                        if (!visited[neighbor]) {
+                            visited[neighbor] = true;
+                            queue[size++] = neighbor;
+                        }
+                    }
+                }
+
+                if (size > largestSize) {
+                    largestSize = size;
+                    largestNode = start;
+                }
+            }
+        }
+        return largestNode;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from a node over the whole graph.
+     *
+     * @param distances Array to store the distance of each node in, or -1 if it is not reached.
+     */
+    private static void search(Graph graph, int source, int[] distances, OpenList openList) {
+        Arrays.fill(distances, UNREACHABLE);
+        openList.clear();
+        distances[source] = 0;
+        openList.add(source, 0, 0);
+        while (!openList.isEmpty()) {
+            final int distance = openList.peekStartDistance();
+            final int node = openList.poll();
+            for (int mask = graph.getSuccessors(node); mask != 0; mask &= mask - 1) {
+                final int neighbor = graph.getSuccessor(node, mask);
+                final int neighborDistance = distance + graph.getStepCost(node, neighbor);
+                if (distances[neighbor] == UNREACHABLE) {
+                    distances[neighbor] = neighborDistance;
+                    openList.add(neighbor, neighborDistance, neighborDistance);
+                } else if (neighborDistance < distances[neighbor] &&
+                           openList.contains(neighbor)) {
+                    distances[neighbor] = neighborDistance;
+                    openList.decreaseKey(neighbor, neighborDistance, neighborDistance);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Node with the largest distance that is not Integer.MAX_VALUE.
+     */
+    private static int findFarthest(int[] distances) {
+        int farthest = Graph.NO_NODE;
+        int farthestDistance = -1;
+        for (int node = 0; node < distances.length; ++node) {
+            if (distances[node] > farthestDistance && distances[node] != Integer.MAX_VALUE) {
+                farthest = node;
+                farthestDistance = distances[node];
+            }
+        }
+        return farthest;
+    }
+}
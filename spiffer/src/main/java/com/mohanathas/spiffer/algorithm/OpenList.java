@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+/**
+ * Priority queue of nodes ordered by their cost that is used for the open list of the search.
+ * Along with the cost, the distance to the start node is stored for every node. Both are
+ * non-negative fixed-point values in the units of Graph.STRAIGHT_COST.
+ *
+ * Implementations are expected to keep their storage when cleared so that they do not allocate
+ * when reused across searches.
+ */
+interface OpenList {
+    boolean isEmpty();
+
+    int size();
+
+    /**
+     * Removes all nodes from this open list.
+     */
+    void clear();
+
+    /**
+     * Checks if the specified node is in this open list.
+     *
+     * @param node Node to check.
+     * @return True if the node is in this open list.
+     */
+    boolean contains(int node);
+
+    /**
+     * Inserts the specified node into this open list.
+     *
+     * @param node Node to insert.
+     * @param cost Cost of the node.
+     * @param startDistance Distance to the start node from the node.
+     */
+    void add(int node, int cost, int startDistance);
+
+    /**
+     * Lowers the cost of a node in this open list.
+     *
+     * @param node Previously added node that is to be reordered.
+     * @param cost New cost of the node. This must not be greater than the previous cost.
+     * @param startDistance New distance to the start node from the node.
+     */
+    void decreaseKey(int node, int cost, int startDistance);
+
+    /**
+     * Retrieves, but does not remove, the node with the smallest cost.
+     *
+     * @return Node with the smallest cost, or NO_NODE if this open list is empty.
+     */
+    int peek();
+
+    /**
+     * Retrieves the start distance of the node with the smallest cost.
+     *
+     * @return Start distance of the node. Undefined if this open list is empty.
+     */
+    int peekStartDistance();
+
+    /**
+     * Retrieves and removes the node with the smallest cost.
+     *
+     * @return Node with the smallest cost, or NO_NODE if this open list is empty.
+     */
+    int poll();
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+/**
+ * Selects the data structure used for the open list of a PathFinder.
+ */
+public enum OpenListType {
+    /** Binary heap with O(log n) insertion and removal. */
+    BinaryHeap,
+
+    /**
+     * 4-ary heap with O(log n) insertion and removal. The heap is half as deep as the binary heap
+     * and the children of an element share a cache line.
+     */
+    QuaternaryHeap,
+
+    /** Pairing heap with O(1) insertion and decrease-key, and amortized O(log n) removal. */
+    PairingHeap,
+
+    /** Radix heap with amortized O(1) insertion and removal. */
+    RadixHeap;
+
+    OpenList create(TieBreaking tieBreaking) {
+        switch (this) {
+            case QuaternaryHeap: return new DaryHeapOpenList(4, tieBreaking);
+            case PairingHeap: return new PairingHeapOpenList(tieBreaking);
+            case RadixHeap: return new RadixHeapOpenList(tieBreaking);
+        }
+
+        return new DaryHeapOpenList(2, tieBreaking);
+    }
+}
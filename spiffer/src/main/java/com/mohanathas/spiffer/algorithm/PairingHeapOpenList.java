@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Pairing heap of nodes ordered by their cost. Insertion and decreaseKey() take constant time by
+ * simply melding a tree with the root, and the work is deferred to the two-pass merge done by
+ * poll().
+ *
+ * Instead of allocating a heap element per node, the tree links are stored in arrays indexed by
+ * the node. Each node links to its first child, its next sibling and its previous sibling (or
+ * parent, if it is the first child). Ties between nodes with equal costs are broken according to
+ * a TieBreaking policy.
+ */
+final class PairingHeapOpenList implements OpenList {
+    private final TieBreaking mTieBreaking;
+    private int mSequence = 0;
+
+    private int mRoot = Graph.NO_NODE;
+    private int mSize = 0;
+
+    /** Cost of each node combined with the secondary key of the tie-breaking policy. */
+    private long[] mKeys = new long[8];
+    private int[] mStartDistances = new int[8];
+    private int[] mChildren = new int[8];
+    private int[] mNextSiblings = new int[8];
+    private int[] mPrevious = new int[8];
+
+    /** Nodes stamped with the current generation are in the heap. */
+    private int[] mGenerations = new int[8];
+    private int mGeneration = 1;
+
+    /** Scratch space for the subtrees merged by poll(). */
+    private int[] mSubtrees = new int[8];
+
+    /**
+     * @param tieBreaking Policy for ordering nodes with equal costs.
+     */
+    public PairingHeapOpenList(TieBreaking tieBreaking) {
+        mTieBreaking = tieBreaking;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public void clear() {
+        mRoot = Graph.NO_NODE;
+        mSize = 0;
+        mSequence = 0;
+        ++mGeneration;
+        if (mGeneration == 0) {
+            Arrays.fill(mGenerations, 0);
+            mGeneration = 1;
+        }
+    }
+
+    @Override
+    public boolean contains(int node) {
+        return node >= 0 && node < mGenerations.length && mGenerations[node] == mGeneration;
+    }
+
+    @Override
+    public void add(int node, int cost, int startDistance) {
+        ensureNodeCapacity(node);
+
+        mGenerations[node] = mGeneration;
+        mKeys[node] = toKey(cost, startDistance);
+        mStartDistances[node] = startDistance;
+        mChildren[node] = Graph.NO_NODE;
+        mNextSiblings[node] = Graph.NO_NODE;
+        mPrevious[node] = Graph.NO_NODE;
+        mRoot = meld(mRoot, node);
+        ++mSize;
+    }
+
+    @Override
+    public void decreaseKey(int node, int cost, int startDistance) {
+        if (!contains(node)) {
+            throw new NoSuchElementException();
+        }
+
+        mKeys[node] = toKey(cost, startDistance);
+        mStartDistances[node] = startDistance;
+        if (node != mRoot) {
+            // Cut the subtree rooted at the node and meld it with the root.
+            final int previous = mPrevious[node];
+            final int next = mNextSiblings[node];
+            if (mChildren[previous] == node) {
+                mChildren[previous] = next;
+            } else {
+                mNextSiblings[previous] = next;
+            }
+            if (next != Graph.NO_NODE) {
+                mPrevious[next] = previous;
+            }
+
+            mNextSiblings[node] = Graph.NO_NODE;
+            mPrevious[node] = Graph.NO_NODE;
+            mRoot = meld(mRoot, node);
+        }
+    }
+
+    @Override
+    public int peek() {
+        return mRoot;
+    }
+
+    @Override
+    public int peekStartDistance() {
+        return mStartDistances[mRoot];
+    }
+
+    @Override
+    public int poll() {
+        final int node = mRoot;
+        if (node != Graph.NO_NODE) {
+            mGenerations[node] = 0;
+            mRoot = mergeSubtrees(mChildren[node]);
+            --mSize;
+        }
+        return node;
+    }
+
+    private long toKey(int cost, int startDistance) {
+        return TieBreaking.toKey(cost, mTieBreaking.secondaryKey(startDistance, mSequence++));
+    }
+
+    /**
+     * Melds two trees by making the root with the larger key the first child of the other.
+     *
+     * @return Root of the melded tree.
+     */
+    private int meld(int a, int b) {
+        if (a == Graph.NO_NODE) return b;
+        if (b == Graph.NO_NODE) return a;
+
+        if (mKeys[b] < mKeys[a]) {
+            final int temp = a;
+            a = b;
+            b = temp;
+        }
+
+        final int child = mChildren[a];
+        mNextSiblings[b] = child;
+        if (child != Graph.NO_NODE) {
+            mPrevious[child] = b;
+        }
+        mPrevious[b] = a;
+        mChildren[a] = b;
+        return a;
+    }
+
+    /**
+     * Merges a list of sibling subtrees into a single tree by first melding them pairwise from
+     * left to right and then melding the results from right to left.
+     *
+     * @param first First subtree in the sibling list.
+     * @return Root of the merged tree.
+     */
+    private int mergeSubtrees(int first) {
+        int count = 0;
+        int node = first;
+        while (node != Graph.NO_NODE) {
+            final int next = mNextSiblings[node];
+            mNextSiblings[node] = Graph.NO_NODE;
+            mPrevious[node] = Graph.NO_NODE;
+            if (count == mSubtrees.length) {
+                mSubtrees = Arrays.copyOf(mSubtrees, count * 2);
+            }
+            mSubtrees[count++] = node;
+            node = next;
+        }
+
+        if (count == 0) {
+            return Graph.NO_NODE;
+        }
+
+        int pairs = 0;
+        for (int i = 0; i + 1 < count; i += 2) {
+            mSubtrees[pairs++] = meld(mSubtrees[i], mSubtrees[i + 1]);
+        }
+        if (count % 2 != 0) {
+            mSubtrees[pairs++] = mSubtrees[count - 1];
+        }
+
+        int root = mSubtrees[pairs - 1];
+        for (int i = pairs - 2; i >= 0; --i) {
+            root = meld(mSubtrees[i], root);
+        }
+        return root;
+    }
+
+    private void ensureNodeCapacity(int node) {
+        if (node < mKeys.length) return;
+
+        final int capacity = Math.max(node + 1, mKeys.length * 2);
+        mKeys = Arrays.copyOf(mKeys, capacity);
+        mStartDistances = Arrays.copyOf(mStartDistances, capacity);
+        mChildren = Arrays.copyOf(mChildren, capacity);
+        mNextSiblings = Arrays.copyOf(mNextSiblings, capacity);
+        mPrevious = Arrays.copyOf(mPrevious, capacity);
+        mGenerations = Arrays.copyOf(mGenerations, capacity);
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * PathFinder implementation of parallel bidirectional A* (PNBA*, based on NBA* by Pijls and
+ * Post). The forward search runs on the calling thread and the backward search on a thread of an
+ * executor. Each side is a plain A* search towards its own target that only shares three things
+ * with the other side:
+ *
+ * - The cost of the best path through a node reached from both sides, as an atomic.
+ * - The smallest cost in its open list, which is a lower bound for the unexpanded nodes.
+ * - The distances of the nodes it has reached, in a lock-free SharedDistanceTable.
+ *
+ * A node is not expanded if every path through it must cost at least as much as the best path,
+ * judged either by its own cost or by the bound of the other side. A side stops once the
+ * smallest cost in its open list reaches the best path, which also stops the other side.
+ *
+ * If the executor has no idle thread, the forward search completes on its own and the backward
+ * search is skipped. Each search uses two SharedDistanceTables with an entry for every node of
+ * the graph.
+ */
+public class ParallelBidirectionalAStarPathFinder implements PathFinder {
+    private static final int NOT_STARTED = 0;
+    private static final int RUNNING = 1;
+    private static final int SKIPPED = 2;
+
+    /** Packed cost and node of the best path before one has been found. */
+    private static final long NO_MEETING = toMeeting(Integer.MAX_VALUE, Graph.NO_NODE);
+
+    private final Heuristic mHeuristic;
+    private final OpenListType mOpenListType;
+    private final TieBreaking mTieBreaking;
+    private final Executor mExecutor;
+
+    /**
+     * State of one direction of the search.
+     */
+    private static final class Side {
+        final SearchContext mContext;
+        final OpenList mOpenList;
+        final SharedDistanceTable mDistances;
+        final int mTargetNode;
+
+        /** Smallest cost in the open list. Only written by the thread searching this side. */
+        volatile int mBound = 0;
+
+        Side(SearchContext context, OpenList openList, int targetNode) {
+            mContext = context;
+            mOpenList = openList;
+            mDistances = context.beginSharedDistances();
+            mTargetNode = targetNode;
+        }
+    }
+
+    /**
+     * State shared by both sides.
+     */
+    private static final class SharedState {
+        /** Cost of the best path in the upper and its meeting node in the lower 32 bits. */
+        final AtomicLong mBest = new AtomicLong(NO_MEETING);
+        volatile boolean mFinished = false;
+
+        int getBestCost() {
+            return (int)(mBest.get() >>> 32);
+        }
+
+        void offer(int cost, int node) {
+            final long meeting = toMeeting(cost, node);
+            long best = mBest.get();
+            while (meeting < best && !mBest.compareAndSet(best, meeting)) {
+                best = mBest.get();
+            }
+        }
+    }
+
+    public ParallelBidirectionalAStarPathFinder(Heuristic heuristic) {
+        this(heuristic, OpenListType.BinaryHeap, TieBreaking.LargerStartDistance,
+             PathQueryTask.getDefaultPool());
+    }
+
+    /**
+     * @param executor Executor to run the backward searches on.
+     */
+    public ParallelBidirectionalAStarPathFinder(Heuristic heuristic, OpenListType openListType,
+                                                TieBreaking tieBreaking, Executor executor) {
+        mHeuristic = heuristic;
+        mOpenListType = openListType;
+        mTieBreaking = tieBreaking;
+        mExecutor = executor;
+    }
+
+    @Override
+    public List<Point> findPath(final Graph graph, Point startPoint, Point goalPoint) {
+        final int startNode = graph.getNode(startPoint);
+        final int goalNode = graph.getNode(goalPoint);
+        final SearchContext forwardContext = graph.beginSearch();
+        final SearchContext backwardContext = forwardContext.beginBackwardSearch();
+        final Side forward = new Side(
+            forwardContext, forwardContext.getOpenList(mOpenListType, mTieBreaking), goalNode);
+        final Side backward = new Side(
+            backwardContext, backwardContext.getOpenList(mOpenListType, mTieBreaking), startNode);
+        final SharedState shared = new SharedState();
+        start(graph, forward, startNode);
+        start(graph, backward, goalNode);
+        if (startNode == goalNode) {
+            shared.offer(0, startNode);
+        }
+
+        final AtomicInteger backwardState = new AtomicInteger(NOT_STARTED);
+        final AtomicReference<Throwable> backwardFailure = new AtomicReference<>();
+        final CountDownLatch backwardDone = new CountDownLatch(1);
+        try {
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!backwardState.compareAndSet(NOT_STARTED, RUNNING)) {
+                        return;
+                    }
+
+                    try {
+                        search(graph, backward, forward, shared);
+                    } catch (RuntimeException | Error e) {
+                        backwardFailure.set(e);
+                        shared.mFinished = true;
+                    } finally {
+                        backwardDone.countDown();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            backwardState.set(SKIPPED);
+        }
+
+        try {
+            search(graph, forward, backward, shared);
+        } finally {
+            shared.mFinished = true;
+            if (!backwardState.compareAndSet(NOT_STARTED, SKIPPED)) {
+                awaitUninterruptibly(backwardDone);
+            }
+        }
+
+        final Throwable failure = backwardFailure.get();
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException)failure;
+        } else if (failure instanceof Error) {
+            throw (Error)failure;
+        }
+
+        final int meetingNode = (int)shared.mBest.get();
+        if (meetingNode == Graph.NO_NODE) {
+            return null;
+        }
+
+        // Join the forward path to the meeting node with the backward path from it.
+        final List<Point> path =
+            forwardContext.getParentPoints(graph, forwardContext.find(meetingNode));
+        int index = backwardContext.find(meetingNode);
+        if (index != SearchContext.NO_INDEX) {
+            index = backwardContext.getParent(index);
+        }
+        while (index != SearchContext.NO_INDEX) {
+            path.add(graph.getPoint(backwardContext.getNode(index)));
+            index = backwardContext.getParent(index);
+        }
+        return path;
+    }
+
+    private static long toMeeting(int cost, int node) {
+        return ((long)cost << 32) | (node & 0xFFFFFFFFL);
+    }
+
+    private void start(Graph graph, Side side, int node) {
+        final int index = side.mContext.visit(node);
+        side.mContext.setStartDistance(index, 0);
+        side.mContext.setQueued(index);
+        side.mOpenList.add(index, 0, 0);
+        side.mDistances.set(node, 0);
+        side.mBound = heuristicCost(graph, node, side.mTargetNode);
+    }
+
+    private int heuristicCost(Graph graph, int node, int targetNode) {
+        return mHeuristic.cost(graph, node, targetNode);
+    }
+
+    /**
+     * Runs one side of the search until either side finishes.
+     */
+    private void search(Graph graph, Side side, Side other, SharedState shared) {
+        final SearchContext context = side.mContext;
+        final OpenList openList = side.mOpenList;
+        while (!shared.mFinished && !openList.isEmpty()) {
+            final int startDistance = openList.peekStartDistance();
+            final int index = openList.poll();
+            final int node = context.getNode(index);
+            context.setProcessed(index);
+
+            // A path through the node costs at least its own cost and at least the bound of the
+            // other side minus the heuristic distance covered by the other side.
+            final int bestCost = shared.getBestCost();
+            if (startDistance + heuristicCost(graph, node, side.mTargetNode) < bestCost &&
+                (long)startDistance + other.mBound -
+                    heuristicCost(graph, node, other.mTargetNode) < bestCost) {
+                expand(graph, side, other, shared, index, node, startDistance);
+            }
+
+            if (openList.isEmpty()) {
+                break;
+            }
+
+            final int bound = openList.peekStartDistance() + heuristicCost(
+                graph, context.getNode(openList.peek()), side.mTargetNode);
+            side.mBound = bound;
+            if (bound >= shared.getBestCost()) {
+                break;
+            }
+            context.checkCancellation();
+        }
+
+        shared.mFinished = true;
+    }
+
+    private void expand(Graph graph, Side side, Side other, SharedState shared, int index,
+                        int node, int startDistance) {
+        final SearchContext context = side.mContext;
+        final OpenList openList = side.mOpenList;
+        final int[] neighbors = context.getNeighborBuffer();
+        final int count = graph.findNodeNeighbors(node, neighbors);
+        for (int i = 0; i < count; ++i) {
+            final int neighbor = neighbors[i];
+            final int distance = startDistance + graph.getStepCost(node, neighbor);
+            final int neighborIndex = context.visit(neighbor);
+            if (context.isProcessed(neighborIndex) ||
+                context.getStartDistance(neighborIndex) <= distance) {
+                continue;
+            }
+
+            final int cost = distance + heuristicCost(graph, neighbor, side.mTargetNode);
+            context.setParent(neighborIndex, index);
+            context.setStartDistance(neighborIndex, distance);
+            if (context.isQueued(neighborIndex)) {
+                openList.decreaseKey(neighborIndex, cost, distance);
+            } else {
+                openList.add(neighborIndex, cost, distance);
+                context.setQueued(neighborIndex);
+            }
+
+            // Publish before reading the other side so that at least one side sees both
+            // distances of a node reached by both at the same time.
+            side.mDistances.set(neighbor, distance);
+            final int otherDistance = other.mDistances.get(neighbor);
+            if (otherDistance != Integer.MAX_VALUE) {
+                shared.offer(distance + otherDistance, neighbor);
+            }
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.DynamicArray;
+import com.mohanathas.spiffer.util.Point;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.WeakHashMap;
+
+/**
+ * Bounded cache of the paths found by PathFinders, used through CachingPathFinder. A path is
+ * cached under the graph, the PathFinder instance, the version of the graph, and the start and
+ * goal points. The PathFinder instance stands for its algorithm and heuristic, so queries only
+ * share paths if they use the same instance. Changing the walkable state of the graph increments
+ * its version, and the paths found before the change are removed by the next query on the graph
+ * with the same PathFinder. The graphs are only weakly referenced, so a cache does not keep
+ * graphs that are no longer used alive; their paths are evicted as the least recently used ones.
+ *
+ * The cache evicts the least recently used paths once it holds more than a number of paths or
+ * more than an estimated number of bytes. All methods are thread-safe.
+ *
+ * If sub-path matching is enabled, a query whose start and goal both lie on a cached path of the
+ * same graph and PathFinder is answered with the part of that path between them, in either
+ * direction. This is only correct for PathFinders that find shortest paths, as a part of a
+ * shortest path is a shortest path itself.
+ */
+public final class PathCache {
+    /** Estimated size of an entry and the map nodes that refer to it, without its points. */
+    private static final int ENTRY_BYTES = 160;
+
+    /** Estimated size of a point of a path. */
+    private static final int POINT_BYTES = 8;
+
+    /** Estimated size of the sub-path index of a point of a path. */
+    private static final int INDEX_POINT_BYTES = 64;
+
+    private final int mMaxEntries;
+    private final long mMaxBytes;
+    private final boolean mMatchSubPaths;
+
+    /** Entries from the least to the most recently used. */
+    private final LinkedHashMap<Key, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Scope of the current version of each graph and PathFinder that has entries. */
+    private final WeakHashMap<Graph, HashMap<PathFinder, Scope>> mScopes = new WeakHashMap<>();
+
+    private long mBytes = 0;
+    private long mHitCount = 0;
+    private long mMissCount = 0;
+
+    /**
+     * Entries of a PathFinder on a version of a graph, together with the index of the entries
+     * that contain each point for sub-path matching. The scope does not refer to the graph.
+     */
+    private static final class Scope {
+        /** Scopes of the graph, which contain this one under mFinder. */
+        final HashMap<PathFinder, Scope> mGraphScopes;
+        final PathFinder mFinder;
+        final int mVersion;
+        final HashSet<Key> mKeys = new HashSet<>();
+        final HashMap<Long, DynamicArray<Entry>> mIndex = new HashMap<>();
+
+        Scope(HashMap<PathFinder, Scope> graphScopes, PathFinder finder, int version) {
+            mGraphScopes = graphScopes;
+            mFinder = finder;
+            mVersion = version;
+        }
+    }
+
+    /**
+     * Start and goal points of a query within a scope.
+     */
+    private static final class Key {
+        final Scope mScope;
+        final long mStart;
+        final long mGoal;
+
+        Key(Scope scope, long start, long goal) {
+            mScope = scope;
+            mStart = start;
+            mGoal = goal;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            final Key other = (Key)obj;
+            return mScope == other.mScope && mStart == other.mStart && mGoal == other.mGoal;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(mScope) * 31 + hash(mStart)) * 31 + hash(mGoal);
+        }
+    }
+
+    /**
+     * Cached result of a query.
+     */
+    private static final class Entry {
+        final Key mKey;
+
+        /** Packed points of the path including the start point or null if there is no path. */
+        final long[] mPoints;
+
+        Entry(Key key, long[] points) {
+            mKey = key;
+            mPoints = points;
+        }
+
+        int indexOf(long point) {
+            for (int i = 0; i < mPoints.length; ++i) {
+                if (mPoints[i] == point) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Creates a cache without sub-path matching.
+     *
+     * @param maxEntries Number of paths to keep at most.
+     * @param maxBytes Estimated size of the paths to keep at most.
+     */
+    public PathCache(int maxEntries, long maxBytes) {
+        this(maxEntries, maxBytes, false);
+    }
+
+    /**
+     * @param maxEntries Number of paths to keep at most.
+     * @param maxBytes Estimated size of the paths to keep at most.
+     * @param matchSubPaths Whether queries may be answered with a part of a cached path.
+     */
+    public PathCache(int maxEntries, long maxBytes, boolean matchSubPaths) {
+        if (maxEntries < 0 || maxBytes < 0) {
+            throw new IllegalArgumentException("Cache limits must not be negative");
+        }
+
+        mMaxEntries = maxEntries;
+        mMaxBytes = maxBytes;
+        mMatchSubPaths = matchSubPaths;
+    }
+
+    /**
+     * Returns the cached path for a query or finds it with the PathFinder and caches it. The
+     * search runs without holding the lock of the cache, so concurrent misses for the same query
+     * all search.
+     *
+     * @return New list of new Points as returned by the PathFinder.
+     */
+    List<Point> findPath(PathFinder finder, Graph graph, Point startPoint, Point goalPoint) {
+        final int version = graph.getVersion();
+        final long start = pack(startPoint);
+        final long goal = pack(goalPoint);
+        synchronized (this) {
+            final Scope scope = getScope(graph, finder, version);
+            if (scope != null) {
+                final Entry entry = mEntries.get(new Key(scope, start, goal));
+                if (entry != null) {
+                    ++mHitCount;
+                    return entry.mPoints != null ? unpack(entry.mPoints, 1, entry.mPoints.length)
+                                                 : null;
+                }
+
+                final List<Point> path = mMatchSubPaths && graph.isWalkable(goalPoint)
+                    ? findSubPath(scope, start, goal) : null;
+                if (path != null) {
+                    ++mHitCount;
+                    return path;
+                }
+            }
+            ++mMissCount;
+        }
+
+        final List<Point> path = finder.findPath(graph, startPoint, goalPoint);
+        long[] points = null;
+        if (path != null) {
+            points = new long[path.size() + 1];
+            points[0] = start;
+            for (int i = 0; i < path.size(); ++i) {
+                points[i + 1] = pack(path.get(i));
+            }
+        }
+
+        synchronized (this) {
+            // Results of a graph changed during the search would never be looked up.
+            if (graph.getVersion() == version) {
+                add(getOrCreateScope(graph, finder, version), start, goal, points);
+            }
+        }
+        return path;
+    }
+
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * @return Number of cached paths.
+     */
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * @return Estimated size of the cached paths in bytes.
+     */
+    public synchronized long getByteCount() {
+        return mBytes;
+    }
+
+    /**
+     * Removes all paths and resets the counters.
+     */
+    public synchronized void clear() {
+        mEntries.clear();
+        mScopes.clear();
+        mBytes = 0;
+        mHitCount = 0;
+        mMissCount = 0;
+    }
+
+    /**
+     * Gets the scope of a version of a graph, removing the entries of an older version.
+     *
+     * @return Scope or null if there are no entries for the version.
+     */
+    private Scope getScope(Graph graph, PathFinder finder, int version) {
+        final HashMap<PathFinder, Scope> graphScopes = mScopes.get(graph);
+        final Scope scope = graphScopes != null ? graphScopes.get(finder) : null;
+        if (scope == null || scope.mVersion == version) {
+            return scope;
+        }
+
+        // The paths of an older version are never returned again. The scope is newer instead if
+        // the graph changed after the version was read, and is kept then.
+        if (scope.mVersion < version) {
+            for (Key key : scope.mKeys) {
+                mBytes -= getByteCount(mEntries.remove(key));
+            }
+            graphScopes.remove(finder);
+        }
+        return null;
+    }
+
+    private Scope getOrCreateScope(Graph graph, PathFinder finder, int version) {
+        final Scope scope = getScope(graph, finder, version);
+        if (scope != null) {
+            return scope;
+        }
+
+        HashMap<PathFinder, Scope> graphScopes = mScopes.get(graph);
+        if (graphScopes == null) {
+            graphScopes = new HashMap<>();
+            mScopes.put(graph, graphScopes);
+        }
+        final Scope newScope = new Scope(graphScopes, finder, version);
+        graphScopes.put(finder, newScope);
+        return newScope;
+    }
+
+    /**
+     * @return Part of a cached path from the start to the goal or null if there is none.
+     */
+    private List<Point> findSubPath(Scope scope, long start, long goal) {
+        final DynamicArray<Entry> entries = scope.mIndex.get(start);
+        if (entries == null) {
+            return null;
+        }
+
+        for (Entry entry : entries) {
+            final int goalIndex = entry.indexOf(goal);
+            if (goalIndex != -1) {
+                // Mark the entry as recently used.
+                mEntries.get(entry.mKey);
+                final int startIndex = entry.indexOf(start);
+                if (startIndex <= goalIndex) {
+                    return unpack(entry.mPoints, startIndex + 1, goalIndex + 1);
+                }
+
+                final DynamicArray<Point> path = unpack(entry.mPoints, goalIndex, startIndex);
+                path.reverse();
+                return path;
+            }
+        }
+        return null;
+    }
+
+    private void add(Scope scope, long start, long goal, long[] points) {
+        final Key key = new Key(scope, start, goal);
+        if (mEntries.containsKey(key)) {
+            return;
+        }
+
+        final Entry entry = new Entry(key, points);
+        mEntries.put(key, entry);
+        mBytes += getByteCount(entry);
+        scope.mKeys.add(key);
+        if (mMatchSubPaths && points != null) {
+            for (long point : points) {
+                DynamicArray<Entry> entries = scope.mIndex.get(point);
+                if (entries == null) {
+                    entries = new DynamicArray<>();
+                    scope.mIndex.put(point, entries);
+                }
+                entries.add(entry);
+            }
+        }
+
+        final Iterator<Entry> it = mEntries.values().iterator();
+        while (it.hasNext() && (mEntries.size() > mMaxEntries || mBytes > mMaxBytes)) {
+            final Entry eldest = it.next();
+            it.remove();
+            remove(eldest);
+        }
+    }
+
+    /**
+     * Updates the scope of an entry that has been removed from mEntries.
+     */
+    private void remove(Entry entry) {
+        final Scope scope = entry.mKey.mScope;
+        mBytes -= getByteCount(entry);
+        scope.mKeys.remove(entry.mKey);
+        if (scope.mKeys.isEmpty()) {
+            if (scope.mGraphScopes.get(scope.mFinder) == scope) {
+                scope.mGraphScopes.remove(scope.mFinder);
+            }
+            return;
+        }
+
+        if (mMatchSubPaths && entry.mPoints != null) {
+            for (long point : entry.mPoints) {
+                final DynamicArray<Entry> entries = scope.mIndex.get(point);
+                for (int i = 0; i < entries.size(); ++i) {
+                    if (entries.get(i) == entry) {
+                        entries.remove(i);
+                        break;
+                    }
+                }
+                if (entries.isEmpty()) {
+                    scope.mIndex.remove(point);
+                }
+            }
+        }
+    }
+
+    private long getByteCount(Entry entry) {
+        if (entry.mPoints == null) {
+            return ENTRY_BYTES;
+        }
+
+        final int pointBytes = mMatchSubPaths ? POINT_BYTES + INDEX_POINT_BYTES : POINT_BYTES;
+        return ENTRY_BYTES + (long)entry.mPoints.length * pointBytes;
+    }
+
+    /**
+     * Packs the coordinates of a point into a long, which holds any coordinate of a graph.
+     */
+    private static long pack(Point point) {
+        return (long)point.getX() << 32 | (point.getY() & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long point) {
+        return (int)(point ^ (point >>> 32));
+    }
+
+    /**
+     * @return List of new Points of the packed points from begin to end.
+     */
+    private static DynamicArray<Point> unpack(long[] points, int begin, int end) {
+        final DynamicArray<Point> path = new DynamicArray<>(Math.max(end - begin, 1));
+        for (int i = begin; i < end; ++i) {
+            path.add(new Point((int)(points[i] >> 32), (int)points[i]));
+        }
+        return path;
+    }
+}
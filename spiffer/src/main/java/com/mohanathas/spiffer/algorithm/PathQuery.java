@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+
+/**
+ * Pair of start and goal points to be answered by Graph.findPaths.
+ */
+public final class PathQuery {
+    private final Point mStartPoint;
+    private final Point mGoalPoint;
+
+    public PathQuery(Point startPoint, Point goalPoint) {
+        mStartPoint = startPoint;
+        mGoalPoint = goalPoint;
+    }
+
+    public Point getStartPoint() {
+        return mStartPoint;
+    }
+
+    public Point getGoalPoint() {
+        return mGoalPoint;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Answers a range of queries by splitting it in halves until the ranges are small enough to be
+ * searched sequentially. Idle workers steal the unsearched halves, so the load stays balanced
+ * even though the cost of the queries varies greatly.
+ *
+ * Each worker searches with the SearchContext of its own thread, so the search state is reused
+ * across the queries of a batch and across batches run on the same pool.
+ */
+final class PathQueryTask extends RecursiveAction {
+    /** Pool used when no pool is given to Graph.findPaths. */
+    private static final class DefaultPoolHolder {
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    /** Number of ranges per worker to split the queries into. */
+    private static final int RANGES_PER_WORKER = 8;
+
+    private final Graph mGraph;
+    private final PathFinder mFinder;
+    private final List<PathQuery> mQueries;
+    private final List<Point>[] mPaths;
+    private final int mBegin;
+    private final int mEnd;
+    private final int mThreshold;
+
+    /**
+     * @param paths Array to store the path of each query in.
+     * @param parallelism Number of workers that will run the task.
+     */
+    PathQueryTask(Graph graph, PathFinder finder, List<PathQuery> queries, List<Point>[] paths,
+                  int parallelism) {
+        this(graph, finder, queries, paths, 0, queries.size(),
+             Math.max(1, queries.size() / (parallelism * RANGES_PER_WORKER)));
+    }
+
+    private PathQueryTask(Graph graph, PathFinder finder, List<PathQuery> queries,
+                          List<Point>[] paths, int begin, int end, int threshold) {
+        mGraph = graph;
+        mFinder = finder;
+        mQueries = queries;
+        mPaths = paths;
+        mBegin = begin;
+        mEnd = end;
+        mThreshold = threshold;
+    }
+
+    static ForkJoinPool getDefaultPool() {
+        return DefaultPoolHolder.POOL;
+    }
+
+    @Override
+    protected void compute() {
+        if (mEnd - mBegin <= mThreshold) {
+            for (int i = mBegin; i < mEnd; ++i) {
+                final PathQuery query = mQueries.get(i);
+                mPaths[i] = mFinder.findPath(mGraph, query.getStartPoint(), query.getGoalPoint());
+            }
+            return;
+        }
+
+        final int middle = (mBegin + mEnd) >>> 1;
+        invokeAll(
+            new PathQueryTask(mGraph, mFinder, mQueries, mPaths, mBegin, middle, mThreshold),
+            new PathQueryTask(mGraph, mFinder, mQueries, mPaths, middle, mEnd, mThreshold));
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Radix heap of nodes ordered by their cost. A radix heap is a monotone priority queue: the cost
+ * of an inserted node must not be smaller than the cost of the last removed node, which holds for
+ * A* with a consistent heuristic. Nodes violating this (e.g. due to the inconsistent Manhattan
+ * heuristic) are treated as if their cost was equal to the last removed cost.
+ *
+ * The non-negative integer costs are used directly as keys. Bucket i > 0 holds the nodes whose key
+ * first differs from the last removed key at bit i - 1, and bucket 0 holds the nodes whose key
+ * equals it. When bucket 0 runs empty, the lowest
+ * non-empty bucket is redistributed into lower buckets. Every node moves down at most 32 times, so
+ * insertion and removal take amortized constant time.
+ *
+ * Bucket 0 is a heap that yields the node with the largest start distance first if the
+ * LargerStartDistance tie-breaking policy is used, and a stack otherwise. As nodes enter bucket 0
+ * when they are inserted or redistributed, the stack only approximates LastInFirstOut.
+ */
+final class RadixHeapOpenList implements OpenList {
+    private static final int BUCKET_COUNT = 33;
+
+    private final boolean mTieBreaking;
+    private final int[][] mBuckets = new int[BUCKET_COUNT][];
+    private final int[] mBucketSizes = new int[BUCKET_COUNT];
+    private int mSize = 0;
+    private int mLastKey = 0;
+
+    /** Key, start distance, bucket and position within the bucket of each node in the heap. */
+    private int[] mKeys = new int[8];
+    private int[] mStartDistances = new int[8];
+    private int[] mBucketIndices = new int[8];
+    private int[] mPositions = new int[8];
+
+    /**
+     * @param tieBreaking Policy for ordering nodes with equal costs.
+     */
+    public RadixHeapOpenList(TieBreaking tieBreaking) {
+        mTieBreaking = tieBreaking == TieBreaking.LargerStartDistance;
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            mBuckets[i] = new int[8];
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(mBucketSizes, 0);
+        mSize = 0;
+        mLastKey = 0;
+    }
+
+    @Override
+    public boolean contains(int node) {
+        if (node < 0 || node >= mKeys.length) {
+            return false;
+        }
+
+        final int bucket = mBucketIndices[node];
+        final int position = mPositions[node];
+        return position < mBucketSizes[bucket] && mBuckets[bucket][position] == node;
+    }
+
+    @Override
+    public void add(int node, int cost, int startDistance) {
+        ensureNodeCapacity(node);
+
+        mStartDistances[node] = startDistance;
+        insert(node, toKey(cost));
+        ++mSize;
+    }
+
+    @Override
+    public void decreaseKey(int node, int cost, int startDistance) {
+        if (!contains(node)) {
+            throw new NoSuchElementException();
+        }
+
+        removeFromBucket(node);
+        mStartDistances[node] = startDistance;
+        insert(node, toKey(cost));
+    }
+
+    @Override
+    public int peek() {
+        if (isEmpty()) {
+            return Graph.NO_NODE;
+        }
+
+        refill();
+        return top();
+    }
+
+    @Override
+    public int peekStartDistance() {
+        return mStartDistances[peek()];
+    }
+
+    @Override
+    public int poll() {
+        final int node = peek();
+        if (node != Graph.NO_NODE) {
+            removeFromBucket(node);
+            --mSize;
+        }
+        return node;
+    }
+
+    private int toKey(int cost) {
+        return Math.max(cost, mLastKey);
+    }
+
+    private int bucketIndex(int key) {
+        return 32 - Integer.numberOfLeadingZeros(key ^ mLastKey);
+    }
+
+    /**
+     * Ensures that bucket 0 is not empty by redistributing the lowest non-empty bucket.
+     */
+    private void refill() {
+        if (mBucketSizes[0] > 0) {
+            return;
+        }
+
+        int bucket = 1;
+        while (mBucketSizes[bucket] == 0) {
+            ++bucket;
+        }
+
+        final int[] nodes = mBuckets[bucket];
+        final int size = mBucketSizes[bucket];
+        int minKey = Integer.MAX_VALUE;
+        for (int i = 0; i < size; ++i) {
+            minKey = Math.min(minKey, mKeys[nodes[i]]);
+        }
+
+        // All nodes in the bucket move to lower buckets relative to the new minimum, so the
+        // bucket array itself is not modified while iterating.
+        mLastKey = minKey;
+        mBucketSizes[bucket] = 0;
+        for (int i = 0; i < size; ++i) {
+            insert(nodes[i], mKeys[nodes[i]]);
+        }
+    }
+
+    private int top() {
+        return mTieBreaking ? mBuckets[0][0] : mBuckets[0][mBucketSizes[0] - 1];
+    }
+
+    private void insert(int node, int key) {
+        mKeys[node] = key;
+        final int bucket = bucketIndex(key);
+        ensureBucketCapacity(bucket);
+
+        final int position = mBucketSizes[bucket]++;
+        mBucketIndices[node] = bucket;
+        if (bucket == 0 && mTieBreaking) {
+            siftUp(position, node);
+        } else {
+            place(bucket, position, node);
+        }
+    }
+
+    private void removeFromBucket(int node) {
+        final int bucket = mBucketIndices[node];
+        final int position = mPositions[node];
+        final int size = --mBucketSizes[bucket];
+        if (position == size) {
+            return;
+        }
+
+        final int lastNode = mBuckets[bucket][size];
+        if (bucket == 0 && mTieBreaking) {
+            if (position > 0 &&
+                mStartDistances[mBuckets[0][(position - 1) / 2]] < mStartDistances[lastNode]) {
+                siftUp(position, lastNode);
+            } else {
+                siftDown(position, lastNode);
+            }
+        } else {
+            place(bucket, position, lastNode);
+        }
+    }
+
+    /**
+     * Moves the hole at position i in bucket 0 towards the root until the given node can be
+     * placed in it.
+     */
+    private void siftUp(int i, int node) {
+        final int[] heap = mBuckets[0];
+        final int startDistance = mStartDistances[node];
+        while (i > 0) {
+            final int parent = (i - 1) / 2;
+            if (mStartDistances[heap[parent]] >= startDistance) {
+                break;
+            }
+            place(0, i, heap[parent]);
+            i = parent;
+        }
+        place(0, i, node);
+    }
+
+    /**
+     * Moves the hole at position i in bucket 0 towards the leaves until the given node can be
+     * placed in it.
+     */
+    private void siftDown(int i, int node) {
+        final int[] heap = mBuckets[0];
+        final int size = mBucketSizes[0];
+        final int startDistance = mStartDistances[node];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size &&
+                mStartDistances[heap[child + 1]] > mStartDistances[heap[child]]) {
+                ++child;
+            }
+            if (mStartDistances[heap[child]] <= startDistance) {
+                break;
+            }
+            place(0, i, heap[child]);
+            i = child;
+        }
+        place(0, i, node);
+    }
+
+    private void place(int bucket, int position, int node) {
+        mBuckets[bucket][position] = node;
+        mPositions[node] = position;
+    }
+
+    private void ensureBucketCapacity(int bucket) {
+        if (mBucketSizes[bucket] < mBuckets[bucket].length) return;
+
+        mBuckets[bucket] = Arrays.copyOf(mBuckets[bucket], mBuckets[bucket].length * 2);
+    }
+
+    private void ensureNodeCapacity(int node) {
+        if (node < mKeys.length) return;
+
+        final int capacity = Math.max(node + 1, mKeys.length * 2);
+        mKeys = Arrays.copyOf(mKeys, capacity);
+        mStartDistances = Arrays.copyOf(mStartDistances, capacity);
+        mBucketIndices = Arrays.copyOf(mBucketIndices, capacity);
+        mPositions = Arrays.copyOf(mPositions, capacity);
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.DynamicArray;
+import com.mohanathas.spiffer.util.Point;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mutable state of a search on a Graph. Every thread searching a graph gets its own context from
+ * Graph.beginSearch(), so the graph itself is only read during a search.
+ *
+ * Nodes touched by a search are given consecutive local indices, and the search state is stored
+ * in dense arrays indexed by them. The open lists are keyed by the local indices as well. The
+ * mapping from nodes to local indices is stored in pages of PAGE_SIZE nodes that are allocated
+ * when first touched, so a context only takes memory in proportion to the part of the graph that
+ * its searches have touched.
+ *
+ * The mapping is reset lazily by starting a new generation: a page stamped with an older
+ * generation is cleared when it is first touched by the current search.
+ */
+final class SearchContext {
+    private static final int PAGE_SHIFT = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /** Returned by find() for nodes that have not been touched by the current search. */
+    static final int NO_INDEX = -1;
+
+    /** Number of scratch buffers returned by getScratchBuffer(). */
+    static final int SCRATCH_BUFFER_COUNT = 2;
+
+    /** The cancellation token is polled when the number of expanded nodes is a multiple of this. */
+    private static final int CANCELLATION_CHECK_INTERVAL = 256;
+
+    private static final byte QUEUED = 1;
+    private static final byte PROCESSED = 2;
+
+    private final int mNodeCount;
+    private final int mLayoutVersion;
+    private final int[][] mPages;
+    private final int[] mPageGenerations;
+    private int mGeneration = 1;
+
+    /** Number of nodes touched by the current search. */
+    private int mCount = 0;
+
+    private int[] mNodes = new int[64];
+    private int[] mStartDistances = new int[64];
+    private int[] mParents = new int[64];
+    private byte[] mStates = new byte[64];
+
+    private int mExpandedCount = 0;
+
+    /** Open lists created for the PathFinders that have used this context. */
+    private final OpenList[] mOpenLists =
+        new OpenList[OpenListType.values().length * TieBreaking.values().length];
+
+    private final int[] mNeighbors = new int[8];
+
+    /** Arrays for the PathFinders that need scratch space besides the state of the nodes. */
+    private final int[][] mScratchBuffers = new int[SCRATCH_BUFFER_COUNT][];
+
+    /** Generation in which each id was marked by mark(). */
+    private int[] mMarks = new int[0];
+
+    /** Token of the running search or null if it cannot be cancelled. */
+    private CancellationToken mCancellationToken = null;
+
+    /** Context of the backward half of a bidirectional search, created when first needed. */
+    private SearchContext mBackwardContext = null;
+    private boolean mBackwardActive = false;
+
+    /** Distances published to the other side of a parallel search, created when first needed. */
+    private SharedDistanceTable mSharedDistances = null;
+
+    /**
+     * @param nodeCount Number of nodes, including the sentinel nodes, of the graph to search.
+     * @param layoutVersion Layout version of the graph to search.
+     */
+    SearchContext(int nodeCount, int layoutVersion) {
+        mNodeCount = nodeCount;
+        mLayoutVersion = layoutVersion;
+        final int pageCount = (nodeCount + PAGE_SIZE - 1) >>> PAGE_SHIFT;
+        mPages = new int[pageCount][];
+        mPageGenerations = new int[pageCount];
+    }
+
+    int getLayoutVersion() {
+        return mLayoutVersion;
+    }
+
+    /**
+     * Clears the state of the previous search. This takes time in proportion to the number of
+     * pages only when the generation counter wraps around.
+     */
+    void reset() {
+        ++mGeneration;
+        if (mGeneration == 0) {
+            // The counter wrapped around so old stamps could match again.
+            Arrays.fill(mPageGenerations, 0);
+            Arrays.fill(mMarks, 0);
+            mGeneration = 1;
+        }
+
+        mCount = 0;
+        mExpandedCount = 0;
+        mBackwardActive = false;
+    }
+
+    /**
+     * Gets a second context for searching backward from the goal, clearing it for a new search.
+     * The backward context is part of the current search until the next reset() and polls the
+     * same cancellation token.
+     */
+    SearchContext beginBackwardSearch() {
+        if (mBackwardContext == null) {
+            mBackwardContext = new SearchContext(mNodeCount, mLayoutVersion);
+        }
+
+        mBackwardContext.reset();
+        mBackwardContext.mCancellationToken = mCancellationToken;
+        mBackwardActive = true;
+        return mBackwardContext;
+    }
+
+    /**
+     * Gets an open list for a search, creating it if this context has not used one of the given
+     * type before. The open list is cleared.
+     */
+    OpenList getOpenList(OpenListType type, TieBreaking tieBreaking) {
+        final int index = type.ordinal() * TieBreaking.values().length + tieBreaking.ordinal();
+        OpenList openList = mOpenLists[index];
+        if (openList == null) {
+            openList = type.create(tieBreaking);
+            mOpenLists[index] = openList;
+        }
+
+        openList.clear();
+        return openList;
+    }
+
+    /**
+     * Gets the table for publishing distances during a parallel search, clearing it for a new
+     * search. The table takes memory in proportion to the size of the graph.
+     */
+    SharedDistanceTable beginSharedDistances() {
+        if (mSharedDistances == null) {
+            mSharedDistances = new SharedDistanceTable(mNodeCount);
+        }
+
+        mSharedDistances.reset();
+        return mSharedDistances;
+    }
+
+    /**
+     * @return Buffer of 8 elements for storing the neighbors of a node.
+     */
+    int[] getNeighborBuffer() {
+        return mNeighbors;
+    }
+
+    /**
+     * Gets one of the SCRATCH_BUFFER_COUNT arrays that are kept across searches, growing it to at
+     * least the given length. The contents are left from the previous search.
+     */
+    int[] getScratchBuffer(int slot, int length) {
+        int[] buffer = mScratchBuffers[slot];
+        if (buffer == null || buffer.length < length) {
+            buffer = new int[length];
+            mScratchBuffers[slot] = buffer;
+        }
+        return buffer;
+    }
+
+    /**
+     * Gets the local index of a node, initializing its search state if it has not been touched by
+     * the current search.
+     */
+    int visit(int node) {
+        final int[] page = getPage(node >>> PAGE_SHIFT);
+        int index = page[node & PAGE_MASK];
+        if (index == NO_INDEX) {
+            index = mCount++;
+            if (index == mNodes.length) {
+                grow();
+            }
+
+            mNodes[index] = node;
+            mStartDistances[index] = Integer.MAX_VALUE;
+            mParents[index] = NO_INDEX;
+            mStates[index] = 0;
+            page[node & PAGE_MASK] = index;
+        }
+        return index;
+    }
+
+    /**
+     * @return Local index of the node or NO_INDEX if it has not been touched by the current search.
+     */
+    int find(int node) {
+        final int pageIndex = node >>> PAGE_SHIFT;
+        if (node < 0 || node >= mNodeCount || mPageGenerations[pageIndex] != mGeneration) {
+            return NO_INDEX;
+        }
+        return mPages[pageIndex][node & PAGE_MASK];
+    }
+
+    int getNode(int index) {
+        return mNodes[index];
+    }
+
+    /**
+     * @return Local index of the parent or NO_INDEX if the node has no parent.
+     */
+    int getParent(int index) {
+        return mParents[index];
+    }
+
+    void setParent(int index, int parent) {
+        mParents[index] = parent;
+    }
+
+    int getStartDistance(int index) {
+        return mStartDistances[index];
+    }
+
+    void setStartDistance(int index, int distance) {
+        mStartDistances[index] = distance;
+    }
+
+    boolean isQueued(int index) {
+        return (mStates[index] & QUEUED) != 0;
+    }
+
+    void setQueued(int index) {
+        mStates[index] |= QUEUED;
+    }
+
+    boolean isProcessed(int index) {
+        return (mStates[index] & PROCESSED) != 0;
+    }
+
+    void setProcessed(int index) {
+        mStates[index] |= PROCESSED;
+        ++mExpandedCount;
+    }
+
+    /**
+     * Sets the token polled by checkCancellation(). The token is kept across reset().
+     */
+    void setCancellationToken(CancellationToken token) {
+        mCancellationToken = token;
+    }
+
+    /**
+     * Polls the cancellation token every CANCELLATION_CHECK_INTERVAL expanded nodes.
+     *
+     * @throws java.util.concurrent.CancellationException If the token has been cancelled.
+     */
+    void checkCancellation() {
+        if (mCancellationToken != null && mExpandedCount % CANCELLATION_CHECK_INTERVAL == 0) {
+            mCancellationToken.throwIfCancelled();
+        }
+    }
+
+    /**
+     * @return True if the node has been processed by the current search in either direction.
+     */
+    boolean wasProcessed(int node) {
+        final int index = find(node);
+        if (index != NO_INDEX && isProcessed(index)) {
+            return true;
+        }
+        return mBackwardActive && mBackwardContext.wasProcessed(node);
+    }
+
+    /**
+     * Marks an id, such as the index of a subgoal, for the current search. Like the mapping of
+     * the nodes, the marks are cleared by starting a new generation.
+     */
+    void mark(int id) {
+        if (id >= mMarks.length) {
+            mMarks = Arrays.copyOf(mMarks, Math.max(id + 1, 2 * mMarks.length));
+        }
+        mMarks[id] = mGeneration;
+    }
+
+    /**
+     * @return True if the id has been marked by the current search.
+     */
+    boolean isMarked(int id) {
+        return id < mMarks.length && mMarks[id] == mGeneration;
+    }
+
+    /**
+     * Adds the nodes expanded by earlier searches of a query that is made of several searches.
+     */
+    void addExpandedCount(int count) {
+        mExpandedCount += count;
+    }
+
+    /**
+     * @return Number of nodes processed by the current search in either direction.
+     */
+    int getExpandedCount() {
+        return mExpandedCount + (mBackwardActive ? mBackwardContext.getExpandedCount() : 0);
+    }
+
+    /**
+     * @return Number of nodes touched by the current search.
+     */
+    int getTouchedCount() {
+        return mCount;
+    }
+
+    /**
+     * @return A list of parents of the node excluding the furthest parent in reverse order.
+     */
+    List<Point> getParentPoints(Graph graph, int index) {
+        final DynamicArray<Point> list = new DynamicArray<>();
+        while (index != NO_INDEX) {
+            list.add(graph.getPoint(mNodes[index]));
+            index = mParents[index];
+        }
+
+        // Remove the start node.
+        list.remove(list.size() - 1);
+        list.reverse();
+        return list;
+    }
+
+    private int[] getPage(int pageIndex) {
+        int[] page = mPages[pageIndex];
+        if (mPageGenerations[pageIndex] != mGeneration) {
+            if (page == null) {
+                page = new int[PAGE_SIZE];
+                mPages[pageIndex] = page;
+            }
+
+            Arrays.fill(page, NO_INDEX);
+            mPageGenerations[pageIndex] = mGeneration;
+        }
+        return page;
+    }
+
+    private void grow() {
+        final int capacity = mNodes.length * 2;
+        mNodes = Arrays.copyOf(mNodes, capacity);
+        mStartDistances = Arrays.copyOf(mStartDistances, capacity);
+        mParents = Arrays.copyOf(mParents, capacity);
+        mStates = Arrays.copyOf(mStates, capacity);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.DynamicArray;
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded set of search contexts of a Graph that queries borrow for the duration of a search.
+ * Graph.findPath keeps a context for every thread that has searched the graph, which is wasted on
+ * threads that only run a single query, such as virtual threads. Searches through a pool instead
+ * use at most a fixed number of contexts between them, and further searches wait for one to be
+ * returned.
+ *
+ * The calling thread keeps its own context, so Graph.getExpandedCount and Graph.wasProcessed do
+ * not describe searches run through the pool.
+ */
+public final class SearchContextPool {
+    private final Graph mGraph;
+    private final Semaphore mPermits;
+
+    /** Contexts that are not borrowed. Contexts are created lazily, so there may be fewer. */
+    private final DynamicArray<SearchContext> mFreeContexts = new DynamicArray<>();
+
+    /**
+     * @param graph Graph to search.
+     * @param contextCount Number of searches that may run at the same time.
+     */
+    public SearchContextPool(Graph graph, int contextCount) {
+        if (contextCount <= 0) {
+            throw new IllegalArgumentException("Pool needs at least one context");
+        }
+
+        mGraph = graph;
+        mPermits = new Semaphore(contextCount);
+    }
+
+    /**
+     * Finds a path like Graph.findPath with a cancellation token, using a borrowed context. Waiting
+     * for a context counts towards the deadline of the token.
+     *
+     * @throws CancellationException If the token was cancelled before the search completed.
+     * @throws InterruptedException If the calling thread was interrupted while waiting for a
+     *         context.
+     */
+    public List<Point> findPath(PathFinder finder, Point startPoint, Point goalPoint,
+                                CancellationToken token) throws InterruptedException {
+        token.throwIfCancelled();
+        if (!mPermits.tryAcquire(token.getRemainingNanos(), TimeUnit.NANOSECONDS)) {
+            throw new CancellationException("Search deadline expired");
+        }
+
+        final SearchContext previous = mGraph.swapSearchContext(borrow());
+        try {
+            return mGraph.findPath(finder, startPoint, goalPoint, token);
+        } finally {
+            // The graph may have replaced the borrowed context after a layout change.
+            giveBack(mGraph.swapSearchContext(previous));
+            mPermits.release();
+        }
+    }
+
+    /**
+     * @return A free context or null to let the graph create one.
+     */
+    private synchronized SearchContext borrow() {
+        return mFreeContexts.isEmpty() ? null : mFreeContexts.remove(mFreeContexts.size() - 1);
+    }
+
+    private synchronized void giveBack(SearchContext context) {
+        if (context != null) {
+            mFreeContexts.add(context);
+        }
+    }
+}
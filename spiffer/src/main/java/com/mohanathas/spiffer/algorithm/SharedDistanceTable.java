@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distances to the start node published by one side of a parallel search for the other side to
+ * read. Only one thread writes to a table, but any thread may read it without locking.
+ *
+ * Each entry holds the generation in its upper and the distance in its lower 32 bits, so entries
+ * written during earlier searches are ignored without clearing the table. reset() must be called
+ * before the table is handed to the reading thread.
+ */
+final class SharedDistanceTable {
+    private final AtomicLongArray mEntries;
+    private int mGeneration = 0;
+
+    SharedDistanceTable(int nodeCount) {
+        mEntries = new AtomicLongArray(nodeCount);
+    }
+
+    void reset() {
+        ++mGeneration;
+        if (mGeneration == 0) {
+            // The counter wrapped around so old entries could match again.
+            for (int i = 0; i < mEntries.length(); ++i) {
+                mEntries.set(i, 0);
+            }
+            mGeneration = 1;
+        }
+    }
+
+    void set(int node, int distance) {
+        mEntries.set(node, ((long)mGeneration << 32) | distance);
+    }
+
+    /**
+     * @return Published distance of the node or Integer.MAX_VALUE if it has not been published.
+     */
+    int get(int node) {
+        final long entry = mEntries.get(node);
+        return (int)(entry >>> 32) == mGeneration ? (int)entry : Integer.MAX_VALUE;
+    }
+}
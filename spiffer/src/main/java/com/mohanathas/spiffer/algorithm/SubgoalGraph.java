@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Simple Subgoal Graph (SSG, by Uras, Koenig and Hernandez) of a Graph. The subgoals are the nodes
+ * at the corners of the obstacles, where shortest paths bend. Two subgoals are connected by an
+ * edge if one is directly h-reachable from the other, i.e. reachable by moving diagonally and
+ * then straight for the octile distance between them, without passing another subgoal.
+ *
+ * As diagonal moves may pass a single unwalkable node, a shortest path bends next to the end of
+ * an obstacle edge rather than diagonally across its corner. A walkable node is therefore a
+ * subgoal if a straight neighbor is unwalkable, but the nodes next to both on one side are
+ * walkable.
+ *
+ * The edges are found with the clearance scans of the original paper: the straight scans stop at
+ * the first subgoal, and the straight scans from the nodes of a diagonal may not reach further
+ * than those from the previous node of the diagonal.
+ */
+final class SubgoalGraph {
+    private final Graph mGraph;
+    private final int mVersion;
+
+    /** Subgoal index of each node or -1 if it is not a subgoal. */
+    private final int[] mSubgoalIndices;
+
+    /** Node of each subgoal. */
+    private final int[] mSubgoals;
+
+    /** Edges of subgoal i as subgoal indices from mEdges[mEdgeOffsets[i]] on. */
+    private final int[] mEdgeOffsets;
+    private final int[] mEdges;
+
+    /** Upper bound of the number of nodes found by findDirectlyReachable. */
+    private final int mMaxReachableCount;
+
+    /**
+     * Builds the subgoal graph for the current state of the graph.
+     */
+    SubgoalGraph(Graph graph, int version) {
+        mGraph = graph;
+        mVersion = version;
+        mSubgoalIndices = new int[graph.getNodeCount()];
+        Arrays.fill(mSubgoalIndices, -1);
+
+        // Each of the straight scans finds at most one node, and there are four straight scans
+        // from the node and two from each node of the four diagonals.
+        mMaxReachableCount = 8 * Math.min(graph.getWidth(), graph.getHeight()) + 8;
+
+        int[] subgoals = new int[16];
+        int subgoalCount = 0;
+        for (int y = 0; y < graph.getHeight(); ++y) {
+            for (int x = 0; x < graph.getWidth(); ++x) {
+                final int node = graph.getNode(x, y);
+                if (isCorner(node)) {
+                    if (subgoalCount == subgoals.length) {
+                        subgoals = Arrays.copyOf(subgoals, 2 * subgoalCount);
+                    }
+                    mSubgoalIndices[node] = subgoalCount;
+                    subgoals[subgoalCount++] = node;
+                }
+            }
+        }
+        mSubgoals = Arrays.copyOf(subgoals, subgoalCount);
+
+        // Collect the edges found from either end and add them in both directions.
+        long[] pairs = new long[16];
+        int pairCount = 0;
+        final int[] reachable = new int[mMaxReachableCount];
+        for (int i = 0; i < mSubgoals.length; ++i) {
+            final int reachableCount =
+                findDirectlyReachable(mSubgoals[i], Graph.NO_NODE, reachable, 0);
+            if (pairs.length < pairCount + 2 * reachableCount) {
+                pairs = Arrays.copyOf(pairs, Math.max(pairs.length * 2,
+                                                      pairCount + 2 * reachableCount));
+            }
+            for (int j = 0; j < reachableCount; ++j) {
+                final long other = mSubgoalIndices[reachable[j]];
+                pairs[pairCount++] = ((long)i << 32) | other;
+                pairs[pairCount++] = (other << 32) | i;
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+
+        mEdgeOffsets = new int[mSubgoals.length + 1];
+        mEdges = new int[pairCount];
+        int edgeCount = 0;
+        for (int i = 0; i < pairCount; ++i) {
+            if (i > 0 && pairs[i] == pairs[i - 1]) {
+                continue;
+            }
+            ++mEdgeOffsets[(int)(pairs[i] >>> 32) + 1];
+            mEdges[edgeCount++] = (int)pairs[i];
+        }
+        for (int i = 0; i < mSubgoals.length; ++i) {
+            mEdgeOffsets[i + 1] += mEdgeOffsets[i];
+        }
+    }
+
+    int getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * @return Subgoal index of the node or -1 if it is not a subgoal.
+     */
+    int getSubgoalIndex(int node) {
+        return mSubgoalIndices[node];
+    }
+
+    int getSubgoal(int index) {
+        return mSubgoals[index];
+    }
+
+    int getSubgoalCount() {
+        return mSubgoals.length;
+    }
+
+    /**
+     * @return Number of elements that the array passed to findDirectlyReachable needs after the
+     *     given count.
+     */
+    int getMaxReachableCount() {
+        return mMaxReachableCount;
+    }
+
+    int getEdgeBegin(int index) {
+        return mEdgeOffsets[index];
+    }
+
+    int getEdgeEnd(int index) {
+        return mEdgeOffsets[index + 1];
+    }
+
+    /**
+     * @return Subgoal index of the target of an edge.
+     */
+    int getEdgeTarget(int edge) {
+        return mEdges[edge];
+    }
+
+    private boolean isCorner(int node) {
+        final Graph g = mGraph;
+        if (!g.isWalkable(node)) {
+            return false;
+        }
+
+        for (int i = 0; i < 8; ++i) {
+            final int dx = Graph.DIRECTION_X[i];
+            final int dy = Graph.DIRECTION_Y[i];
+            if (dx != 0 && dy != 0) {
+                continue;
+            }
+
+            // The sides perpendicular to the unwalkable neighbor.
+            if (!g.isWalkable(g.getNeighbor(node, dx, dy)) &&
+                ((g.isWalkable(g.getNeighbor(node, dy, dx)) &&
+                  g.isWalkable(g.getNeighbor(node, dx + dy, dy + dx))) ||
+                 (g.isWalkable(g.getNeighbor(node, -dy, -dx)) &&
+                  g.isWalkable(g.getNeighbor(node, dx - dy, dy - dx))))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isTarget(int node, int extraTarget) {
+        return node == extraTarget || mSubgoalIndices[node] != -1;
+    }
+
+    private boolean canMove(int node, int dx, int dy) {
+        return (mGraph.getSuccessors(node) & Graph.getDirectionBit(dx, dy)) != 0;
+    }
+
+    /**
+     * Finds the subgoals that are directly h-reachable from a node.
+     *
+     * @param extraTarget Node that is treated as a subgoal, or NO_NODE.
+     * @param reachable Array to store the reachable nodes in from index count on, which needs
+     *        getMaxReachableCount() elements after count.
+     * @return Count plus the number of reachable nodes.
+     */
+    int findDirectlyReachable(int node, int extraTarget, int[] reachable, int count) {
+        final int[] clearances = new int[8];
+        for (int i = 0; i < 8; ++i) {
+            final int dx = Graph.DIRECTION_X[i];
+            final int dy = Graph.DIRECTION_Y[i];
+            if (dx == 0 || dy == 0) {
+                clearances[i] =
+                    scan(node, dx, dy, Integer.MAX_VALUE, extraTarget, reachable, count);
+                count += reachable[count] != Graph.NO_NODE ? 1 : 0;
+            }
+        }
+
+        for (int i = 0; i < 8; ++i) {
+            final int dx = Graph.DIRECTION_X[i];
+            final int dy = Graph.DIRECTION_Y[i];
+            if (dx == 0 || dy == 0) {
+                continue;
+            }
+
+            int maxX = clearances[Graph.getDirection(dx, 0)];
+            int maxY = clearances[Graph.getDirection(0, dy)];
+            int current = node;
+            while (canMove(current, dx, dy)) {
+                current = mGraph.getNeighbor(current, dx, dy);
+                if (isTarget(current, extraTarget)) {
+                    reachable[count++] = current;
+                    break;
+                }
+                maxX = scan(current, dx, 0, maxX, extraTarget, reachable, count);
+                count += reachable[count] != Graph.NO_NODE ? 1 : 0;
+                maxY = scan(current, 0, dy, maxY, extraTarget, reachable, count);
+                count += reachable[count] != Graph.NO_NODE ? 1 : 0;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Moves straight from a node until a target is reached, the way is blocked or the maximum
+     * number of steps has been taken. The target reached within the maximum, or NO_NODE if there
+     * is none, is stored at reachable[index].
+     *
+     * @return Number of steps taken before the target or the blocked node.
+     */
+    private int scan(int node, int dx, int dy, int maxSteps, int extraTarget, int[] reachable,
+                     int index) {
+        reachable[index] = Graph.NO_NODE;
+        int steps = 0;
+        while (steps < maxSteps && canMove(node, dx, dy)) {
+            node = mGraph.getNeighbor(node, dx, dy);
+            if (isTarget(node, extraTarget)) {
+                reachable[index] = node;
+                return steps;
+            }
+            ++steps;
+        }
+        return steps;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.DynamicArray;
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+
+/**
+ * PathFinder implementation of A* on the SubgoalGraph of the graph. The start and goal are
+ * connected to the subgoals directly h-reachable from them, and the resulting path of subgoals is
+ * expanded into a path of neighboring points. The SubgoalGraph is rebuilt by the first search
+ * after the graph has changed.
+ */
+public class SubgoalPathFinder extends AStarPathFinder {
+    public SubgoalPathFinder(Heuristic heuristic) {
+        super(heuristic);
+    }
+
+    public SubgoalPathFinder(Heuristic heuristic, OpenListType openListType) {
+        super(heuristic, openListType);
+    }
+
+    public SubgoalPathFinder(Heuristic heuristic, OpenListType openListType,
+                             TieBreaking tieBreaking) {
+        super(heuristic, openListType, tieBreaking);
+    }
+
+    @Override
+    public List<Point> findPath(Graph graph, Point startPoint, Point goalPoint) {
+        final int startNode = graph.getNode(startPoint);
+        final int goalNode = graph.getNode(goalPoint);
+        if (startNode == goalNode) {
+            return super.findPath(graph, startPoint, goalPoint);
+        }
+
+        // A path of the octile distance is a shortest path, so the search is not needed.
+        final SearchContext context = graph.beginSearch();
+        final DynamicArray<Point> directPath = new DynamicArray<>();
+        if (addMoves(graph, startNode, goalNode, true, directPath) ||
+            addMoves(graph, startNode, goalNode, false, directPath)) {
+            directPath.reverse();
+            return directPath;
+        }
+
+        // The edges of source i are stored in edges from edgeOffsets[i] to edgeOffsets[i + 1].
+        final SubgoalGraph subgoals = graph.getSubgoalGraph();
+        final int maxReachableCount = subgoals.getMaxReachableCount();
+        final int[] sources;
+        final int[] edgeOffsets;
+        final int[] edges;
+        if (graph.isWalkable(startNode)) {
+            sources = new int[] {startNode};
+            edgeOffsets = new int[2];
+            edges = context.getScratchBuffer(0, maxReachableCount);
+            edgeOffsets[1] = subgoals.findDirectlyReachable(startNode, goalNode, edges, 0);
+        } else {
+            // The corners of the obstacle containing the start do not account for the start, so
+            // connect its walkable neighbors instead.
+            final int[] neighbors = context.getNeighborBuffer();
+            final int count = graph.findNodeNeighbors(startNode, neighbors);
+            sources = new int[count + 1];
+            edgeOffsets = new int[count + 2];
+            edges = context.getScratchBuffer(0, count + count * maxReachableCount);
+            sources[0] = startNode;
+            System.arraycopy(neighbors, 0, edges, 0, count);
+            edgeOffsets[1] = count;
+            for (int i = 0; i < count; ++i) {
+                sources[i + 1] = neighbors[i];
+                edgeOffsets[i + 2] = neighbors[i] != goalNode
+                    ? subgoals.findDirectlyReachable(neighbors[i], goalNode, edges,
+                                                     edgeOffsets[i + 1])
+                    : edgeOffsets[i + 1];
+            }
+        }
+
+        if (graph.isWalkable(goalNode)) {
+            // Moves into the goal are only possible if it is walkable, and only from the subgoals
+            // directly h-reachable from it, which are marked for the search.
+            final int[] goalEdges = context.getScratchBuffer(1, maxReachableCount);
+            final int goalEdgeCount =
+                subgoals.findDirectlyReachable(goalNode, Graph.NO_NODE, goalEdges, 0);
+            for (int i = 0; i < goalEdgeCount; ++i) {
+                context.mark(subgoals.getSubgoalIndex(goalEdges[i]));
+            }
+        }
+
+        final OpenList openList = context.getOpenList(getOpenListType(), getTieBreaking());
+        final int startIndex = context.visit(startNode);
+        context.setStartDistance(startIndex, 0);
+        openList.add(startIndex, 0, 0);
+        context.setQueued(startIndex);
+
+        do {
+            final int startDistance = openList.peekStartDistance();
+            final int index = openList.poll();
+            final int node = context.getNode(index);
+            context.setProcessed(index);
+            context.checkCancellation();
+            if (node == goalNode) {
+                return expandPath(graph, context, index);
+            }
+
+            for (int i = 0; i < sources.length; ++i) {
+                if (sources[i] != node) {
+                    continue;
+                }
+                for (int j = edgeOffsets[i]; j < edgeOffsets[i + 1]; ++j) {
+                    relaxEdge(graph, context, openList, index, startDistance, node, edges[j],
+                              goalNode);
+                }
+            }
+
+            final int subgoal = subgoals.getSubgoalIndex(node);
+            if (subgoal != -1) {
+                for (int edge = subgoals.getEdgeBegin(subgoal);
+                     edge < subgoals.getEdgeEnd(subgoal); ++edge) {
+                    relaxEdge(graph, context, openList, index, startDistance, node,
+                              subgoals.getSubgoal(subgoals.getEdgeTarget(edge)), goalNode);
+                }
+                if (context.isMarked(subgoal)) {
+                    relaxEdge(graph, context, openList, index, startDistance, node, goalNode,
+                              goalNode);
+                }
+            }
+        } while (!openList.isEmpty());
+
+        return null;
+    }
+
+    private void relaxEdge(Graph graph, SearchContext context, OpenList openList, int index,
+                           int startDistance, int node, int neighbor, int goalNode) {
+        final int distance = startDistance + Graph.getOctileCost(
+            graph.getX(neighbor) - graph.getX(node), graph.getY(neighbor) - graph.getY(node));
+        relax(graph, context, openList, index, distance, neighbor, goalNode);
+    }
+
+    /**
+     * Expands the path of subgoals ending at a node into a path of neighboring points.
+     */
+    private static List<Point> expandPath(Graph graph, SearchContext context, int index) {
+        final DynamicArray<Point> path = new DynamicArray<>();
+        for (int i = index; context.getParent(i) != SearchContext.NO_INDEX;
+             i = context.getParent(i)) {
+            final int from = context.getNode(context.getParent(i));
+            final int to = context.getNode(i);
+            if (!addMoves(graph, from, to, true, path) && !addMoves(graph, from, to, false, path)) {
+                throw new IllegalStateException("Subgoal graph edge is not h-reachable");
+            }
+        }
+        path.reverse();
+        return path;
+    }
+
+    /**
+     * Adds the points of an h-reachable path between two nodes in reverse order, starting with
+     * the end node and excluding the start node.
+     *
+     * @param diagonalFirst Whether to move diagonally before moving straight.
+     * @return False if the path is blocked, in which case nothing is added.
+     */
+    private static boolean addMoves(Graph graph, int from, int to, boolean diagonalFirst,
+                                    DynamicArray<Point> path) {
+        final int dx = graph.getX(to) - graph.getX(from);
+        final int dy = graph.getY(to) - graph.getY(from);
+        final int diagonalSteps = Math.min(Math.abs(dx), Math.abs(dy));
+        final int straightSteps = Math.max(Math.abs(dx), Math.abs(dy)) - diagonalSteps;
+        final int diagonalBit = Graph.getDirectionBit(Integer.signum(dx), Integer.signum(dy));
+        final int straightBit = Math.abs(dx) > Math.abs(dy)
+            ? Graph.getDirectionBit(Integer.signum(dx), 0)
+            : Graph.getDirectionBit(0, Integer.signum(dy));
+        final int total = diagonalSteps + straightSteps;
+        final int[] nodes = new int[total];
+        int node = from;
+        for (int step = 0; step < total; ++step) {
+            final boolean diagonal = diagonalFirst ? step < diagonalSteps
+                                                   : step >= straightSteps;
+            final int bit = diagonal ? diagonalBit : straightBit;
+            if ((graph.getSuccessors(node) & bit) == 0) {
+                return false;
+            }
+            node = graph.getSuccessor(node, bit);
+            nodes[step] = node;
+        }
+
+        for (int step = total - 1; step >= 0; --step) {
+            path.add(graph.getPoint(nodes[step]));
+        }
+        return true;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+/**
+ * Selects which of the nodes with equal costs the open list of a PathFinder yields first. On open
+ * maps, many nodes share the cost of the optimal path, so the choice greatly affects how many of
+ * them are expanded before the goal is reached.
+ */
+public enum TieBreaking {
+    /** Nodes with equal costs are yielded in an unspecified order. */
+    None {
+        @Override
+        int secondaryKey(int startDistance, int sequence) {
+            return 0;
+        }
+    },
+
+    /**
+     * Nodes with larger start distances are yielded first. As the costs are exact, this is the
+     * same as preferring nodes with smaller heuristic distances to the goal.
+     */
+    LargerStartDistance {
+        @Override
+        int secondaryKey(int startDistance, int sequence) {
+            return ~startDistance;
+        }
+    },
+
+    /** The most recently inserted or updated node is yielded first. */
+    LastInFirstOut {
+        @Override
+        int secondaryKey(int startDistance, int sequence) {
+            return ~sequence;
+        }
+    };
+
+    /**
+     * Gets the key that orders nodes with equal costs. Keys are compared as unsigned integers and
+     * smaller keys come first.
+     *
+     * @param startDistance Non-negative distance to the start node from the node.
+     * @param sequence Number of insertions and updates before this one since the open list was
+     *                 last cleared.
+     */
+    abstract int secondaryKey(int startDistance, int sequence);
+
+    /**
+     * Combines a cost and a secondary key into a single key that can be compared as a long.
+     */
+    static long toKey(int cost, int secondaryKey) {
+        return ((long)cost << 32) | (secondaryKey & 0xFFFFFFFFL);
+    }
+}
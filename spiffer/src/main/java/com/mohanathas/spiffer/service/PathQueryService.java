@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.service;
+
+import com.mohanathas.spiffer.algorithm.CancellationToken;
+import com.mohanathas.spiffer.algorithm.Graph;
+import com.mohanathas.spiffer.algorithm.PathFinder;
+import com.mohanathas.spiffer.algorithm.PathQuery;
+import com.mohanathas.spiffer.algorithm.SearchContextPool;
+import com.mohanathas.spiffer.util.Point;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Answers path queries on a graph by running each query on its own virtual thread. Blocked
+ * callers only hold on to a virtual thread, so tens of thousands of queries can be in flight
+ * without sizing a thread pool. The searches themselves are scheduled on the carrier threads of
+ * the JVM, one per processor by default.
+ *
+ * A virtual thread only runs a single query, so the searches borrow their search contexts from a
+ * SearchContextPool instead of getting one per thread from the graph. This bounds the memory of
+ * the contexts by the number of searches that run at the same time, and queries beyond that wait
+ * for a context.
+ *
+ * Every query has a deadline that covers both the time spent waiting for a context and a carrier
+ * thread, and the search itself. The graph must not be modified while the service is running
+ * queries.
+ *
+ * This class requires Java 21 and is only built by the <tt>jdk21</tt> profile.
+ */
+public final class PathQueryService implements AutoCloseable {
+    private final PathFinder mFinder;
+    private final SearchContextPool mContexts;
+    private final ExecutorService mExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Creates a service with a search context for each available processor.
+     *
+     * @param graph Graph to search.
+     * @param finder A PathFinder instance used for all queries.
+     */
+    public PathQueryService(Graph graph, PathFinder finder) {
+        this(graph, finder, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param graph Graph to search.
+     * @param finder A PathFinder instance used for all queries.
+     * @param contextCount Number of searches that run at the same time.
+     */
+    public PathQueryService(Graph graph, PathFinder finder, int contextCount) {
+        mFinder = finder;
+        mContexts = new SearchContextPool(graph, contextCount);
+    }
+
+    /**
+     * Starts answering a query. Cancelling the returned future cancels the search as well.
+     *
+     * @param query Start and goal points.
+     * @param timeout Time from now until the search is given up.
+     * @return Future of the path, which is <tt>null</tt> if there is none. If the deadline passes,
+     *         the future fails with a CancellationException.
+     */
+    public Future<List<Point>> submit(PathQuery query, Duration timeout) {
+        final CancellationToken token =
+            new CancellationToken(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        final FutureTask<List<Point>> task = new FutureTask<>(() -> mContexts.findPath(
+                mFinder, query.getStartPoint(), query.getGoalPoint(), token)) {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                token.cancel();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        mExecutor.execute(task);
+        return task;
+    }
+
+    /**
+     * Answers a query, blocking until the path is found or the deadline passes.
+     *
+     * @param query Start and goal points.
+     * @param timeout Time from now until the search is given up.
+     * @return List of Points if a path was found or <tt>null</tt> otherwise.
+     * @throws TimeoutException If the deadline passed before the search completed.
+     * @throws InterruptedException If the calling thread was interrupted while waiting. The search
+     *         is cancelled.
+     */
+    public List<Point> findPath(PathQuery query, Duration timeout)
+            throws TimeoutException, InterruptedException {
+        final Future<List<Point>> future = submit(query, timeout);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                throw new TimeoutException(e.getCause().getMessage());
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Stops accepting queries and waits for the running ones to complete.
+     */
+    @Override
+    public void close() {
+        mExecutor.close();
+    }
+}
@@ -68,7 +68,8 @@ public class GraphPanel extends JPanel implements MouseInputListener, MouseMotio
     public void mousePressed(MouseEvent e) {
         final Point point = panelPointToGraphPoint(e.getPoint());
 
-        // Get rid of the solution line and the visited boxes.
+        // Get rid of the solution line and the visited boxes. The state that D* Lite keeps in the
+        // graph is not affected, so it repairs its last search after the edit.
         mSolutionPoints = null;
         mGraph.reset();
 
@@ -9,10 +9,16 @@
 package com.mohanathas.spiffer.ui;
 
 import com.mohanathas.spiffer.algorithm.AStarPathFinder;
+import com.mohanathas.spiffer.algorithm.BidirectionalAStarPathFinder;
+import com.mohanathas.spiffer.algorithm.ContractionHierarchyPathFinder;
+import com.mohanathas.spiffer.algorithm.DStarLitePathFinder;
 import com.mohanathas.spiffer.algorithm.DijkstraPathFinder;
 import com.mohanathas.spiffer.algorithm.Heuristic;
+import com.mohanathas.spiffer.algorithm.HierarchicalPathFinder;
 import com.mohanathas.spiffer.algorithm.JumpPointPathFinder;
+import com.mohanathas.spiffer.algorithm.JumpPointPlusPathFinder;
 import com.mohanathas.spiffer.algorithm.PathFinder;
+import com.mohanathas.spiffer.algorithm.SubgoalPathFinder;
 import com.mohanathas.spiffer.util.SettingManager;
 import java.awt.BorderLayout;
 import java.awt.Container;
@@ -101,6 +107,8 @@ public class MainFrame extends JFrame {
                     case "Chebyshev": heuristic = Heuristic.Chebyshev; break;
                     case "Euclidean": heuristic = Heuristic.Euclidean; break;
                     case "Manhattan": heuristic = Heuristic.Manhattan; break;
+                    case "Octile":    heuristic = Heuristic.Octile; break;
+                    case "Landmarks": heuristic = Heuristic.Landmarks; break;
                 }
 
                 PathFinder pathFinder = null;
@@ -108,6 +116,14 @@ public class MainFrame extends JFrame {
                     case "Dijkstra": pathFinder = new DijkstraPathFinder(); break;
                     case "A*":       pathFinder = new AStarPathFinder(heuristic); break;
                     case "JPS":      pathFinder = new JumpPointPathFinder(heuristic); break;
+                    case "JPS+":     pathFinder = new JumpPointPlusPathFinder(heuristic); break;
+                    case "Bidirectional A*":
+                        pathFinder = new BidirectionalAStarPathFinder(heuristic);
+                        break;
+                    case "HPA*":     pathFinder = new HierarchicalPathFinder(heuristic); break;
+                    case "SSG":      pathFinder = new SubgoalPathFinder(heuristic); break;
+                    case "CH":       pathFinder = new ContractionHierarchyPathFinder(); break;
+                    case "D* Lite":  pathFinder = new DStarLitePathFinder(heuristic); break;
                 }
 
                 final float length = mGraphPanel.findPath(pathFinder);
@@ -123,17 +139,21 @@ public class MainFrame extends JFrame {
             }
         });
 
-        mAlgorithmComboBox = new JComboBox(new String[] { "Dijkstra", "A*", "JPS" });
+        mAlgorithmComboBox = new JComboBox(
+            new String[] { "Dijkstra", "A*", "JPS", "JPS+", "Bidirectional A*", "HPA*",
+                           "SSG", "CH", "D* Lite" });
         mAlgorithmComboBox.addItemListener(new ItemListener() {
             @Override
             public void itemStateChanged(ItemEvent e) {
                 if (e.getStateChange() == ItemEvent.SELECTED) {
-                    mHeuristicComboBox.setVisible(!e.getItem().equals("Dijkstra"));
+                    mHeuristicComboBox.setVisible(!e.getItem().equals("Dijkstra") &&
+                                                  !e.getItem().equals("CH"));
                 }
             }
         });
 
-        mHeuristicComboBox = new JComboBox(new String[] { "Chebyshev", "Euclidean", "Manhattan" });
+        mHeuristicComboBox = new JComboBox(
+            new String[] { "Chebyshev", "Euclidean", "Manhattan", "Octile", "Landmarks" });
         mHeuristicComboBox.setVisible(false);
 
         final JPanel buttonPane = new JPanel(new FlowLayout(FlowLayout.LEFT));
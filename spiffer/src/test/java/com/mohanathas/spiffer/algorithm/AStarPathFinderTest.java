@@ -9,6 +9,9 @@
 package com.mohanathas.spiffer.algorithm;
 
 import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -32,4 +35,220 @@ public class AStarPathFinderTest extends PathFinderTestBase {
         assertNotNull(g.findPath(new AStarPathFinder(Heuristic.Euclidean), start, end));
         assertProcessedCountEquals(5, g);
     }
+
+    @Test
+    public void testOctileHeuristicProcessesFewerNodes() {
+        final Random random = new Random(2);
+        final int[][] ints = new int[64][64];
+        for (int y = 0; y < ints.length; ++y) {
+            for (int x = 0; x < ints[y].length; ++x) {
+                ints[y][x] = random.nextInt(100) < 20 ? 0 : 1;
+            }
+        }
+        final Graph g = Graph.createFromIntArray(ints);
+        final Heuristic[] heuristics = {
+            Heuristic.Chebyshev, Heuristic.Euclidean, Heuristic.Octile
+        };
+        final int[] processedCounts = new int[heuristics.length];
+        for (int i = 0; i < 50; ++i) {
+            final Point start = new Point(random.nextInt(64), random.nextInt(64));
+            final Point goal = new Point(random.nextInt(64), random.nextInt(64));
+            g.setWalkable(start, true);
+            g.setWalkable(goal, true);
+            for (int j = 0; j < heuristics.length; ++j) {
+                g.findPath(new AStarPathFinder(heuristics[j]), start, goal);
+                processedCounts[j] += countProcessed(g);
+            }
+        }
+
+        assertTrue(processedCounts[2] < processedCounts[1]);
+        assertTrue(processedCounts[1] < processedCounts[0]);
+    }
+
+    @Test
+    public void testLandmarksHeuristicProcessesFewerNodesInMazes() {
+        final Random random = new Random(4);
+        final Graph g = createMaze(63, 63, random);
+        final PathFinder octile = new AStarPathFinder(Heuristic.Octile);
+        final PathFinder landmarks = new AStarPathFinder(Heuristic.Landmarks);
+        int octileCount = 0;
+        int landmarksCount = 0;
+        for (int i = 0; i < 50; ++i) {
+            final Point start = new Point(2 * random.nextInt(32), 2 * random.nextInt(32));
+            final Point goal = new Point(2 * random.nextInt(32), 2 * random.nextInt(32));
+            final List<Point> expected = g.findPath(octile, start, goal);
+            octileCount += countProcessed(g);
+            final List<Point> path = g.findPath(landmarks, start, goal);
+            landmarksCount += countProcessed(g);
+            assertEquals(Graph.calculatePathLength(start, expected),
+                         Graph.calculatePathLength(start, path), 0.01f);
+        }
+
+        assertTrue(landmarksCount < octileCount / 2);
+    }
+
+    /**
+     * Creates a maze of cells on the even coordinates connected by a randomized depth-first
+     * search. The diagonal neighbors of the cells are walls, so diagonal moves cannot cut through.
+     */
+    private static Graph createMaze(int width, int height, Random random) {
+        final Graph g = new Graph(width, height);
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                g.setWalkable(x, y, false);
+            }
+        }
+
+        final int[] stack = new int[width * height];
+        int size = 0;
+        stack[size++] = 0;
+        g.setWalkable(0, 0, true);
+        final int[] directions = {2, 0, -2, 0, 0, 2, 0, -2};
+        while (size > 0) {
+            final int x = stack[size - 1] % width;
+            final int y = stack[size - 1] / width;
+            final int first = random.nextInt(4);
+            boolean moved = false;
+            for (int i = 0; i < 4 && !moved; ++i) {
+                final int d = (first + i) % 4;
+                final int nx = x + directions[2 * d];
+                final int ny = y + directions[2 * d + 1];
+                if (nx >= 0 && ny >= 0 && nx < width && ny < height &&
+                    !g.isWalkable(nx, ny)) {
+                    g.setWalkable((x + nx) / 2, (y + ny) / 2, true);
+                    g.setWalkable(nx, ny, true);
+                    stack[size++] = ny * width + nx;
+                    moved = true;
+                }
+            }
+            if (!moved) {
+                --size;
+            }
+        }
+        return g;
+    }
+
+    @Test
+    public void testTieBreaking() {
+        final Graph g = new Graph(32, 32);
+        final Point start = new Point(2, 3);
+        final Point goal = new Point(29, 20);
+        final AStarPathFinder finder = new AStarPathFinder(
+            Heuristic.Euclidean, OpenListType.BinaryHeap, TieBreaking.LargerStartDistance);
+        assertNotNull(g.findPath(finder, start, goal));
+        assertEquals(countProcessed(g), g.getExpandedCount());
+        final int expandedCount = g.getExpandedCount();
+
+        for (TieBreaking tieBreaking : TieBreaking.values()) {
+            for (OpenListType type : OpenListType.values()) {
+                final AStarPathFinder other =
+                    new AStarPathFinder(Heuristic.Euclidean, type, tieBreaking);
+                final List<Point> path = g.findPath(other, start, goal);
+                assertEquals(27 + 17 * 0.4142f, Graph.calculatePathLength(start, path), 0.01f);
+                if (tieBreaking == TieBreaking.LargerStartDistance) {
+                    assertEquals(expandedCount, g.getExpandedCount());
+                } else {
+                    assertTrue(g.getExpandedCount() >= expandedCount);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentSearches() throws InterruptedException {
+        final Random random = new Random(3);
+        final int[][] ints = new int[64][64];
+        for (int y = 0; y < ints.length; ++y) {
+            for (int x = 0; x < ints[y].length; ++x) {
+                ints[y][x] = random.nextInt(100) < 25 ? 0 : 1;
+            }
+        }
+        final Graph g = Graph.createFromIntArray(ints);
+        final Point[] queries = new Point[200];
+        for (int i = 0; i < queries.length; ++i) {
+            queries[i] = new Point(random.nextInt(64), random.nextInt(64));
+            g.setWalkable(queries[i], true);
+        }
+
+        final PathFinder finder = new JumpPointPathFinder(Heuristic.Octile);
+        final float[] expected = new float[queries.length / 2];
+        for (int i = 0; i < expected.length; ++i) {
+            final List<Point> path = g.findPath(finder, queries[2 * i], queries[2 * i + 1]);
+            expected[i] = path != null ? Graph.calculatePathLength(queries[2 * i], path) : -1.0f;
+        }
+
+        final AtomicReference<AssertionError> failure = new AtomicReference<>();
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int round = 0; round < 5; ++round) {
+                            for (int i = 0; i < expected.length; ++i) {
+                                final Point start = queries[2 * i];
+                                final List<Point> path =
+                                    g.findPath(finder, start, queries[2 * i + 1]);
+                                assertEquals(expected[i], path != null
+                                    ? Graph.calculatePathLength(start, path) : -1.0f, 0.001f);
+                            }
+                        }
+                    } catch (AssertionError e) {
+                        failure.set(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    @Test
+    public void testOpenListTypes() {
+        final Random random = new Random(1);
+        final int[][] ints = new int[32][32];
+        for (int y = 0; y < ints.length; ++y) {
+            for (int x = 0; x < ints[y].length; ++x) {
+                ints[y][x] = random.nextInt(100) < 30 ? 0 : 1;
+            }
+        }
+        final Graph g = Graph.createFromIntArray(ints);
+        final PathFinder reference = new DijkstraPathFinder();
+
+        for (OpenListType type : OpenListType.values()) {
+            final PathFinder[] finders = {
+                new DijkstraPathFinder(type),
+                new AStarPathFinder(Heuristic.Euclidean, type, TieBreaking.None),
+                new AStarPathFinder(Heuristic.Octile, type, TieBreaking.LastInFirstOut),
+                new AStarPathFinder(Heuristic.Euclidean, type),
+                new AStarPathFinder(Heuristic.Octile, type),
+                new AStarPathFinder(Heuristic.Landmarks, type),
+                new JumpPointPathFinder(Heuristic.Euclidean, type),
+                new JumpPointPathFinder(Heuristic.Octile, type),
+                new JumpPointPathFinder(Heuristic.Landmarks, type)
+            };
+            for (int i = 0; i < 50; ++i) {
+                final Point start = new Point(random.nextInt(32), random.nextInt(32));
+                final Point goal = new Point(random.nextInt(32), random.nextInt(32));
+                g.setWalkable(start, true);
+                g.setWalkable(goal, true);
+                final List<Point> expected = g.findPath(reference, start, goal);
+                for (PathFinder finder : finders) {
+                    final List<Point> path = g.findPath(finder, start, goal);
+                    if (expected == null) {
+                        assertNull(path);
+                    } else {
+                        assertEquals(Graph.calculatePathLength(start, expected),
+                                     Graph.calculatePathLength(start, path), 0.01f);
+                    }
+                }
+            }
+        }
+    }
 }
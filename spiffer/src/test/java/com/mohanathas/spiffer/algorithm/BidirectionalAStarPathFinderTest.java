@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the BidirectionalAStarPathFinder class.
+ */
+public class BidirectionalAStarPathFinderTest extends PathFinderTestBase {
+    public BidirectionalAStarPathFinderTest() {
+        super(new BidirectionalAStarPathFinder(Heuristic.Octile));
+    }
+
+    @Test
+    public void testSamePoint() {
+        final Graph g = new Graph(3, 3);
+        final List<Point> path = g.findPath(mPathFinder, new Point(1, 1), new Point(1, 1));
+        assertNotNull(path);
+        assertTrue(path.isEmpty());
+    }
+
+    @Test
+    public void testPathIsConnected() {
+        final Graph g = Graph.createFromIntArray(new int[][] {
+            {1, 1, 1, 1, 1, 1, 1},
+            {1, 0, 0, 0, 0, 0, 1},
+            {1, 1, 1, 1, 1, 0, 1},
+            {0, 0, 0, 0, 1, 0, 1},
+            {1, 1, 1, 1, 1, 0, 1}});
+        final Point start = new Point(0, 4);
+        final Point goal = new Point(6, 4);
+        assertValidPath(g, start, goal, g.findPath(mPathFinder, start, goal));
+    }
+
+    @Test
+    public void testOptimality() {
+        final Random random = new Random(4);
+        final PathFinder[] finders = {
+            new BidirectionalAStarPathFinder(Heuristic.Zero),
+            new BidirectionalAStarPathFinder(Heuristic.Euclidean),
+            new BidirectionalAStarPathFinder(Heuristic.Octile, OpenListType.RadixHeap),
+            new BidirectionalAStarPathFinder(Heuristic.Landmarks),
+            new BidirectionalAStarPathFinder(
+                Heuristic.Octile, OpenListType.PairingHeap, TieBreaking.None)
+        };
+        for (int wallPercentage = 0; wallPercentage <= 40; wallPercentage += 10) {
+            final int[][] ints = new int[40][40];
+            for (int y = 0; y < ints.length; ++y) {
+                for (int x = 0; x < ints[y].length; ++x) {
+                    ints[y][x] = random.nextInt(100) < wallPercentage ? 0 : 1;
+                }
+            }
+            final Graph g = Graph.createFromIntArray(ints);
+
+            for (int i = 0; i < 40; ++i) {
+                final Point start = new Point(random.nextInt(40), random.nextInt(40));
+                final Point goal = new Point(random.nextInt(40), random.nextInt(40));
+                g.setWalkable(start, true);
+                g.setWalkable(goal, true);
+                for (PathFinder finder : finders) {
+                    assertMatchesAStar(g, finder, start, goal);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testProcessesFewerNodes() {
+        // Without a heuristic, each side only explores a disk of half the radius.
+        final Graph g = new Graph(64, 64);
+        final Point start = new Point(16, 32);
+        final Point goal = new Point(48, 32);
+        assertNotNull(g.findPath(new DijkstraPathFinder(), start, goal));
+        final int dijkstraCount = g.getExpandedCount();
+
+        final List<Point> path = g.findPath(new BidirectionalAStarPathFinder(Heuristic.Zero),
+                                            start, goal);
+        assertEquals(32.0f, Graph.calculatePathLength(start, path), 0.001f);
+        assertTrue(countProcessed(g) <= g.getExpandedCount());
+        assertTrue(g.getExpandedCount() < dijkstraCount * 2 / 3);
+    }
+
+    @Test
+    public void testCancellationWhileExpandingBackward() {
+        // The goal is at the end of a long corridor, so the backward side keeps the smaller open
+        // list and does nearly all of the expansions.
+        final Graph g = new Graph(300, 9);
+        for (int x = 8; x < 300; ++x) {
+            for (int y = 0; y < 9; ++y) {
+                g.setWalkable(x, y, y == 4);
+            }
+        }
+        final Point start = new Point(0, 4);
+        final Point goal = new Point(299, 4);
+        assertNotNull(g.findPath(mPathFinder, start, goal));
+
+        // Set the token directly to skip the check Graph.findPath makes before the search.
+        final CancellationToken token = new CancellationToken();
+        token.cancel();
+        final SearchContext context = g.beginSearch();
+        context.setCancellationToken(token);
+        try {
+            g.findPath(mPathFinder, start, goal);
+            fail();
+        } catch (CancellationException e) {
+        } finally {
+            context.setCancellationToken(null);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the BitGrid class.
+ */
+public class BitGridTest {
+    @Test
+    public void testStopsAtBorder() {
+        final Graph g = new Graph(200, 1);
+        assertEquals(200, g.getBits().findHorizontalStop(0, 0, 1));
+        assertEquals(-1, g.getBits().findHorizontalStop(199, 0, -1));
+        assertEquals(1, g.getBits().findVerticalStop(5, 0, 1));
+        assertEquals(-1, g.getBits().findVerticalStop(5, 0, -1));
+    }
+
+    @Test
+    public void testStopsAtForcedNeighbor() {
+        final Graph g = Graph.createFromIntArray(new int[][] {
+            {1, 1, 0, 1, 1},
+            {1, 1, 1, 1, 1},
+            {1, 1, 1, 1, 1}});
+        assertEquals(2, g.getBits().findHorizontalStop(0, 1, 1));
+        assertEquals(2, g.getBits().findHorizontalStop(4, 1, -1));
+        assertEquals(5, g.getBits().findHorizontalStop(0, 2, 1));
+        assertEquals(2, g.getBits().findHorizontalStop(4, 0, -1));
+    }
+
+    @Test
+    public void testMatchesNodeByNodeScan() {
+        final Random random = new Random(3);
+        // Strides of 64 and 128 make lines end exactly at word boundaries.
+        for (int width : new int[] {1, 62, 63, 64, 126, 150}) {
+            final int height = 1 + random.nextInt(140);
+            final Graph g = new Graph(width, height);
+            for (int i = 0; i < width * height / 4; ++i) {
+                g.setWalkable(random.nextInt(width), random.nextInt(height), false);
+            }
+
+            for (int y = 0; y < height; ++y) {
+                for (int x = 0; x < width; ++x) {
+                    if (!g.isWalkable(g.getNode(x, y))) {
+                        continue;
+                    }
+                    for (int d = -1; d <= 1; d += 2) {
+                        assertEquals(scan(g, x, y, d, 0),
+                                     g.getBits().findHorizontalStop(x, y, d));
+                        assertEquals(scan(g, x, y, 0, d), g.getBits().findVerticalStop(x, y, d));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Coordinate along the direction of the first node that is unwalkable or has a forced
+     *         neighbor.
+     */
+    private static int scan(Graph g, int x, int y, int dx, int dy) {
+        int node = g.getNode(x, y);
+        while (g.isWalkable(node) &&
+               !(g.isWalkable(g.getNeighbor(node, dx + dy, dy + dx)) &&
+                 !g.isWalkable(g.getNeighbor(node, dy, dx))) &&
+               !(g.isWalkable(g.getNeighbor(node, dx - dy, dy - dx)) &&
+                 !g.isWalkable(g.getNeighbor(node, -dy, -dx)))) {
+            node = g.getNeighbor(node, dx, dy);
+        }
+        return dy == 0 ? g.getX(node) : g.getY(node);
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the CachingPathFinder and PathCache classes.
+ */
+public class CachingPathFinderTest extends PathFinderTestBase {
+    private static final PathFinder AStar = new AStarPathFinder(Heuristic.Octile);
+
+    public CachingPathFinderTest() {
+        super(new CachingPathFinder(new AStarPathFinder(Heuristic.Octile),
+                                    new PathCache(1000, 1 << 20, true)));
+    }
+
+    private static void assertPathEquals(List<Point> expected, List<Point> path) {
+        assertEquals(expected.size(), path.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(expected.get(i), path.get(i));
+        }
+    }
+
+    @Test
+    public void testRepeatedQueriesHit() {
+        final PathCache cache = new PathCache(10, 1 << 20);
+        final PathFinder finder = new CachingPathFinder(AStar, cache);
+        final Graph g = new Graph(10, 10);
+        final List<Point> path = g.findPath(finder, new Point(0, 0), new Point(9, 5));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        final List<Point> cachedPath = g.findPath(finder, new Point(0, 0), new Point(9, 5));
+        assertEquals(1, cache.getHitCount());
+        assertPathEquals(path, cachedPath);
+        assertNotSame(path, cachedPath);
+
+        // Changing the returned path must not change the cached one.
+        cachedPath.get(0).set(5, 5);
+        assertPathEquals(path, g.findPath(finder, new Point(0, 0), new Point(9, 5)));
+
+        g.setWalkable(0, 9, false);
+        assertNull(g.findPath(finder, new Point(0, 0), new Point(0, 9)));
+        assertNull(g.findPath(finder, new Point(0, 0), new Point(0, 9)));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testChangesInvalidatePaths() {
+        final PathCache cache = new PathCache(100, 1 << 20);
+        final PathFinder finder = new CachingPathFinder(AStar, cache);
+        final Graph g = new Graph(10, 10);
+        final Point start = new Point(0, 0);
+        final Point goal = new Point(9, 0);
+        assertPathEquals(g.findPath(AStar, start, goal), g.findPath(finder, start, goal));
+
+        for (int y = 0; y < 9; ++y) {
+            g.setWalkable(5, y, false);
+        }
+        assertPathEquals(g.findPath(AStar, start, goal), g.findPath(finder, start, goal));
+
+        // The path of the previous version is removed by the query.
+        assertEquals(1, cache.size());
+
+        g.setAllWalkable();
+        assertPathEquals(g.findPath(AStar, start, goal), g.findPath(finder, start, goal));
+
+        g.deserialize(".....#....\n.....#....\n", null, null);
+        assertPathEquals(g.findPath(AStar, start, goal), g.findPath(finder, start, goal));
+
+        g.resize(5, 5);
+        assertNull(g.findPath(finder, start, goal));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(5, cache.getMissCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testFindersAreCachedSeparately() {
+        final PathCache cache = new PathCache(100, 1 << 20);
+        final Graph g = Graph.createFromIntArray(new int[][] {
+            {1, 1, 1},
+            {1, 0, 1},
+            {1, 1, 1}});
+        final PathFinder aStar = new CachingPathFinder(AStar, cache);
+        final PathFinder dijkstra = new CachingPathFinder(new DijkstraPathFinder(), cache);
+        g.findPath(aStar, new Point(0, 0), new Point(2, 2));
+        g.findPath(dijkstra, new Point(0, 0), new Point(2, 2));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testSameFinderIsShared() {
+        final PathCache cache = new PathCache(100, 1 << 20);
+        final Graph g = new Graph(10, 10);
+        final Point start = new Point(0, 0);
+        final Point goal = new Point(9, 9);
+        g.findPath(new CachingPathFinder(AStar, cache), start, goal);
+        g.findPath(new CachingPathFinder(AStar, cache), start, goal);
+        assertEquals(1, cache.getHitCount());
+
+        // Other graphs are cached separately and are not affected by removed entries.
+        final Graph other = new Graph(10, 10);
+        other.findPath(new CachingPathFinder(AStar, cache), start, goal);
+        g.setWalkable(5, 5, false);
+        g.findPath(new CachingPathFinder(AStar, cache), start, goal);
+        other.findPath(new CachingPathFinder(AStar, cache), start, goal);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testLargeCoordinates() {
+        final PathCache cache = new PathCache(100, 1 << 20, true);
+        final PathFinder finder = new CachingPathFinder(AStar, cache);
+        final Graph g = new Graph(40000, 3);
+        final Point start = new Point(32760, 0);
+        final Point goal = new Point(32780, 2);
+        final List<Point> expected = g.findPath(AStar, start, goal);
+        assertPathEquals(expected, g.findPath(finder, start, goal));
+        assertPathEquals(expected, g.findPath(finder, start, goal));
+        assertEquals(1, cache.getHitCount());
+
+        // A sub-path of the cached path, returned in reverse.
+        final Point subStart = expected.get(15);
+        final Point subGoal = expected.get(5);
+        assertPathEquals(g.findPath(AStar, subStart, subGoal),
+                         g.findPath(finder, subStart, subGoal));
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPathsAreEvicted() {
+        final PathCache cache = new PathCache(2, 1 << 20);
+        final PathFinder finder = new CachingPathFinder(AStar, cache);
+        final Graph g = new Graph(10, 10);
+        g.findPath(finder, new Point(0, 0), new Point(1, 1));
+        g.findPath(finder, new Point(0, 0), new Point(2, 2));
+        g.findPath(finder, new Point(0, 0), new Point(1, 1));
+        g.findPath(finder, new Point(0, 0), new Point(3, 3));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getHitCount());
+
+        g.findPath(finder, new Point(0, 0), new Point(1, 1));
+        assertEquals(2, cache.getHitCount());
+        g.findPath(finder, new Point(0, 0), new Point(2, 2));
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void testLargePathsAreEvicted() {
+        final PathCache cache = new PathCache(100, 1000);
+        final PathFinder finder = new CachingPathFinder(AStar, cache);
+        final Graph g = new Graph(200, 10);
+        g.findPath(finder, new Point(0, 0), new Point(1, 0));
+        assertEquals(1, cache.size());
+        assertTrue(cache.getByteCount() <= 1000);
+
+        g.findPath(finder, new Point(0, 0), new Point(199, 0));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getByteCount());
+
+        cache.clear();
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void testSubPathsAreMatched() {
+        final PathCache cache = new PathCache(100, 1 << 20, true);
+        final PathFinder finder = new CachingPathFinder(AStar, cache);
+        final Graph g = new Graph(20, 20);
+        final Point start = new Point(0, 0);
+        final List<Point> path = g.findPath(finder, start, new Point(19, 10));
+        assertEquals(19, path.size());
+
+        final List<Point> points = new ArrayList<>();
+        for (Point point : path) {
+            points.add(point);
+        }
+        assertPathEquals(points.subList(4, 12), g.findPath(finder, path.get(3), path.get(11)));
+        assertPathEquals(points.subList(0, 5), g.findPath(finder, start, path.get(4)));
+
+        final List<Point> reversed = new ArrayList<>(points.subList(0, 11));
+        Collections.reverse(reversed);
+        reversed.add(start);
+        assertPathEquals(reversed, g.findPath(finder, path.get(11), start));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // The sub-paths of unwalkable starts are not used.
+        g.setWalkable(0, 1, false);
+        final Point wallStart = new Point(0, 1);
+        final List<Point> wallPath = g.findPath(finder, new Point(0, 1), new Point(5, 1));
+        assertEquals(5, wallPath.size());
+        assertNull(g.findPath(finder, new Point(5, 1), wallStart));
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testConcurrentQueries() {
+        final PathCache cache = new PathCache(50, 1 << 20, true);
+        final PathFinder finder =
+            new CachingPathFinder(AStar, cache);
+        final Random random = new Random(3);
+        final Graph g = new Graph(40, 40);
+        for (int i = 0; i < 300; ++i) {
+            g.setWalkable(random.nextInt(40), random.nextInt(40), false);
+        }
+
+        final List<PathQuery> queries = new ArrayList<>();
+        for (int i = 0; i < 400; ++i) {
+            queries.add(new PathQuery(new Point(random.nextInt(8), random.nextInt(8)),
+                                      new Point(32 + random.nextInt(8), 32 + random.nextInt(8))));
+        }
+
+        final List<List<Point>> paths = g.findPaths(finder, queries);
+        for (int i = 0; i < queries.size(); ++i) {
+            final Point start = queries.get(i).getStartPoint();
+            final List<Point> expected = g.findPath(AStar, start, queries.get(i).getGoalPoint());
+            if (expected == null) {
+                assertNull(paths.get(i));
+            } else {
+                assertEquals(Graph.calculatePathLength(start, expected),
+                             Graph.calculatePathLength(start, paths.get(i)), 0.01f);
+            }
+        }
+        assertEquals(400, cache.getHitCount() + cache.getMissCount());
+        assertTrue(cache.size() <= 50);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.Test;
+import static com.mohanathas.spiffer.algorithm.PathFinderTestBase.assertMatchesAStar;
+import static com.mohanathas.spiffer.algorithm.PathFinderTestBase.createRandomGraph;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the CompressedPathDatabase and CompressedPathDatabasePathFinder classes. The path finder
+ * needs a database built for each graph, so the tests of PathFinderTestBase do not apply.
+ */
+public class CompressedPathDatabasePathFinderTest {
+    @Test
+    public void testMatchesAStar() {
+        final Random random = new Random(17);
+        for (int wallPercentage = 0; wallPercentage <= 40; wallPercentage += 10) {
+            final Graph g = createRandomGraph(random, 10 + random.nextInt(30),
+                                              10 + random.nextInt(30), wallPercentage);
+            final PathFinder pathFinder =
+                new CompressedPathDatabasePathFinder(CompressedPathDatabase.build(g));
+            assertMatchesAStar(g, pathFinder, random, 200);
+        }
+    }
+
+    @Test
+    public void testUnconnectedAndUnwalkableNodes() {
+        final Graph g = Graph.createFromIntArray(new int[][] {
+            {1, 1, 1, 0, 1},
+            {1, 0, 1, 0, 1},
+            {1, 1, 1, 0, 0}});
+        final PathFinder pathFinder =
+            new CompressedPathDatabasePathFinder(CompressedPathDatabase.build(g));
+        assertNull(g.findPath(pathFinder, new Point(0, 0), new Point(4, 0)));
+        assertNull(g.findPath(pathFinder, new Point(0, 0), new Point(3, 0)));
+        assertTrue(g.findPath(pathFinder, new Point(4, 1), new Point(4, 1)).isEmpty());
+        assertMatchesAStar(g, pathFinder, new Point(4, 1), new Point(4, 0));
+        assertMatchesAStar(g, pathFinder, new Point(1, 1), new Point(2, 2));
+        assertMatchesAStar(g, pathFinder, new Point(3, 1), new Point(0, 2));
+        assertMatchesAStar(g, pathFinder, new Point(3, 1), new Point(4, 0));
+    }
+
+    @Test
+    public void testRunsAreCompressed() {
+        // On an empty graph, most targets in depth-first order share the first move with the
+        // target before them.
+        final Graph g = new Graph(32, 32);
+        final CompressedPathDatabase database = CompressedPathDatabase.build(g);
+        assertTrue(database.getRunCount() < 32 * 32 * 32 * 32 / 8);
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        final Random random = new Random(5);
+        final Graph g = createRandomGraph(random, 24, 16, 25);
+        final CompressedPathDatabase database = CompressedPathDatabase.build(g);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        database.write(out);
+
+        final Graph other = new Graph(24, 16);
+        other.deserialize(g.serialize(null, null), null, null);
+        final CompressedPathDatabase read =
+            CompressedPathDatabase.read(new ByteArrayInputStream(out.toByteArray()), other);
+        assertEquals(database.getRunCount(), read.getRunCount());
+        assertTrue(read.isValidFor(other));
+        assertFalse(read.isValidFor(g));
+
+        assertMatchesAStar(other, new CompressedPathDatabasePathFinder(read), random, 200);
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadRejectsDifferentMap() throws IOException {
+        final Graph g = new Graph(8, 8);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompressedPathDatabase.build(g).write(out);
+
+        g.setWalkable(3, 3, false);
+        CompressedPathDatabase.read(new ByteArrayInputStream(out.toByteArray()), g);
+    }
+
+    @Test
+    public void testReadRejectsInvalidRuns() throws IOException {
+        // Each node of a two node corridor has a single run whose move leads to the other node.
+        final Graph g = new Graph(2, 1);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompressedPathDatabase.build(g).write(out);
+        final byte[] bytes = out.toByteArray();
+        final int lastRun = ByteBuffer.wrap(bytes).getInt(bytes.length - 4);
+        final int direction = lastRun & 7;
+
+        final int[] invalidRuns = {
+            1 << 3 | direction,          // Does not start at the component.
+            2 << 3 | direction,          // Beyond the component.
+            (direction + 1) % 8          // Not a move to the other node.
+        };
+        for (int run : invalidRuns) {
+            ByteBuffer.wrap(bytes).putInt(bytes.length - 4, run);
+            try {
+                CompressedPathDatabase.read(new ByteArrayInputStream(bytes), g);
+                fail();
+            } catch (IOException e) {
+            }
+        }
+
+        try {
+            CompressedPathDatabase.read(new ByteArrayInputStream(bytes, 0, bytes.length - 4), g);
+            fail();
+        } catch (IOException e) {
+        }
+    }
+
+    @Test
+    public void testReadRejectsInvalidLengths() throws IOException {
+        final Graph g = new Graph(2, 1);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompressedPathDatabase.build(g).write(out);
+        final byte[] written = out.toByteArray();
+
+        // Offsets of the lengths of the nodes, component starts, run offsets and runs.
+        final int[] lengthOffsets = { 24, 36, 48, 64 };
+        for (int offset : lengthOffsets) {
+            for (int length : new int[] { -1, 4, Integer.MAX_VALUE }) {
+                final byte[] bytes = written.clone();
+                ByteBuffer.wrap(bytes).putInt(offset, length);
+                try {
+                    CompressedPathDatabase.read(new ByteArrayInputStream(bytes), g);
+                    fail();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testChangedGraphIsRejected() {
+        final Graph g = new Graph(8, 8);
+        final PathFinder pathFinder =
+            new CompressedPathDatabasePathFinder(CompressedPathDatabase.build(g));
+        g.setWalkable(3, 3, false);
+        g.findPath(pathFinder, new Point(0, 0), new Point(7, 7));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the ContractionHierarchyPathFinder class.
+ */
+public class ContractionHierarchyPathFinderTest extends PathFinderTestBase {
+    public ContractionHierarchyPathFinderTest() {
+        super(new ContractionHierarchyPathFinder());
+    }
+
+    @Test
+    public void testMatchesAStar() {
+        final Random random = new Random(13);
+        for (int wallPercentage = 0; wallPercentage <= 40; wallPercentage += 10) {
+            final Graph g = createRandomGraph(random, 20 + random.nextInt(40),
+                                              20 + random.nextInt(40), wallPercentage);
+            assertMatchesAStar(g, mPathFinder, random, 200);
+        }
+    }
+
+    @Test
+    public void testHierarchyIsRebuiltAfterChanges() {
+        final Graph g = new Graph(8, 3);
+        assertPathLengthEquals(7.0f, g, 0, 1, 7, 1);
+        final ContractionHierarchy hierarchy = g.getContractionHierarchy();
+        assertSame(hierarchy, g.getContractionHierarchy());
+
+        g.setWalkable(4, 0, false);
+        g.setWalkable(4, 1, false);
+        assertNotSame(hierarchy, g.getContractionHierarchy());
+        assertPathLengthEquals(7.83f, g, 0, 1, 7, 1);
+
+        g.setWalkable(4, 2, false);
+        assertPathLengthEquals(0.0f, g, 0, 1, 7, 1);
+    }
+
+    @Test
+    public void testCancellationWhileSettlingBackward() {
+        // The start is walled in, so only the backward side settles nodes after the first one.
+        final Graph g = new Graph(64, 64);
+        for (int dx = -1; dx <= 1; ++dx) {
+            for (int dy = -1; dy <= 1; ++dy) {
+                g.setWalkable(1 + dx, 1 + dy, dx == 0 && dy == 0);
+            }
+        }
+        final Point start = new Point(1, 1);
+        final Point goal = new Point(63, 63);
+        assertNull(g.findPath(mPathFinder, start, goal));
+
+        // Set the token directly to skip the check Graph.findPath makes before the search.
+        final CancellationToken token = new CancellationToken();
+        token.cancel();
+        final SearchContext context = g.beginSearch();
+        context.setCancellationToken(token);
+        try {
+            g.findPath(mPathFinder, start, goal);
+            fail();
+        } catch (CancellationException e) {
+        } finally {
+            context.setCancellationToken(null);
+        }
+    }
+}
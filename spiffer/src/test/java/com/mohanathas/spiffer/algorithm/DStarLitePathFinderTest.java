@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the DStarLitePathFinder class.
+ */
+public class DStarLitePathFinderTest extends PathFinderTestBase {
+    public DStarLitePathFinderTest() {
+        super(new DStarLitePathFinder(Heuristic.Octile));
+    }
+
+    @Test
+    public void testMatchesAStarAfterChanges() {
+        final Random random = new Random(11);
+        for (int wallPercentage = 0; wallPercentage <= 40; wallPercentage += 10) {
+            final int width = 20 + random.nextInt(30);
+            final int height = 20 + random.nextInt(30);
+            final Graph g = createRandomGraph(random, width, height, wallPercentage);
+
+            final Point goal = new Point(random.nextInt(width), random.nextInt(height));
+            g.setWalkable(goal, true);
+            Point start = new Point(random.nextInt(width), random.nextInt(height));
+            for (int i = 0; i < 100; ++i) {
+                assertMatchesAStar(g, mPathFinder, start, goal);
+
+                // Toggle a few cells other than the goal, sometimes including the start.
+                for (int j = random.nextInt(4); j > 0; --j) {
+                    final Point point = new Point(random.nextInt(width), random.nextInt(height));
+                    if (!point.equals(goal)) {
+                        g.setWalkable(point, !g.isWalkable(point));
+                    }
+                }
+
+                // Move the start either next to it or anywhere.
+                if (random.nextBoolean()) {
+                    start = new Point(Math.min(Math.max(start.getX() + random.nextInt(3) - 1, 0),
+                                               width - 1),
+                                      Math.min(Math.max(start.getY() + random.nextInt(3) - 1, 0),
+                                               height - 1));
+                } else if (random.nextInt(4) == 0) {
+                    start = new Point(random.nextInt(width), random.nextInt(height));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReplanningExpandsFewerNodes() {
+        final Random random = new Random(2);
+        final Graph g = new Graph(100, 100);
+        for (int i = 0; i < 100 * 100 / 5; ++i) {
+            g.setWalkable(random.nextInt(100), random.nextInt(100), false);
+        }
+        final Point start = new Point(0, 0);
+        final Point goal = new Point(99, 99);
+        g.setWalkable(start, true);
+        g.setWalkable(goal, true);
+
+        final List<Point> path = g.findPath(mPathFinder, start, goal);
+        assertNotNull(path);
+        final int initialCount = g.getExpandedCount();
+
+        // Block the middle of the path.
+        g.setWalkable(path.get(path.size() / 2), false);
+        assertMatchesAStar(g, mPathFinder, start, goal);
+        assertTrue(g.getExpandedCount() < initialCount / 4);
+
+        // Repeating the query expands nothing.
+        g.findPath(mPathFinder, start, goal);
+        assertEquals(0, g.getExpandedCount());
+    }
+
+    @Test
+    public void testStateIsDiscardedOnLayoutChanges() {
+        final Graph g = new Graph(10, 10);
+        final Point start = new Point(0, 0);
+        final Point goal = new Point(9, 9);
+        assertMatchesAStar(g, mPathFinder, start, goal);
+
+        g.resize(20, 12);
+        assertMatchesAStar(g, mPathFinder, start, goal);
+        g.setAllWalkable();
+        assertMatchesAStar(g, mPathFinder, start, new Point(19, 11));
+
+        // A new heuristic starts a new search.
+        assertMatchesAStar(g, new DStarLitePathFinder(Heuristic.Zero), start, new Point(19, 11));
+    }
+
+    @Test
+    public void testStateGrowsWithTouchedNodes() {
+        final Graph g = new Graph(2000, 2000);
+        assertNotNull(g.findPath(mPathFinder, new Point(10, 10), new Point(20, 10)));
+        final int touchedCount = g.getDStarLiteSearch().getTouchedCount();
+        assertTrue(touchedCount > 0 && touchedCount < 1000);
+
+        // A new goal starts over instead of adding to the previous state.
+        assertNotNull(g.findPath(mPathFinder, new Point(10, 10), new Point(12, 10)));
+        assertTrue(g.getDStarLiteSearch().getTouchedCount() < touchedCount);
+    }
+}
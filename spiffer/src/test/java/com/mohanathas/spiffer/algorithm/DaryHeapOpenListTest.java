@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests the DaryHeapOpenList class.
+ */
+@RunWith(Parameterized.class)
+public class DaryHeapOpenListTest {
+    private final int mArity;
+    private DaryHeapOpenList mOpenList;
+
+    public DaryHeapOpenListTest(int arity) {
+        mArity = arity;
+    }
+
+    @Parameters
+    public static Collection<Object[]> arities() {
+        return Arrays.asList(new Object[][] {{2}, {4}, {8}});
+    }
+
+    @Before
+    public void setUp() {
+        mOpenList = new DaryHeapOpenList(mArity, TieBreaking.LargerStartDistance);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidArity() {
+        new DaryHeapOpenList(mArity + 1, TieBreaking.None);
+    }
+
+    private void assertPollOrder(int from, int to) {
+        for (int i = from; i <= to; ++i) {
+            assertEquals(i, mOpenList.poll());
+        }
+        assertTrue(mOpenList.isEmpty());
+    }
+
+    @Test
+    public void testPollOnEmptyHeap() {
+        assertEquals(Graph.NO_NODE, mOpenList.peek());
+        assertEquals(Graph.NO_NODE, mOpenList.poll());
+    }
+
+    @Test
+    public void testAscendingAddOrder() {
+        for (int i = 0; i <= 100; ++i) {
+            mOpenList.add(i, i, 0);
+        }
+        assertEquals(101, mOpenList.size());
+        assertPollOrder(0, 100);
+    }
+
+    @Test
+    public void testDescendingAddOrder() {
+        for (int i = 100; i >= 0; --i) {
+            mOpenList.add(i, i, 0);
+        }
+        assertPollOrder(0, 100);
+    }
+
+    @Test
+    public void testBothAddOrder() {
+        for (int i = 0; i <= 100; ++i) {
+            final int node = i % 2 == 0 ? i : 100 - i;
+            mOpenList.add(node, node, 0);
+        }
+        assertPollOrder(0, 100);
+    }
+
+    @Test
+    public void testDecreaseKey() {
+        for (int i = 0; i <= 100; ++i) {
+            mOpenList.add(i, i + 1000, 0);
+        }
+        for (int i = 100; i >= 0; --i) {
+            mOpenList.decreaseKey(i, i, 0);
+        }
+        assertPollOrder(0, 100);
+    }
+
+    @Test
+    public void testTieBreaking() {
+        mOpenList.add(0, 4, 1);
+        mOpenList.add(1, 4, 3);
+        mOpenList.add(2, 4, 2);
+        mOpenList.add(3, 2, 0);
+        assertEquals(3, mOpenList.poll());
+        assertEquals(1, mOpenList.poll());
+        mOpenList.decreaseKey(0, 4, 4);
+        assertEquals(0, mOpenList.poll());
+        assertEquals(2, mOpenList.poll());
+    }
+
+    @Test
+    public void testLastInFirstOut() {
+        final DaryHeapOpenList openList = new DaryHeapOpenList(mArity, TieBreaking.LastInFirstOut);
+        openList.add(0, 4, 3);
+        openList.add(1, 4, 1);
+        openList.add(2, 4, 2);
+        openList.add(3, 6, 0);
+        assertEquals(2, openList.poll());
+        openList.decreaseKey(3, 4, 0);
+        assertEquals(0, openList.peekStartDistance());
+        assertEquals(3, openList.poll());
+        assertEquals(1, openList.poll());
+        assertEquals(0, openList.poll());
+    }
+
+    @Test
+    public void testStartDistance() {
+        mOpenList.add(1, 6, 2);
+        mOpenList.add(2, 4, 4);
+        assertEquals(4, mOpenList.peekStartDistance());
+        mOpenList.decreaseKey(1, 2, 1);
+        assertEquals(1, mOpenList.peekStartDistance());
+        mOpenList.poll();
+        assertEquals(4, mOpenList.peekStartDistance());
+    }
+
+    @Test
+    public void testClear() {
+        for (int i = 0; i <= 100; ++i) {
+            mOpenList.add(i, i, 0);
+        }
+        mOpenList.clear();
+        assertTrue(mOpenList.isEmpty());
+        assertFalse(mOpenList.contains(0));
+
+        mOpenList.add(7, 1, 0);
+        mOpenList.add(3, 0, 0);
+        assertEquals(3, mOpenList.poll());
+        assertEquals(7, mOpenList.poll());
+        assertTrue(mOpenList.isEmpty());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testDecreaseKeyMissingNode() {
+        mOpenList.add(1, 1, 0);
+        mOpenList.decreaseKey(2, 0, 0);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testDecreaseKeyPolledNode() {
+        mOpenList.add(1, 1, 0);
+        mOpenList.add(2, 2, 0);
+        mOpenList.poll();
+        mOpenList.decreaseKey(1, 0, 0);
+    }
+
+    @Test
+    public void testContains() {
+        assertFalse(mOpenList.contains(5));
+        mOpenList.add(5, 1, 0);
+        mOpenList.add(6, 2, 0);
+        assertTrue(mOpenList.contains(5));
+        assertTrue(mOpenList.contains(6));
+        mOpenList.poll();
+        assertFalse(mOpenList.contains(5));
+        assertTrue(mOpenList.contains(6));
+        assertFalse(mOpenList.contains(-1));
+        assertFalse(mOpenList.contains(1000));
+    }
+
+    @Test
+    public void testRemove() {
+        for (int i = 0; i <= 100; ++i) {
+            mOpenList.add(i, i % 2 == 0 ? i : 100 - i, 0);
+        }
+        for (int i = 1; i <= 100; i += 2) {
+            assertTrue(mOpenList.remove(i));
+        }
+        assertFalse(mOpenList.remove(1));
+        assertEquals(51, mOpenList.size());
+        for (int i = 0; i <= 100; i += 2) {
+            assertEquals(i, mOpenList.poll());
+        }
+        assertTrue(mOpenList.isEmpty());
+    }
+}
@@ -8,8 +8,14 @@
 
 package com.mohanathas.spiffer.algorithm;
 
+import com.mohanathas.spiffer.util.DynamicArray;
 import com.mohanathas.spiffer.util.Point;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -72,9 +78,21 @@ public class GraphTest {
         assertEquals(5, g.getWidth());
         assertEquals(7, g.getHeight());
         g.resize(5, 8);
-        assertNotNull(g.getNode(4, 7));
+        assertTrue(g.getNode(4, 7) != Graph.NO_NODE);
         g.resize(6, 8);
-        assertNotNull(g.getNode(5, 7));
+        assertTrue(g.getNode(5, 7) != Graph.NO_NODE);
+    }
+
+    @Test
+    public void testResizeKeepsWalkableState() {
+        final Graph g = Graph.createFromIntArray(new int[][] {
+            {1, 0},
+            {0, 1}});
+        g.resize(3, 3);
+        assertFalse(g.isWalkable(1, 0));
+        assertFalse(g.isWalkable(0, 1));
+        assertTrue(g.isWalkable(1, 1));
+        assertTrue(g.isWalkable(2, 2));
     }
 
     @Test
@@ -99,37 +117,217 @@ public class GraphTest {
     @Test
     public void testGetNodeWithinBounds() {
         final Graph g = new Graph(4, 2);
-        assertNotNull(g.getNode(0, 0));
-        assertNotNull(g.getNode(1, 0));
-        assertNotNull(g.getNode(0, 1));
-        assertNotNull(g.getNode(2, 1));
+        final int node = g.getNode(0, 0);
+        assertEquals(node + 1, g.getNode(1, 0));
+        assertEquals(g.getNode(2, 1), g.getNeighbor(g.getNode(1, 0), 1, 1));
+        assertEquals(g.getNode(3, 1), g.getNeighbor(g.getNode(3, 0), 0, 1));
+        assertEquals(2, g.getX(g.getNode(2, 1)));
+        assertEquals(1, g.getY(g.getNode(2, 1)));
     }
 
     @Test
     public void testGetNodeOutOfBounds() {
         final Graph g = new Graph(1, 1);
-        assertNull(g.getNode(-1, 0));
-        assertNull(g.getNode(0, -1));
-        assertNull(g.getNode(1, 0));
-        assertNull(g.getNode(0, 1));
+        assertEquals(Graph.NO_NODE, g.getNode(-1, 0));
+        assertEquals(Graph.NO_NODE, g.getNode(0, -1));
+        assertEquals(Graph.NO_NODE, g.getNode(1, 0));
+        assertEquals(Graph.NO_NODE, g.getNode(0, 1));
 
         g.setWalkable(1, 1, false);
         assertFalse(g.isWalkable(1, 1));
         assertFalse(g.wasProcessed(1, 1));
     }
 
+    @Test
+    public void testReset() {
+        final Graph g = new Graph(4, 4);
+        final PathFinder finder = new DijkstraPathFinder();
+        assertNotNull(g.findPath(finder, new Point(0, 0), new Point(3, 3)));
+        assertTrue(g.wasProcessed(0, 0));
+        assertTrue(g.wasProcessed(3, 3));
+
+        g.reset();
+        assertFalse(g.wasProcessed(0, 0));
+        assertFalse(g.wasProcessed(3, 3));
+        assertEquals(0, g.getExpandedCount());
+
+        final List<Point> path = g.findPath(finder, new Point(3, 3), new Point(3, 0));
+        assertEquals(3.0f, Graph.calculatePathLength(new Point(3, 3), path), 0.001f);
+    }
+
+    @Test
+    public void testSearchStateIsPerThread() throws InterruptedException {
+        final Graph g = new Graph(8, 8);
+        assertNotNull(g.findPath(new DijkstraPathFinder(), new Point(0, 0), new Point(7, 7)));
+        assertTrue(g.wasProcessed(7, 7));
+
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                g.findPath(new DijkstraPathFinder(), new Point(0, 0), new Point(1, 0));
+            }
+        });
+        thread.start();
+        thread.join();
+        assertTrue(g.wasProcessed(7, 7));
+
+        g.resize(9, 8);
+        assertFalse(g.wasProcessed(7, 7));
+    }
+
+    @Test
+    public void testFindPaths() {
+        final Random random = new Random(5);
+        final Graph g = new Graph(48, 48);
+        for (int i = 0; i < 600; ++i) {
+            g.setWalkable(random.nextInt(48), random.nextInt(48), false);
+        }
+
+        final List<PathQuery> queries = new DynamicArray<>();
+        for (int i = 0; i < 100; ++i) {
+            final Point start = new Point(random.nextInt(48), random.nextInt(48));
+            final Point goal = new Point(random.nextInt(48), random.nextInt(48));
+            g.setWalkable(start, true);
+            g.setWalkable(goal, true);
+            queries.add(new PathQuery(start, goal));
+        }
+
+        // Wall off a goal so that a query has no path.
+        g.setWalkable(0, 46, false);
+        g.setWalkable(1, 46, false);
+        g.setWalkable(1, 47, false);
+        g.setWalkable(0, 47, true);
+        queries.add(new PathQuery(new Point(47, 0), new Point(0, 47)));
+
+        final PathFinder finder = new AStarPathFinder(Heuristic.Octile);
+        final ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            final List<List<Point>> paths = g.findPaths(finder, queries, pool);
+            final List<List<Point>> defaultPaths = g.findPaths(finder, queries);
+            assertEquals(queries.size(), paths.size());
+            assertEquals(queries.size(), defaultPaths.size());
+            for (int i = 0; i < queries.size(); ++i) {
+                final PathQuery query = queries.get(i);
+                final List<Point> expected =
+                    g.findPath(finder, query.getStartPoint(), query.getGoalPoint());
+                assertPathEquals(expected, paths.get(i));
+                assertPathEquals(expected, defaultPaths.get(i));
+            }
+            assertNull(paths.get(queries.size() - 1));
+
+            final List<PathQuery> noQueries = Collections.emptyList();
+            assertTrue(g.findPaths(finder, noQueries, pool).isEmpty());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testFindPathWithCancellationToken() {
+        final Graph g = new Graph(512, 512);
+        final PathFinder finder = new DijkstraPathFinder();
+        final Point start = new Point(0, 0);
+        final Point goal = new Point(511, 511);
+        assertNotNull(g.findPath(finder, start, goal, new CancellationToken()));
+        assertNotNull(g.findPath(finder, start, goal,
+                                 new CancellationToken(1, TimeUnit.MINUTES)));
+
+        final CancellationToken cancelled = new CancellationToken();
+        cancelled.cancel();
+        try {
+            g.findPath(finder, start, goal, cancelled);
+            fail();
+        } catch (CancellationException e) {
+        }
+
+        final CancellationToken expired = new CancellationToken(0, TimeUnit.NANOSECONDS);
+        assertTrue(expired.isExpired());
+        try {
+            g.findPath(finder, start, goal, expired);
+            fail();
+        } catch (CancellationException e) {
+        }
+
+        // The token must not leak into later searches.
+        assertNotNull(g.findPath(finder, start, goal));
+        assertEquals(512 * 512, g.getExpandedCount());
+    }
+
+    private static void assertPathEquals(List<Point> expected, List<Point> actual) {
+        if (expected == null) {
+            assertNull(actual);
+        } else {
+            assertNotNull(actual);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); ++i) {
+                assertEquals(expected.get(i), actual.get(i));
+            }
+        }
+    }
+
     @Test
     public void testFindNodeNeighbors() {
         final Graph g = Graph.createFromIntArray(new int[][] {
             {1, 1, 0},
             {0, 1, 1},
             {1, 0, 1}});
-        final List<Node> neigbors = g.findNodeNeighbors(g.getNode(1, 1));
-        assertEquals(4, neigbors.size());
-        assertTrue(neigbors.contains(g.getNode(0, 0)));
-        assertTrue(neigbors.contains(g.getNode(1, 0)));
-        assertTrue(neigbors.contains(g.getNode(2, 1)));
-        assertTrue(neigbors.contains(g.getNode(2, 2)));
+        final int[] neighbors = new int[8];
+        assertEquals(4, g.findNodeNeighbors(g.getNode(1, 1), neighbors));
+        assertEquals(g.getNode(0, 0), neighbors[0]);
+        assertEquals(g.getNode(1, 0), neighbors[1]);
+        assertEquals(g.getNode(2, 1), neighbors[2]);
+        assertEquals(g.getNode(2, 2), neighbors[3]);
+    }
+
+    @Test
+    public void testSentinelBorder() {
+        final Graph g = new Graph(2, 2);
+        final int node = g.getNode(0, 0);
+        assertFalse(g.isWalkable(g.getNeighbor(node, -1, -1)));
+        assertFalse(g.isWalkable(g.getNeighbor(node, -1, 0)));
+        assertFalse(g.isWalkable(g.getNeighbor(g.getNode(1, 1), 1, 1)));
+
+        g.setAllWalkable();
+        assertFalse(g.isWalkable(g.getNeighbor(node, 0, -1)));
+        assertFalse(g.isWalkable(g.getNeighbor(g.getNode(1, 1), 0, 1)));
+
+        final int[] neighbors = new int[8];
+        assertEquals(3, g.findNodeNeighbors(node, neighbors));
+    }
+
+    @Test
+    public void testSuccessorsFollowSetWalkable() {
+        final Graph g = new Graph(3, 3);
+        final int center = g.getNode(1, 1);
+        assertEquals(0xFF, g.getSuccessors(center));
+        assertEquals(Graph.getDirectionBit(1, 0) | Graph.getDirectionBit(0, 1) |
+                     Graph.getDirectionBit(1, 1), g.getSuccessors(g.getNode(0, 0)));
+
+        g.setWalkable(2, 1, false);
+        assertEquals(0, g.getSuccessors(center) & Graph.getDirectionBit(1, 0));
+        assertEquals(0xFF & ~Graph.getDirectionBit(1, 0), g.getSuccessors(center));
+
+        // Moving from (1, 0) to (2, 1) would cut both corners.
+        g.setWalkable(2, 1, true);
+        g.setWalkable(1, 1, false);
+        g.setWalkable(2, 0, false);
+        assertEquals(0, g.getSuccessors(g.getNode(1, 0)) & Graph.getDirectionBit(1, 1));
+        g.setWalkable(2, 0, true);
+        assertTrue((g.getSuccessors(g.getNode(1, 0)) & Graph.getDirectionBit(1, 1)) != 0);
+    }
+
+    @Test
+    public void testStepCosts() {
+        final Graph g = new Graph(3, 3);
+        final int center = g.getNode(1, 1);
+        assertEquals(Graph.STRAIGHT_COST, g.getStepCost(center, g.getNode(0, 1)));
+        assertEquals(Graph.STRAIGHT_COST, g.getStepCost(center, g.getNode(1, 2)));
+        assertEquals(Graph.DIAGONAL_COST, g.getStepCost(center, g.getNode(0, 0)));
+        assertEquals(Graph.DIAGONAL_COST, g.getStepCost(center, g.getNode(2, 0)));
+        assertEquals(0, Graph.getOctileCost(0, 0));
+        assertEquals(3 * Graph.DIAGONAL_COST + 2 * Graph.STRAIGHT_COST,
+                     Graph.getOctileCost(-3, 5));
+        assertEquals(1.4142f, (float)Graph.DIAGONAL_COST / Graph.STRAIGHT_COST, 0.0001f);
     }
 
     @Test
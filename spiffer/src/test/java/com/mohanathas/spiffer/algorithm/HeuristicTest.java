@@ -45,9 +45,34 @@ public class HeuristicTest {
         assertEquals(22.0, h.distance(2, 20), 0.001);
     }
 
+    @Test
+    public void testOctileHeuristic() {
+        final Heuristic h = Heuristic.Octile;
+        assertEquals(0.0, h.distance(0, 0), 0.001);
+        assertEquals(2.0, h.distance(2, 0), 0.001);
+        assertEquals(2.0, h.distance(0, -2), 0.001);
+        assertEquals(2.828, h.distance(2, 2), 0.001);
+        assertEquals(20.828, h.distance(2, 20), 0.001);
+    }
+
     @Test
     public void testZeroHeuristic() {
         final Heuristic h = Heuristic.Zero;
         assertEquals(0.0, h.distance(2, 20), 0.001);
     }
+
+    @Test
+    public void testFixedPointCosts() {
+        for (Heuristic h : Heuristic.values()) {
+            for (int dx = -8; dx <= 8; ++dx) {
+                for (int dy = -8; dy <= 8; ++dy) {
+                    final float distance = h.distance(dx, dy);
+                    assertEquals(distance, (float)h.cost(dx, dy) / Graph.STRAIGHT_COST, 0.003f);
+                    if (h != Heuristic.Manhattan) {
+                        assertTrue(h.cost(dx, dy) <= Graph.getOctileCost(dx, dy));
+                    }
+                }
+            }
+        }
+    }
 }
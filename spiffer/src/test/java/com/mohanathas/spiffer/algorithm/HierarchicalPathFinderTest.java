@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the HierarchicalPathFinder class.
+ */
+public class HierarchicalPathFinderTest extends PathFinderTestBase {
+    public HierarchicalPathFinderTest() {
+        super(new HierarchicalPathFinder(Heuristic.Chebyshev));
+    }
+
+    @Test
+    public void testFindsPathsAcrossClusters() {
+        final Random random = new Random(11);
+        final PathFinder aStar = new AStarPathFinder(Heuristic.Octile);
+        for (int clusterSize = 1; clusterSize <= 10; clusterSize += 3) {
+            final PathFinder hpa = new HierarchicalPathFinder(Heuristic.Octile, clusterSize);
+            final int width = 20 + random.nextInt(30);
+            final int height = 20 + random.nextInt(30);
+            final Graph g = createRandomGraph(random, width, height, 30);
+
+            for (int i = 0; i < 100; ++i) {
+                final Point start = new Point(random.nextInt(width), random.nextInt(height));
+                final Point goal = new Point(random.nextInt(width), random.nextInt(height));
+                g.setWalkable(start, true);
+                g.setWalkable(goal, true);
+
+                final List<Point> expected = g.findPath(aStar, start, goal);
+                final List<Point> path = g.findPath(hpa, start, goal);
+                if (expected == null) {
+                    assertNull(path);
+                } else {
+                    assertValidPath(g, start, goal, path);
+                    assertTrue(Graph.calculatePathLength(start, path) >=
+                               Graph.calculatePathLength(start, expected) - 0.01f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOnlyChangedClustersAreRebuilt() {
+        final Graph g = new Graph(64, 64);
+        final ClusterGraph clusters = g.getClusterGraph(16);
+        assertEquals(0, clusters.update());
+
+        g.setWalkable(5, 5, false);
+        assertEquals(1, clusters.update());
+
+        // Nodes on a border also change the transitions to the cluster beyond it.
+        g.setWalkable(15, 5, false);
+        assertEquals(2, clusters.update());
+        g.setWalkable(16, 16, false);
+        assertEquals(3, clusters.update());
+
+        assertSame(clusters, g.getClusterGraph(16));
+        assertEquals(0, clusters.update());
+    }
+
+    @Test
+    public void testFollowsChanges() {
+        final Graph g = new Graph(40, 40);
+        final PathFinder hpa = new HierarchicalPathFinder(Heuristic.Octile, 8);
+        for (int y = 0; y < 40; ++y) {
+            g.setWalkable(20, y, y == 30);
+        }
+        final Point start = new Point(0, 0);
+        final Point goal = new Point(39, 0);
+        final List<Point> path = g.findPath(hpa, start, goal);
+        assertValidPath(g, start, goal, path);
+
+        g.setWalkable(20, 30, false);
+        assertNull(g.findPath(hpa, start, goal));
+
+        g.setWalkable(20, 3, true);
+        final List<Point> shorterPath = g.findPath(hpa, start, goal);
+        assertValidPath(g, start, goal, shorterPath);
+        assertTrue(shorterPath.size() < path.size());
+    }
+
+    @Test
+    public void testExpandedCountIncludesAllSteps() {
+        final Graph g = new Graph(64, 64);
+        final PathFinder hpa = new HierarchicalPathFinder(Heuristic.Octile, 8);
+        assertNotNull(g.findPath(hpa, new Point(0, 0), new Point(63, 63)));
+
+        // Only the nodes of the last step are marked as processed.
+        assertTrue(g.getExpandedCount() > countProcessed(g));
+        assertTrue(g.getExpandedCount() >= 64);
+    }
+}
@@ -33,4 +33,14 @@ public class JumpPointPathFinderTest extends PathFinderTestBase {
         assertNotNull(g.findPath(mPathFinder, new Point(0, 2), new Point(10, 2)));
         assertProcessedCountEquals(25, g);
     }
+
+    @Test
+    public void testLongStraightScan() {
+        final Graph g = new Graph(40000, 3);
+        assertPathLengthEquals(39999.0f, g, 0, 1, 39999, 1);
+        assertPathLengthEquals(39999.0f, g, 39999, 1, 0, 1);
+        g.setWalkable(20000, 0, false);
+        assertNotNull(g.findPath(mPathFinder, new Point(0, 1), new Point(39999, 1)));
+        assertProcessedCountEquals(3, g);
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the JumpPointPlusPathFinder class.
+ */
+public class JumpPointPlusPathFinderTest extends PathFinderTestBase {
+    public JumpPointPlusPathFinderTest() {
+        super(new JumpPointPlusPathFinder(Heuristic.Chebyshev));
+    }
+
+    @Test
+    public void testProcessedCount() {
+        final Graph g = Graph.createFromIntArray(new int[][] {
+            {1, 1, 1, 1, 1, 0, 1, 1, 1, 1, 1},
+            {1, 0, 1, 0, 1, 1, 1, 1, 0, 1, 1},
+            {1, 1, 0, 1, 1, 1, 0, 0, 1, 0, 1},
+            {1, 0, 1, 0, 1, 1, 1, 1, 0, 1, 1},
+            {1, 1, 1, 1, 1, 0, 1, 1, 1, 1, 1}});
+        assertNotNull(g.findPath(mPathFinder, new Point(0, 0), new Point(10, 4)));
+        assertProcessedCountEquals(15, g);
+        assertNotNull(g.findPath(mPathFinder, new Point(0, 2), new Point(10, 2)));
+        assertProcessedCountEquals(25, g);
+    }
+
+    @Test
+    public void testMatchesJumpPointSearch() {
+        final Random random = new Random(7);
+        final PathFinder jps = new JumpPointPathFinder(Heuristic.Octile);
+        final PathFinder jpsPlus = new JumpPointPlusPathFinder(Heuristic.Octile);
+        for (int wallPercentage = 0; wallPercentage <= 40; wallPercentage += 10) {
+            final int width = 30 + random.nextInt(30);
+            final int height = 30 + random.nextInt(30);
+            final Graph g = new Graph(width, height);
+            for (int i = 0; i < width * height * wallPercentage / 100; ++i) {
+                g.setWalkable(random.nextInt(width), random.nextInt(height), false);
+            }
+
+            for (int i = 0; i < 100; ++i) {
+                final Point start = new Point(random.nextInt(width), random.nextInt(height));
+                final Point goal = new Point(random.nextInt(width), random.nextInt(height));
+                g.setWalkable(start, true);
+                g.setWalkable(goal, true);
+
+                final List<Point> expected = g.findPath(jps, start, goal);
+                final int expectedCount = g.getExpandedCount();
+                final List<Point> path = g.findPath(jpsPlus, start, goal);
+                assertEquals(expectedCount, g.getExpandedCount());
+                if (expected == null) {
+                    assertNull(path);
+                } else {
+                    assertNotNull(path);
+                    assertEquals(expected.size(), path.size());
+                    for (int j = 0; j < expected.size(); ++j) {
+                        assertEquals(expected.get(j), path.get(j));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTableIsRebuiltAfterChanges() {
+        final Graph g = new Graph(8, 3);
+        assertPathLengthEquals(7.0f, g, 0, 1, 7, 1);
+        final JumpTable table = g.getJumpTable();
+        assertSame(table, g.getJumpTable());
+
+        g.setWalkable(4, 0, false);
+        g.setWalkable(4, 1, false);
+        assertNotSame(table, g.getJumpTable());
+        assertPathLengthEquals(7.83f, g, 0, 1, 7, 1);
+
+        g.setWalkable(4, 2, false);
+        assertPathLengthEquals(0.0f, g, 0, 1, 7, 1);
+
+        g.resize(9, 3);
+        g.setAllWalkable();
+        assertPathLengthEquals(8.0f, g, 0, 1, 8, 1);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the LandmarkTable class.
+ */
+public class LandmarkTableTest {
+    @Test
+    public void testLandmarksAreSpread() {
+        final Graph g = new Graph(20, 10);
+        final LandmarkTable table = new LandmarkTable(g, 0, 4);
+        assertEquals(4, table.getLandmarkCount());
+
+        // The search starts from the top left corner, so the first landmark is the bottom right
+        // corner and the second one the top left corner again.
+        assertEquals(g.getNode(19, 9), table.getLandmark(0));
+        assertEquals(g.getNode(0, 0), table.getLandmark(1));
+        assertEquals(10 * Graph.STRAIGHT_COST + 9 * Graph.DIAGONAL_COST,
+                     table.getDistance(0, table.getLandmark(1)));
+        for (int i = 0; i < 4; ++i) {
+            for (int j = 0; j < i; ++j) {
+                assertTrue(table.getLandmark(j) != table.getLandmark(i));
+            }
+        }
+    }
+
+    @Test
+    public void testDistancesAndLowerBounds() {
+        final Random random = new Random(7);
+        final Graph g = new Graph(40, 30);
+        for (int i = 0; i < 40 * 30 / 4; ++i) {
+            g.setWalkable(random.nextInt(40), random.nextInt(30), false);
+        }
+
+        final LandmarkTable table = new LandmarkTable(g, 0, 8);
+        final PathFinder dijkstra = new DijkstraPathFinder();
+        for (int i = 0; i < 200; ++i) {
+            final Point start = new Point(random.nextInt(40), random.nextInt(30));
+            final Point goal = new Point(random.nextInt(40), random.nextInt(30));
+            final int startNode = g.getNode(start);
+            final int goalNode = g.getNode(goal);
+            final List<Point> path = g.findPath(dijkstra, start, goal);
+            if (path == null || !g.isWalkable(start) || !g.isWalkable(goal)) {
+                continue;
+            }
+
+            final float length = Graph.calculatePathLength(start, path);
+            assertTrue(table.getLowerBound(startNode, goalNode) / (float)Graph.STRAIGHT_COST <=
+                       length + 0.01f);
+            assertEquals(table.getLowerBound(startNode, goalNode),
+                         table.getLowerBound(goalNode, startNode));
+
+            final int landmarkIndex = random.nextInt(8);
+            final int landmark = table.getLandmark(landmarkIndex);
+            if (table.getDistance(landmarkIndex, goalNode) != -1) {
+                final List<Point> landmarkPath = g.findPath(dijkstra, g.getPoint(landmark), goal);
+                assertEquals(Graph.calculatePathLength(g.getPoint(landmark), landmarkPath),
+                             table.getDistance(landmarkIndex, goalNode) /
+                             (float)Graph.STRAIGHT_COST, 0.01f);
+            }
+        }
+    }
+
+    @Test
+    public void testUnconnectedNodes() {
+        final Graph g = Graph.createFromIntArray(new int[][] {
+            {1, 1, 1, 0, 1},
+            {1, 1, 1, 0, 1},
+            {1, 1, 1, 0, 0}});
+        final LandmarkTable table = new LandmarkTable(g, 0, 2);
+        for (int i = 0; i < table.getLandmarkCount(); ++i) {
+            assertTrue(g.getX(table.getLandmark(i)) < 3);
+            assertEquals(-1, table.getDistance(i, g.getNode(4, 0)));
+            assertEquals(-1, table.getDistance(i, g.getNode(3, 0)));
+        }
+        assertEquals(0, table.getLowerBound(g.getNode(0, 0), g.getNode(4, 1)));
+        assertEquals(0, table.getLowerBound(g.getNode(4, 0), g.getNode(4, 1)));
+    }
+
+    @Test
+    public void testNoWalkableNodes() {
+        final Graph g = Graph.createFromIntArray(new int[][] {{0, 0}, {0, 0}});
+        final LandmarkTable table = new LandmarkTable(g, 0, 4);
+        assertEquals(0, table.getLandmarkCount());
+        assertEquals(0, table.getLowerBound(g.getNode(0, 0), g.getNode(1, 1)));
+    }
+
+    @Test
+    public void testTableIsRebuiltAfterChanges() {
+        final Graph g = new Graph(10, 10);
+        final LandmarkTable table = g.getLandmarkTable();
+        assertSame(table, g.getLandmarkTable());
+        assertEquals(9 * Graph.STRAIGHT_COST,
+                     table.getLowerBound(g.getNode(0, 0), g.getNode(9, 0)));
+
+        for (int y = 0; y < 9; ++y) {
+            g.setWalkable(5, y, false);
+        }
+        final LandmarkTable newTable = g.getLandmarkTable();
+        assertNotSame(table, newTable);
+
+        // The top right corner is now the farthest node from the top left one.
+        assertEquals(9 * Graph.STRAIGHT_COST + 9 * Graph.DIAGONAL_COST,
+                     newTable.getLowerBound(g.getNode(0, 0), g.getNode(9, 0)));
+    }
+}
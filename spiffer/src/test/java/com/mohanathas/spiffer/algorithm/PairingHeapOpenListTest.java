@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the PairingHeapOpenList class.
+ */
+public class PairingHeapOpenListTest {
+    private final PairingHeapOpenList mOpenList = new PairingHeapOpenList(TieBreaking.None);
+
+    public PairingHeapOpenListTest() {
+    }
+
+    private void assertPollOrder(int from, int to) {
+        for (int i = from; i <= to; ++i) {
+            assertEquals(i, mOpenList.poll());
+        }
+        assertTrue(mOpenList.isEmpty());
+    }
+
+    @Test
+    public void testPollOnEmptyHeap() {
+        assertEquals(Graph.NO_NODE, mOpenList.peek());
+        assertEquals(Graph.NO_NODE, mOpenList.poll());
+    }
+
+    @Test
+    public void testAddOrders() {
+        for (int i = 0; i <= 100; ++i) {
+            mOpenList.add(i, i, 0);
+        }
+        assertEquals(101, mOpenList.size());
+        assertPollOrder(0, 100);
+
+        for (int i = 100; i >= 0; --i) {
+            mOpenList.add(i, i, 0);
+        }
+        assertPollOrder(0, 100);
+
+        for (int i = 0; i <= 100; ++i) {
+            final int node = i % 2 == 0 ? i : 100 - i;
+            mOpenList.add(node, node, 0);
+        }
+        assertPollOrder(0, 100);
+    }
+
+    @Test
+    public void testDecreaseKey() {
+        for (int i = 0; i <= 100; ++i) {
+            mOpenList.add(i, i + 1000, i);
+        }
+        assertEquals(0, mOpenList.poll());
+        for (int i = 100; i >= 1; --i) {
+            mOpenList.decreaseKey(i, i, -i);
+        }
+        assertEquals(-1, mOpenList.peekStartDistance());
+        assertPollOrder(1, 100);
+    }
+
+    @Test
+    public void testRandomOperations() {
+        final Random random = new Random(1);
+        final int[] costs = new int[500];
+        for (int i = 0; i < costs.length; ++i) {
+            costs[i] = random.nextInt(1000);
+            mOpenList.add(i, costs[i], 0);
+        }
+        for (int i = 0; i < 1000; ++i) {
+            final int node = random.nextInt(costs.length);
+            if (mOpenList.contains(node)) {
+                costs[node] -= random.nextInt(100);
+                mOpenList.decreaseKey(node, costs[node], 0);
+            }
+            if (i % 3 == 0) {
+                mOpenList.poll();
+            }
+        }
+
+        int previousCost = Integer.MIN_VALUE;
+        while (!mOpenList.isEmpty()) {
+            final int cost = costs[mOpenList.poll()];
+            assertTrue(cost >= previousCost);
+            previousCost = cost;
+        }
+    }
+
+    @Test
+    public void testTieBreaking() {
+        final PairingHeapOpenList openList =
+            new PairingHeapOpenList(TieBreaking.LargerStartDistance);
+        openList.add(0, 4, 1);
+        openList.add(1, 4, 3);
+        openList.add(2, 4, 2);
+        openList.add(3, 2, 0);
+        assertEquals(3, openList.poll());
+        assertEquals(1, openList.poll());
+        openList.decreaseKey(0, 4, 4);
+        assertEquals(0, openList.poll());
+        assertEquals(2, openList.poll());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testDecreaseKeyPolledNode() {
+        mOpenList.add(1, 1, 0);
+        mOpenList.add(2, 2, 0);
+        mOpenList.poll();
+        mOpenList.decreaseKey(1, 0, 0);
+    }
+
+    @Test
+    public void testClear() {
+        for (int i = 0; i <= 100; ++i) {
+            mOpenList.add(i, i, 0);
+        }
+        mOpenList.clear();
+        assertTrue(mOpenList.isEmpty());
+        assertFalse(mOpenList.contains(0));
+
+        mOpenList.add(7, 1, 0);
+        mOpenList.add(3, 0, 0);
+        assertEquals(3, mOpenList.poll());
+        assertEquals(7, mOpenList.poll());
+    }
+}
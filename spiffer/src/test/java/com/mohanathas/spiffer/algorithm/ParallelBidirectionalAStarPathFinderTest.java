@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the ParallelBidirectionalAStarPathFinder class.
+ */
+public class ParallelBidirectionalAStarPathFinderTest extends PathFinderTestBase {
+    /** Runs the backward search before the forward search starts. */
+    private static final Executor SAME_THREAD_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    /** Never runs the backward search. */
+    private static final Executor IDLE_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+        }
+    };
+
+    public ParallelBidirectionalAStarPathFinderTest() {
+        super(new ParallelBidirectionalAStarPathFinder(Heuristic.Octile));
+    }
+
+    @Test
+    public void testSamePoint() {
+        final Graph g = new Graph(3, 3);
+        final List<Point> path = g.findPath(mPathFinder, new Point(1, 1), new Point(1, 1));
+        assertNotNull(path);
+        assertTrue(path.isEmpty());
+    }
+
+    @Test
+    public void testOptimality() {
+        final Random random = new Random(6);
+        final PathFinder dijkstra = new DijkstraPathFinder();
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        final PathFinder[] finders = {
+            new ParallelBidirectionalAStarPathFinder(Heuristic.Octile),
+            new ParallelBidirectionalAStarPathFinder(
+                Heuristic.Euclidean, OpenListType.BinaryHeap, TieBreaking.None, pool),
+            new ParallelBidirectionalAStarPathFinder(
+                Heuristic.Zero, OpenListType.RadixHeap, TieBreaking.LargerStartDistance, pool),
+            new ParallelBidirectionalAStarPathFinder(
+                Heuristic.Landmarks, OpenListType.BinaryHeap, TieBreaking.None, pool),
+            new ParallelBidirectionalAStarPathFinder(
+                Heuristic.Octile, OpenListType.BinaryHeap, TieBreaking.LargerStartDistance,
+                SAME_THREAD_EXECUTOR),
+            new ParallelBidirectionalAStarPathFinder(
+                Heuristic.Octile, OpenListType.BinaryHeap, TieBreaking.LargerStartDistance,
+                IDLE_EXECUTOR)
+        };
+        try {
+            for (int wallPercentage = 0; wallPercentage <= 40; wallPercentage += 10) {
+                final int[][] ints = new int[48][48];
+                for (int y = 0; y < ints.length; ++y) {
+                    for (int x = 0; x < ints[y].length; ++x) {
+                        ints[y][x] = random.nextInt(100) < wallPercentage ? 0 : 1;
+                    }
+                }
+                final Graph g = Graph.createFromIntArray(ints);
+
+                for (int i = 0; i < 40; ++i) {
+                    final Point start = new Point(random.nextInt(48), random.nextInt(48));
+                    final Point goal = new Point(random.nextInt(48), random.nextInt(48));
+                    g.setWalkable(start, true);
+                    g.setWalkable(goal, true);
+
+                    final List<Point> expected = g.findPath(dijkstra, start, goal);
+                    for (PathFinder finder : finders) {
+                        final List<Point> path = g.findPath(finder, start, goal);
+                        if (expected == null) {
+                            assertNull(path);
+                        } else {
+                            assertNotNull(path);
+                            assertEquals(goal, path.isEmpty() ? start : path.get(path.size() - 1));
+                            assertEquals(Graph.calculatePathLength(start, expected),
+                                         Graph.calculatePathLength(start, path), 0.001f);
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = CancellationException.class)
+    public void testCancellation() {
+        final Graph g = new Graph(256, 256);
+        final CancellationToken token = new CancellationToken();
+        token.cancel();
+        g.findPath(mPathFinder, new Point(0, 0), new Point(255, 255), token);
+    }
+}
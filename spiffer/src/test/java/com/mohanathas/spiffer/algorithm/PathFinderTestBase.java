@@ -10,6 +10,7 @@ package com.mohanathas.spiffer.algorithm;
 
 import com.mohanathas.spiffer.util.Point;
 import java.util.List;
+import java.util.Random;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
@@ -34,16 +35,74 @@ public class PathFinderTestBase {
         }
     }
 
-    void assertProcessedCountEquals(int expected, Graph g) {
+    static int countProcessed(Graph g) {
         int count = 0;
-        for (int y = 0; y < g.getWidth(); ++y) {
+        for (int y = 0; y < g.getHeight(); ++y) {
             for (int x = 0; x < g.getWidth(); ++x) {
                 if (g.wasProcessed(x, y)) {
                     ++count;
                 }
             }
         }
-        assertEquals(expected, count);
+        return count;
+    }
+
+    void assertProcessedCountEquals(int expected, Graph g) {
+        assertEquals(expected, countProcessed(g));
+    }
+
+    static Graph createRandomGraph(Random random, int width, int height, int wallPercentage) {
+        final Graph g = new Graph(width, height);
+        for (int i = 0; i < width * height * wallPercentage / 100; ++i) {
+            g.setWalkable(random.nextInt(width), random.nextInt(height), false);
+        }
+        return g;
+    }
+
+    /**
+     * Asserts that the path consists of walkable steps from the start to the goal.
+     */
+    static void assertValidPath(Graph g, Point start, Point goal, List<Point> path) {
+        assertNotNull(path);
+        Point previous = start;
+        for (Point point : path) {
+            assertTrue(g.isWalkable(point));
+            assertTrue(Math.abs(point.getX() - previous.getX()) <= 1);
+            assertTrue(Math.abs(point.getY() - previous.getY()) <= 1);
+            assertFalse(point.equals(previous));
+            previous = point;
+        }
+        assertEquals(goal, previous);
+    }
+
+    /**
+     * Asserts that the path finder finds a valid path as short as the one found by A* or no path
+     * if A* does not find one.
+     */
+    static void assertMatchesAStar(Graph g, PathFinder pathFinder, Point start, Point goal) {
+        final List<Point> expected = g.findPath(new AStarPathFinder(Heuristic.Octile), start, goal);
+        final List<Point> path = g.findPath(pathFinder, start, goal);
+        if (expected == null) {
+            assertNull(path);
+        } else {
+            assertValidPath(g, start, goal, path);
+            assertEquals(Graph.calculatePathLength(start, expected),
+                         Graph.calculatePathLength(start, path), 0.01f);
+        }
+    }
+
+    /**
+     * Asserts that the path finder matches A* on queries between random points.
+     */
+    static void assertMatchesAStar(Graph g, PathFinder pathFinder, Random random,
+                                   int queryCount) {
+        final int width = g.getWidth();
+        final int height = g.getHeight();
+        for (int i = 0; i < queryCount; ++i) {
+            final Point start = new Point(random.nextInt(width), random.nextInt(height));
+            final Point goal = new Point(random.nextInt(width), random.nextInt(height));
+            assertMatchesAStar(g, pathFinder, start, goal);
+        }
     }
 
     @Test
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import java.util.NoSuchElementException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the RadixHeapOpenList class.
+ */
+public class RadixHeapOpenListTest {
+    private final RadixHeapOpenList mOpenList =
+        new RadixHeapOpenList(TieBreaking.LastInFirstOut);
+    private final RadixHeapOpenList mTieBreakingOpenList =
+        new RadixHeapOpenList(TieBreaking.LargerStartDistance);
+
+    public RadixHeapOpenListTest() {
+    }
+
+    private static void assertPollOrder(OpenList openList, int from, int to) {
+        for (int i = from; i <= to; ++i) {
+            assertEquals(i, openList.poll());
+        }
+        assertTrue(openList.isEmpty());
+    }
+
+    @Test
+    public void testPollOnEmptyHeap() {
+        assertEquals(Graph.NO_NODE, mOpenList.peek());
+        assertEquals(Graph.NO_NODE, mOpenList.poll());
+    }
+
+    @Test
+    public void testAddOrders() {
+        for (int i = 0; i <= 100; ++i) {
+            mOpenList.add(i, i * 2, 0);
+        }
+        assertEquals(101, mOpenList.size());
+        assertPollOrder(mOpenList, 0, 100);
+
+        for (int i = 100; i >= 0; --i) {
+            mOpenList.add(i, i * 3, 0);
+        }
+        assertPollOrder(mOpenList, 0, 100);
+    }
+
+    @Test
+    public void testInterleavedAddAndPoll() {
+        mOpenList.add(0, 2, 0);
+        mOpenList.add(1, 6, 0);
+        assertEquals(0, mOpenList.poll());
+        mOpenList.add(2, 3, 0);
+        mOpenList.add(3, 5, 0);
+        mOpenList.add(4, 2, 0);
+        assertEquals(4, mOpenList.poll());
+        assertEquals(2, mOpenList.poll());
+        assertEquals(3, mOpenList.poll());
+        assertEquals(1, mOpenList.poll());
+        assertTrue(mOpenList.isEmpty());
+    }
+
+    @Test
+    public void testDecreaseKey() {
+        for (int i = 0; i <= 100; ++i) {
+            mOpenList.add(i, i + 1000, 0);
+        }
+        assertEquals(0, mOpenList.poll());
+        for (int i = 100; i >= 1; --i) {
+            mOpenList.decreaseKey(i, i, 0);
+        }
+        assertPollOrder(mOpenList, 1, 100);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testDecreaseKeyPolledNode() {
+        mOpenList.add(1, 1, 0);
+        mOpenList.add(2, 2, 0);
+        mOpenList.poll();
+        mOpenList.decreaseKey(1, 0, 0);
+    }
+
+    @Test
+    public void testCostBelowLastPolledCost() {
+        mOpenList.add(0, 5, 0);
+        mOpenList.add(1, 9, 0);
+        assertEquals(0, mOpenList.poll());
+        mOpenList.add(2, 3, 0);
+        assertEquals(2, mOpenList.poll());
+        assertEquals(1, mOpenList.poll());
+    }
+
+    @Test
+    public void testTieBreaking() {
+        mTieBreakingOpenList.add(0, 4, 1);
+        mTieBreakingOpenList.add(1, 4, 3);
+        mTieBreakingOpenList.add(2, 4, 2);
+        mTieBreakingOpenList.add(3, 2, 0);
+        assertEquals(3, mTieBreakingOpenList.poll());
+        assertEquals(3, mTieBreakingOpenList.peekStartDistance());
+        assertEquals(1, mTieBreakingOpenList.poll());
+        mTieBreakingOpenList.decreaseKey(0, 4, 4);
+        assertEquals(0, mTieBreakingOpenList.poll());
+        assertEquals(2, mTieBreakingOpenList.poll());
+        assertTrue(mTieBreakingOpenList.isEmpty());
+    }
+
+    @Test
+    public void testClear() {
+        for (int i = 0; i <= 100; ++i) {
+            mOpenList.add(i, i + 10, 0);
+        }
+        mOpenList.poll();
+        mOpenList.clear();
+        assertTrue(mOpenList.isEmpty());
+        assertFalse(mOpenList.contains(50));
+
+        mOpenList.add(7, 1, 0);
+        mOpenList.add(3, 0, 0);
+        assertEquals(3, mOpenList.poll());
+        assertEquals(7, mOpenList.poll());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the SearchContextPool class.
+ */
+public class SearchContextPoolTest {
+    public SearchContextPoolTest() {
+    }
+
+    @Test
+    public void testFindPath() throws Exception {
+        final Graph g = new Graph(20, 20);
+        for (int y = 0; y < 19; ++y) {
+            g.setWalkable(10, y, false);
+        }
+        final PathFinder finder = new AStarPathFinder(Heuristic.Octile);
+        final Point start = new Point(0, 0);
+        final Point goal = new Point(19, 0);
+        final List<Point> expected = g.findPath(finder, start, goal);
+        final SearchContext threadContext = g.beginSearch();
+
+        final SearchContextPool pool = new SearchContextPool(g, 1);
+        final List<Point> path = pool.findPath(finder, start, goal, new CancellationToken());
+        assertEquals(Graph.calculatePathLength(start, expected),
+                     Graph.calculatePathLength(start, path), 0.001f);
+
+        // The context of the calling thread is restored.
+        assertSame(threadContext, g.beginSearch());
+    }
+
+    @Test
+    public void testContextsAreBounded() throws Exception {
+        final Graph g = new Graph(32, 32);
+        final Set<SearchContext> contexts =
+            Collections.newSetFromMap(new IdentityHashMap<SearchContext, Boolean>());
+        final PathFinder finder = new PathFinder() {
+            private final PathFinder mFinder = new AStarPathFinder(Heuristic.Octile);
+
+            @Override
+            public List<Point> findPath(Graph graph, Point startPoint, Point goalPoint) {
+                synchronized (contexts) {
+                    contexts.add(graph.beginSearch());
+                }
+                return mFinder.findPath(graph, startPoint, goalPoint);
+            }
+        };
+
+        final SearchContextPool pool = new SearchContextPool(g, 2);
+        final AtomicInteger failures = new AtomicInteger(0);
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 50; ++j) {
+                            if (pool.findPath(finder, new Point(0, 0), new Point(31, 31),
+                                              new CancellationToken()) == null) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, failures.get());
+        assertTrue(contexts.size() <= 2);
+    }
+
+    @Test(expected = CancellationException.class)
+    public void testExpiredToken() throws Exception {
+        final Graph g = new Graph(8, 8);
+        new SearchContextPool(g, 1).findPath(new AStarPathFinder(Heuristic.Octile),
+                                             new Point(0, 0), new Point(7, 7),
+                                             new CancellationToken(0, TimeUnit.NANOSECONDS));
+    }
+}
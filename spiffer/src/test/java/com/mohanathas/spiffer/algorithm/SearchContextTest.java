@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the SearchContext class.
+ */
+public class SearchContextTest {
+    public SearchContextTest() {
+    }
+
+    @Test
+    public void testVisit() {
+        final SearchContext context = new SearchContext(1000, 0);
+        context.reset();
+        assertEquals(SearchContext.NO_INDEX, context.find(500));
+        assertEquals(0, context.visit(500));
+        assertEquals(1, context.visit(3));
+        assertEquals(0, context.visit(500));
+        assertEquals(0, context.find(500));
+        assertEquals(SearchContext.NO_INDEX, context.find(501));
+        assertEquals(SearchContext.NO_INDEX, context.find(-1));
+        assertEquals(SearchContext.NO_INDEX, context.find(1000));
+        assertEquals(500, context.getNode(0));
+        assertEquals(2, context.getTouchedCount());
+
+        assertEquals(Integer.MAX_VALUE, context.getStartDistance(1));
+        assertEquals(SearchContext.NO_INDEX, context.getParent(1));
+        assertFalse(context.isQueued(1));
+        assertFalse(context.isProcessed(1));
+    }
+
+    @Test
+    public void testReset() {
+        final SearchContext context = new SearchContext(1000, 0);
+        context.reset();
+        final int index = context.visit(42);
+        context.setStartDistance(index, 7);
+        context.setQueued(index);
+        context.setProcessed(index);
+        assertEquals(1, context.getExpandedCount());
+
+        context.reset();
+        assertEquals(SearchContext.NO_INDEX, context.find(42));
+        assertEquals(0, context.getExpandedCount());
+        assertEquals(0, context.getTouchedCount());
+
+        final int newIndex = context.visit(42);
+        assertEquals(Integer.MAX_VALUE, context.getStartDistance(newIndex));
+        assertFalse(context.isQueued(newIndex));
+        assertFalse(context.isProcessed(newIndex));
+    }
+
+    @Test
+    public void testGrow() {
+        final SearchContext context = new SearchContext(100000, 0);
+        context.reset();
+        for (int node = 0; node < 100000; node += 7) {
+            final int index = context.visit(node);
+            context.setStartDistance(index, node);
+        }
+        for (int node = 0; node < 100000; node += 7) {
+            assertEquals(node, context.getStartDistance(context.find(node)));
+        }
+    }
+
+    @Test
+    public void testParentPoints() {
+        final Graph g = new Graph(4, 4);
+        final SearchContext context = g.beginSearch();
+        final int first = context.visit(g.getNode(0, 0));
+        final int second = context.visit(g.getNode(1, 1));
+        final int third = context.visit(g.getNode(2, 1));
+        context.setParent(second, first);
+        context.setParent(third, second);
+
+        final List<Point> points = context.getParentPoints(g, third);
+        assertEquals(2, points.size());
+        assertEquals(new Point(1, 1), points.get(0));
+        assertEquals(new Point(2, 1), points.get(1));
+    }
+
+    @Test
+    public void testOpenListsAreReused() {
+        final SearchContext context = new SearchContext(16, 0);
+        final OpenList openList = context.getOpenList(OpenListType.BinaryHeap, TieBreaking.None);
+        openList.add(1, 1, 0);
+        assertSame(openList, context.getOpenList(OpenListType.BinaryHeap, TieBreaking.None));
+        assertTrue(openList.isEmpty());
+        assertNotSame(openList,
+                      context.getOpenList(OpenListType.BinaryHeap, TieBreaking.LastInFirstOut));
+    }
+
+    @Test
+    public void testMarks() {
+        final SearchContext context = new SearchContext(16, 0);
+        context.reset();
+        assertFalse(context.isMarked(3));
+        context.mark(3);
+        context.mark(100);
+        assertTrue(context.isMarked(3));
+        assertTrue(context.isMarked(100));
+        assertFalse(context.isMarked(4));
+
+        context.reset();
+        assertFalse(context.isMarked(3));
+        assertFalse(context.isMarked(100));
+    }
+}
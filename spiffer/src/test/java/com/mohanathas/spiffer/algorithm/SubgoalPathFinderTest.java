@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.algorithm;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the SubgoalPathFinder class.
+ */
+public class SubgoalPathFinderTest extends PathFinderTestBase {
+    public SubgoalPathFinderTest() {
+        super(new SubgoalPathFinder(Heuristic.Octile));
+    }
+
+    @Test
+    public void testStartInsideObstacle() {
+        final Graph g = Graph.createFromIntArray(new int[][] {
+            {0, 0, 0, 0, 1},
+            {1, 1, 1, 1, 1},
+            {0, 1, 1, 1, 1}});
+        assertPathLengthEquals(2.41f, g, 0, 0, 2, 1);
+    }
+
+    @Test
+    public void testMatchesAStar() {
+        final Random random = new Random(5);
+        for (int wallPercentage = 0; wallPercentage <= 40; wallPercentage += 5) {
+            final Graph g = createRandomGraph(random, 20 + random.nextInt(40),
+                                              20 + random.nextInt(40), wallPercentage);
+            assertMatchesAStar(g, mPathFinder, random, 200);
+        }
+    }
+}
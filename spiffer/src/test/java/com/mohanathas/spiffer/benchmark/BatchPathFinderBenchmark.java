@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.benchmark;
+
+import com.mohanathas.spiffer.algorithm.Graph;
+import com.mohanathas.spiffer.algorithm.Heuristic;
+import com.mohanathas.spiffer.algorithm.JumpPointPathFinder;
+import com.mohanathas.spiffer.algorithm.PathFinder;
+import com.mohanathas.spiffer.algorithm.PathQuery;
+import com.mohanathas.spiffer.util.DynamicArray;
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the time taken by Graph.findPaths to answer a batch of random queries with a varying
+ * number of workers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BatchPathFinderBenchmark {
+    @Param({"1", "2", "4"})
+    public int mParallelism;
+
+    @Param({"512"})
+    public int mSize;
+
+    @Param({"1024"})
+    public int mQueryCount;
+
+    private Graph mGraph;
+    private PathFinder mPathFinder;
+    private List<PathQuery> mQueries;
+    private ForkJoinPool mPool;
+
+    @Setup
+    public void setUp() {
+        mGraph = BenchmarkMaps.createRandomGraph(mSize, 20, 1);
+        mPathFinder = new JumpPointPathFinder(Heuristic.Octile);
+        final Point[] points = BenchmarkMaps.createRandomQueries(mGraph, mQueryCount, 2);
+        mQueries = new DynamicArray<>(mQueryCount);
+        for (int i = 0; i < points.length; i += 2) {
+            mQueries.add(new PathQuery(points[i], points[i + 1]));
+        }
+        mPool = new ForkJoinPool(mParallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mPool.shutdown();
+    }
+
+    @Benchmark
+    public List<List<Point>> findPaths() {
+        return mGraph.findPaths(mPathFinder, mQueries, mPool);
+    }
+}
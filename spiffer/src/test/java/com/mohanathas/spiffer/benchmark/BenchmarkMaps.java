@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.benchmark;
+
+import com.mohanathas.spiffer.algorithm.Graph;
+import com.mohanathas.spiffer.util.Point;
+import java.util.Random;
+
+/**
+ * Generates reproducible maps and queries for the benchmarks.
+ */
+final class BenchmarkMaps {
+    private BenchmarkMaps() {
+    }
+
+    /**
+     * Creates a square graph with randomly placed unwalkable points.
+     *
+     * @param size Width and height of the graph.
+     * @param wallPercentage Chance (0-100) of each point being unwalkable.
+     * @param seed Seed for the random number generator.
+     * @return The created graph.
+     */
+    static Graph createRandomGraph(int size, int wallPercentage, long seed) {
+        final Random random = new Random(seed);
+        final int[][] ints = new int[size][size];
+        for (int y = 0; y < size; ++y) {
+            for (int x = 0; x < size; ++x) {
+                ints[y][x] = random.nextInt(100) < wallPercentage ? 0 : 1;
+            }
+        }
+        return Graph.createFromIntArray(ints);
+    }
+
+    /**
+     * Creates a square maze of cells on the even coordinates connected by a randomized
+     * depth-first search, so that there is exactly one path between any two cells.
+     *
+     * @param size Width and height of the graph. Should be odd so that the maze fills it.
+     * @param seed Seed for the random number generator.
+     * @return The created graph.
+     */
+    static Graph createMazeGraph(int size, long seed) {
+        final Random random = new Random(seed);
+        final int[][] ints = new int[size][size];
+        final int[] stack = new int[size * size];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        ints[0][0] = 1;
+        final int[] directions = {2, 0, -2, 0, 0, 2, 0, -2};
+        while (stackSize > 0) {
+            final int x = stack[stackSize - 1] % size;
+            final int y = stack[stackSize - 1] / size;
+            final int first = random.nextInt(4);
+            boolean moved = false;
+            for (int i = 0; i < 4 && !moved; ++i) {
+                final int d = (first + i) % 4;
+                final int nx = x + directions[2 * d];
+                final int ny = y + directions[2 * d + 1];
+                if (nx >= 0 && ny >= 0 && nx < size && ny < size && ints[ny][nx] == 0) {
+                    ints[(y + ny) / 2][(x + nx) / 2] = 1;
+                    ints[ny][nx] = 1;
+                    stack[stackSize++] = ny * size + nx;
+                    moved = true;
+                }
+            }
+            if (!moved) {
+                --stackSize;
+            }
+        }
+        return Graph.createFromIntArray(ints);
+    }
+
+    /**
+     * Creates random pairs of walkable start and goal points.
+     *
+     * @param graph Graph to pick the points from.
+     * @param count Number of pairs to create.
+     * @param seed Seed for the random number generator.
+     * @return Array of 2 * count points in start, goal order.
+     */
+    static Point[] createRandomQueries(Graph graph, int count, long seed) {
+        final Random random = new Random(seed);
+        final Point[] points = new Point[2 * count];
+        for (int i = 0; i < points.length; ++i) {
+            Point point;
+            do {
+                point = new Point(random.nextInt(graph.getWidth()), random.nextInt(graph.getHeight()));
+            } while (!graph.isWalkable(point));
+            points[i] = point;
+        }
+        return points;
+    }
+
+    /**
+     * Creates random pairs of walkable start and goal points that are far apart. Every path
+     * between a pair takes at least minDistance steps.
+     *
+     * @param graph Graph to pick the points from.
+     * @param count Number of pairs to create.
+     * @param minDistance Minimum horizontal or vertical distance between the points of a pair.
+     * @param seed Seed for the random number generator.
+     * @return Array of 2 * count points in start, goal order.
+     */
+    static Point[] createDistantQueries(Graph graph, int count, int minDistance, long seed) {
+        final Random random = new Random(seed);
+        final Point[] points = new Point[2 * count];
+        for (int i = 0; i < points.length; i += 2) {
+            Point start;
+            Point goal;
+            do {
+                start = new Point(random.nextInt(graph.getWidth()),
+                                  random.nextInt(graph.getHeight()));
+                goal = new Point(random.nextInt(graph.getWidth()),
+                                 random.nextInt(graph.getHeight()));
+            } while (!graph.isWalkable(start) || !graph.isWalkable(goal) ||
+                     Math.max(Math.abs(start.getX() - goal.getX()),
+                              Math.abs(start.getY() - goal.getY())) < minDistance);
+            points[i] = start;
+            points[i + 1] = goal;
+        }
+        return points;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.benchmark;
+
+import com.mohanathas.spiffer.algorithm.AStarPathFinder;
+import com.mohanathas.spiffer.algorithm.CompressedPathDatabase;
+import com.mohanathas.spiffer.algorithm.CompressedPathDatabasePathFinder;
+import com.mohanathas.spiffer.algorithm.Graph;
+import com.mohanathas.spiffer.algorithm.Heuristic;
+import com.mohanathas.spiffer.algorithm.JumpPointPathFinder;
+import com.mohanathas.spiffer.algorithm.PathFinder;
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the query latency of a compressed path database with A* and JPS. The database is built
+ * during the setup, so only the queries are measured. Building it runs a search from every node,
+ * so the graphs are smaller still than in ContractionHierarchyBenchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompressedPathDatabaseBenchmark {
+    private static final int QUERY_COUNT = 16;
+
+    @Param({"AStar", "JPS", "CompressedPathDatabase"})
+    public String mAlgorithm;
+
+    @Param({"128"})
+    public int mSize;
+
+    @Param({"20"})
+    public int mWallPercentage;
+
+    private Graph mGraph;
+    private PathFinder mPathFinder;
+    private Point[] mQueries;
+    private int mQueryIndex = 0;
+
+    @Setup
+    public void setUp() {
+        mGraph = BenchmarkMaps.createRandomGraph(mSize, mWallPercentage, 1);
+        mQueries = BenchmarkMaps.createDistantQueries(mGraph, QUERY_COUNT, mSize / 2, 2);
+        switch (mAlgorithm) {
+            case "AStar":
+                mPathFinder = new AStarPathFinder(Heuristic.Octile);
+                break;
+            case "JPS":
+                mPathFinder = new JumpPointPathFinder(Heuristic.Octile);
+                break;
+            case "CompressedPathDatabase":
+                mPathFinder =
+                    new CompressedPathDatabasePathFinder(CompressedPathDatabase.build(mGraph));
+                break;
+        }
+    }
+
+    @Benchmark
+    public List<Point> findPath() {
+        final Point startPoint = mQueries[mQueryIndex];
+        final Point goalPoint = mQueries[mQueryIndex + 1];
+        mQueryIndex = (mQueryIndex + 2) % mQueries.length;
+        return mGraph.findPath(mPathFinder, startPoint, goalPoint);
+    }
+}
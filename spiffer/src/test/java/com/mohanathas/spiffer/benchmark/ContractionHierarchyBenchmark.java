@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.benchmark;
+
+import com.mohanathas.spiffer.algorithm.AStarPathFinder;
+import com.mohanathas.spiffer.algorithm.ContractionHierarchyPathFinder;
+import com.mohanathas.spiffer.algorithm.Graph;
+import com.mohanathas.spiffer.algorithm.Heuristic;
+import com.mohanathas.spiffer.algorithm.JumpPointPathFinder;
+import com.mohanathas.spiffer.algorithm.PathFinder;
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the query latency of contraction hierarchies with A* and JPS. The hierarchy is built
+ * during the setup, so only the queries are measured. The graphs are smaller than in
+ * LongPathBenchmark because building the hierarchy takes minutes on larger graphs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ContractionHierarchyBenchmark {
+    private static final int QUERY_COUNT = 16;
+
+    @Param({"AStar", "JPS", "ContractionHierarchy"})
+    public String mAlgorithm;
+
+    @Param({"256", "512"})
+    public int mSize;
+
+    @Param({"20"})
+    public int mWallPercentage;
+
+    private Graph mGraph;
+    private PathFinder mPathFinder;
+    private Point[] mQueries;
+    private int mQueryIndex = 0;
+
+    @Setup
+    public void setUp() {
+        mGraph = BenchmarkMaps.createRandomGraph(mSize, mWallPercentage, 1);
+        mQueries = BenchmarkMaps.createDistantQueries(mGraph, QUERY_COUNT, mSize / 2, 2);
+        switch (mAlgorithm) {
+            case "AStar":
+                mPathFinder = new AStarPathFinder(Heuristic.Octile);
+                break;
+            case "JPS":
+                mPathFinder = new JumpPointPathFinder(Heuristic.Octile);
+                break;
+            case "ContractionHierarchy":
+                mPathFinder = new ContractionHierarchyPathFinder();
+                break;
+        }
+
+        // The first search builds the structures that the path finder keeps in the graph.
+        mGraph.findPath(mPathFinder, mQueries[0], mQueries[1]);
+    }
+
+    @Benchmark
+    public List<Point> findPath() {
+        final Point startPoint = mQueries[mQueryIndex];
+        final Point goalPoint = mQueries[mQueryIndex + 1];
+        mQueryIndex = (mQueryIndex + 2) % mQueries.length;
+        return mGraph.findPath(mPathFinder, startPoint, goalPoint);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.benchmark;
+
+import com.mohanathas.spiffer.algorithm.AStarPathFinder;
+import com.mohanathas.spiffer.algorithm.Graph;
+import com.mohanathas.spiffer.algorithm.Heuristic;
+import com.mohanathas.spiffer.algorithm.PathFinder;
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the A* heuristics on random and maze graphs. The landmark distances are computed
+ * during the setup, so only the queries are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HeuristicBenchmark {
+    private static final int QUERY_COUNT = 64;
+
+    @Param({"Octile", "Landmarks"})
+    public String mHeuristic;
+
+    @Param({"Random", "Maze"})
+    public String mMap;
+
+    @Param({"513"})
+    public int mSize;
+
+    private Graph mGraph;
+    private PathFinder mPathFinder;
+    private Point[] mQueries;
+    private int mQueryIndex = 0;
+
+    @Setup
+    public void setUp() {
+        mGraph = mMap.equals("Maze") ? BenchmarkMaps.createMazeGraph(mSize, 1)
+                                     : BenchmarkMaps.createRandomGraph(mSize, 20, 1);
+        mQueries = BenchmarkMaps.createRandomQueries(mGraph, QUERY_COUNT, 2);
+        mPathFinder = new AStarPathFinder(Heuristic.valueOf(mHeuristic));
+        mGraph.findPath(mPathFinder, mQueries[0], mQueries[1]);
+    }
+
+    @Benchmark
+    public List<Point> findPath() {
+        final Point startPoint = mQueries[mQueryIndex];
+        final Point goalPoint = mQueries[mQueryIndex + 1];
+        mQueryIndex = (mQueryIndex + 2) % mQueries.length;
+        return mGraph.findPath(mPathFinder, startPoint, goalPoint);
+    }
+}
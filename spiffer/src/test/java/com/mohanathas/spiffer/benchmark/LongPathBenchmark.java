@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.benchmark;
+
+import com.mohanathas.spiffer.algorithm.AStarPathFinder;
+import com.mohanathas.spiffer.algorithm.BidirectionalAStarPathFinder;
+import com.mohanathas.spiffer.algorithm.Graph;
+import com.mohanathas.spiffer.algorithm.Heuristic;
+import com.mohanathas.spiffer.algorithm.HierarchicalPathFinder;
+import com.mohanathas.spiffer.algorithm.ParallelBidirectionalAStarPathFinder;
+import com.mohanathas.spiffer.algorithm.PathFinder;
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the latency of single queries whose paths are at least 2000 steps long.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LongPathBenchmark {
+    private static final int QUERY_COUNT = 16;
+
+    @Param({"AStar", "BidirectionalAStar", "ParallelBidirectionalAStar", "HPA"})
+    public String mAlgorithm;
+
+    @Param({"2048"})
+    public int mSize;
+
+    @Param({"20"})
+    public int mWallPercentage;
+
+    private Graph mGraph;
+    private PathFinder mPathFinder;
+    private Point[] mQueries;
+    private int mQueryIndex = 0;
+
+    @Setup
+    public void setUp() {
+        mGraph = BenchmarkMaps.createRandomGraph(mSize, mWallPercentage, 1);
+        mQueries = BenchmarkMaps.createDistantQueries(mGraph, QUERY_COUNT, 2000, 2);
+        switch (mAlgorithm) {
+            case "AStar":
+                mPathFinder = new AStarPathFinder(Heuristic.Octile);
+                break;
+            case "BidirectionalAStar":
+                mPathFinder = new BidirectionalAStarPathFinder(Heuristic.Octile);
+                break;
+            case "ParallelBidirectionalAStar":
+                mPathFinder = new ParallelBidirectionalAStarPathFinder(Heuristic.Octile);
+                break;
+            case "HPA":
+                mPathFinder = new HierarchicalPathFinder(Heuristic.Octile);
+                break;
+        }
+    }
+
+    @Benchmark
+    public List<Point> findPath() {
+        final Point startPoint = mQueries[mQueryIndex];
+        final Point goalPoint = mQueries[mQueryIndex + 1];
+        mQueryIndex = (mQueryIndex + 2) % mQueries.length;
+        return mGraph.findPath(mPathFinder, startPoint, goalPoint);
+    }
+}
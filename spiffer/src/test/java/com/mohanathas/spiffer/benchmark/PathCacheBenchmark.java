@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.benchmark;
+
+import com.mohanathas.spiffer.algorithm.AStarPathFinder;
+import com.mohanathas.spiffer.algorithm.CachingPathFinder;
+import com.mohanathas.spiffer.algorithm.Graph;
+import com.mohanathas.spiffer.algorithm.Heuristic;
+import com.mohanathas.spiffer.algorithm.PathCache;
+import com.mohanathas.spiffer.algorithm.PathFinder;
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures A* on a small set of queries that are repeated over and over, with and without a
+ * PathCache in front of it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathCacheBenchmark {
+    private static final int QUERY_COUNT = 64;
+
+    @Param({"None", "Exact", "SubPaths"})
+    public String mCache;
+
+    @Param({"512"})
+    public int mSize;
+
+    private Graph mGraph;
+    private PathFinder mPathFinder;
+    private Point[] mQueries;
+    private int mQueryIndex = 0;
+
+    @Setup
+    public void setUp() {
+        mGraph = BenchmarkMaps.createRandomGraph(mSize, 20, 1);
+        mQueries = BenchmarkMaps.createRandomQueries(mGraph, QUERY_COUNT, 2);
+        final PathFinder aStar = new AStarPathFinder(Heuristic.Octile);
+        switch (mCache) {
+            case "None":
+                mPathFinder = aStar;
+                break;
+            case "Exact":
+                mPathFinder = new CachingPathFinder(aStar, new PathCache(1024, 1 << 24));
+                break;
+            case "SubPaths":
+                mPathFinder = new CachingPathFinder(aStar, new PathCache(1024, 1 << 24, true));
+                break;
+        }
+    }
+
+    @Benchmark
+    public List<Point> findPath() {
+        final Point startPoint = mQueries[mQueryIndex];
+        final Point goalPoint = mQueries[mQueryIndex + 1];
+        mQueryIndex = (mQueryIndex + 2) % mQueries.length;
+        return mGraph.findPath(mPathFinder, startPoint, goalPoint);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.benchmark;
+
+import com.mohanathas.spiffer.algorithm.AStarPathFinder;
+import com.mohanathas.spiffer.algorithm.BidirectionalAStarPathFinder;
+import com.mohanathas.spiffer.algorithm.DijkstraPathFinder;
+import com.mohanathas.spiffer.algorithm.Graph;
+import com.mohanathas.spiffer.algorithm.Heuristic;
+import com.mohanathas.spiffer.algorithm.JumpPointPathFinder;
+import com.mohanathas.spiffer.algorithm.JumpPointPlusPathFinder;
+import com.mohanathas.spiffer.algorithm.OpenListType;
+import com.mohanathas.spiffer.algorithm.PathFinder;
+import com.mohanathas.spiffer.algorithm.SubgoalPathFinder;
+import com.mohanathas.spiffer.algorithm.TieBreaking;
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the time taken by the PathFinder implementations to answer random queries on a
+ * randomly generated graph. The average number of nodes expanded per query is reported as the
+ * secondary result <tt>expandedNodes</tt>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathFinderBenchmark {
+    private static final int QUERY_COUNT = 64;
+
+    @Param({"Dijkstra", "AStar", "JPS", "JPSPlus", "BidirectionalAStar", "Subgoal"})
+    public String mAlgorithm;
+
+    @Param({"256", "1024"})
+    public int mSize;
+
+    @Param({"0", "20"})
+    public int mWallPercentage;
+
+    @Param({"BinaryHeap"})
+    public String mOpenListType;
+
+    @Param({"Euclidean"})
+    public String mHeuristic;
+
+    @Param({"LargerStartDistance"})
+    public String mTieBreaking;
+
+    private Graph mGraph;
+    private PathFinder mPathFinder;
+    private Point[] mQueries;
+    private int mQueryIndex = 0;
+
+    @Setup
+    public void setUp() {
+        mGraph = BenchmarkMaps.createRandomGraph(mSize, mWallPercentage, 1);
+        mQueries = BenchmarkMaps.createRandomQueries(mGraph, QUERY_COUNT, 2);
+        final OpenListType openListType = OpenListType.valueOf(mOpenListType);
+        final Heuristic heuristic = Heuristic.valueOf(mHeuristic);
+        final TieBreaking tieBreaking = TieBreaking.valueOf(mTieBreaking);
+        switch (mAlgorithm) {
+            case "Dijkstra":
+                mPathFinder = new DijkstraPathFinder(openListType);
+                break;
+            case "AStar":
+                mPathFinder = new AStarPathFinder(heuristic, openListType, tieBreaking);
+                break;
+            case "JPS":
+                mPathFinder = new JumpPointPathFinder(heuristic, openListType, tieBreaking);
+                break;
+            case "JPSPlus":
+                mPathFinder = new JumpPointPlusPathFinder(heuristic, openListType, tieBreaking);
+                break;
+            case "BidirectionalAStar":
+                mPathFinder =
+                    new BidirectionalAStarPathFinder(heuristic, openListType, tieBreaking);
+                break;
+            case "Subgoal":
+                mPathFinder = new SubgoalPathFinder(heuristic, openListType, tieBreaking);
+                break;
+        }
+    }
+
+    /**
+     * Counts the nodes expanded during an iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        private long mQueryCount;
+        private long mExpandedCount;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            mQueryCount = 0;
+            mExpandedCount = 0;
+        }
+
+        public double expandedNodes() {
+            return mQueryCount > 0 ? (double)mExpandedCount / mQueryCount : 0.0;
+        }
+    }
+
+    @Benchmark
+    public List<Point> findPath(Counters counters) {
+        final Point startPoint = mQueries[mQueryIndex];
+        final Point goalPoint = mQueries[mQueryIndex + 1];
+        mQueryIndex = (mQueryIndex + 2) % mQueries.length;
+        final List<Point> path = mGraph.findPath(mPathFinder, startPoint, goalPoint);
+        ++counters.mQueryCount;
+        counters.mExpandedCount += mGraph.getExpandedCount();
+        return path;
+    }
+}
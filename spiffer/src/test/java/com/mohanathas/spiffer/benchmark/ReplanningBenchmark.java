@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.benchmark;
+
+import com.mohanathas.spiffer.algorithm.AStarPathFinder;
+import com.mohanathas.spiffer.algorithm.DStarLitePathFinder;
+import com.mohanathas.spiffer.algorithm.Graph;
+import com.mohanathas.spiffer.algorithm.Heuristic;
+import com.mohanathas.spiffer.algorithm.PathFinder;
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures replanning between opposite corners after a single cell of the original path has been
+ * blocked or unblocked again, which D* Lite repairs instead of searching from scratch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReplanningBenchmark {
+    private static final int CHANGE_COUNT = 16;
+
+    @Param({"AStar", "DStarLite"})
+    public String mAlgorithm;
+
+    @Param({"256", "512"})
+    public int mSize;
+
+    private Graph mGraph;
+    private PathFinder mPathFinder;
+    private Point mStartPoint;
+    private Point mGoalPoint;
+    private Point[] mChanges;
+    private int mChangeIndex = 0;
+
+    @Setup
+    public void setUp() {
+        mGraph = BenchmarkMaps.createRandomGraph(mSize, 20, 1);
+        mStartPoint = new Point(0, 0);
+        mGoalPoint = new Point(mSize - 1, mSize - 1);
+        mGraph.setWalkable(mStartPoint, true);
+        mGraph.setWalkable(mGoalPoint, true);
+        mPathFinder = mAlgorithm.equals("AStar") ? new AStarPathFinder(Heuristic.Octile)
+                                                 : new DStarLitePathFinder(Heuristic.Octile);
+
+        // Change cells spread over the original path, excluding the goal.
+        final List<Point> path = mGraph.findPath(mPathFinder, mStartPoint, mGoalPoint);
+        mChanges = new Point[CHANGE_COUNT];
+        for (int i = 0; i < CHANGE_COUNT; ++i) {
+            mChanges[i] = path.get(i * (path.size() - 1) / CHANGE_COUNT);
+        }
+    }
+
+    @Benchmark
+    public List<Point> findPath() {
+        // Every cell is blocked and then unblocked again by the next call.
+        final Point point = mChanges[mChangeIndex / 2];
+        mGraph.setWalkable(point, !mGraph.isWalkable(point));
+        mChangeIndex = (mChangeIndex + 1) % (2 * CHANGE_COUNT);
+        return mGraph.findPath(mPathFinder, mStartPoint, mGoalPoint);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.benchmark;
+
+import com.mohanathas.spiffer.algorithm.AStarPathFinder;
+import com.mohanathas.spiffer.algorithm.Graph;
+import com.mohanathas.spiffer.algorithm.Heuristic;
+import com.mohanathas.spiffer.algorithm.PathFinder;
+import com.mohanathas.spiffer.util.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures short queries on a large graph, where the cost of preparing the graph for a new
+ * search can outweigh the search itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShortPathBenchmark {
+    @Param({"4096"})
+    public int mSize;
+
+    @Param({"10"})
+    public int mDistance;
+
+    private Graph mGraph;
+    private final PathFinder mPathFinder = new AStarPathFinder(Heuristic.Euclidean);
+    private Point mStartPoint;
+    private Point mGoalPoint;
+
+    @Setup
+    public void setUp() {
+        mGraph = BenchmarkMaps.createRandomGraph(mSize, 20, 1);
+        mStartPoint = new Point(mSize / 2, mSize / 2);
+        mGoalPoint = new Point(mSize / 2 + mDistance, mSize / 2 + mDistance);
+        mGraph.setWalkable(mStartPoint, true);
+        mGraph.setWalkable(mGoalPoint, true);
+    }
+
+    @Benchmark
+    public List<Point> findPath() {
+        return mGraph.findPath(mPathFinder, mStartPoint, mGoalPoint);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2014 Birunthan Mohanathas
+ *
+ * Licensed under the MIT license <http://opensource.org/licenses/MIT>. This
+ * file may not be copied, modified, or distributed except according to those
+ * terms.
+ */
+
+package com.mohanathas.spiffer.service;
+
+import com.mohanathas.spiffer.algorithm.AStarPathFinder;
+import com.mohanathas.spiffer.algorithm.Graph;
+import com.mohanathas.spiffer.algorithm.Heuristic;
+import com.mohanathas.spiffer.algorithm.JumpPointPathFinder;
+import com.mohanathas.spiffer.algorithm.PathFinder;
+import com.mohanathas.spiffer.algorithm.PathQuery;
+import com.mohanathas.spiffer.util.Point;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the PathQueryService class.
+ */
+public class PathQueryServiceTest {
+    private static final Duration LONG_TIMEOUT = Duration.ofMinutes(1);
+
+    public PathQueryServiceTest() {
+    }
+
+    @Test
+    public void testManyQueries() throws Exception {
+        final Graph g = new Graph(64, 64);
+        for (int y = 0; y < 60; ++y) {
+            g.setWalkable(32, y, false);
+        }
+
+        final PathFinder finder = new JumpPointPathFinder(Heuristic.Octile);
+        final PathQuery query = new PathQuery(new Point(0, 0), new Point(63, 0));
+        final float expected = Graph.calculatePathLength(
+            query.getStartPoint(), g.findPath(finder, query.getStartPoint(), query.getGoalPoint()));
+
+        try (PathQueryService service = new PathQueryService(g, finder)) {
+            final List<Future<List<Point>>> futures = new ArrayList<>();
+            for (int i = 0; i < 10000; ++i) {
+                futures.add(service.submit(query, LONG_TIMEOUT));
+            }
+            for (Future<List<Point>> future : futures) {
+                assertEquals(expected,
+                             Graph.calculatePathLength(query.getStartPoint(), future.get()),
+                             0.001f);
+            }
+
+            assertNotNull(service.findPath(query, LONG_TIMEOUT));
+        }
+    }
+
+    @Test
+    public void testNoPath() throws Exception {
+        final Graph g = new Graph(8, 8);
+        for (int y = 0; y < 8; ++y) {
+            g.setWalkable(4, y, false);
+        }
+
+        try (PathQueryService service = new PathQueryService(g, new JumpPointPathFinder(
+                Heuristic.Octile))) {
+            assertNull(service.findPath(new PathQuery(new Point(0, 0), new Point(7, 7)),
+                                        LONG_TIMEOUT));
+        }
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testExpiredDeadline() throws Exception {
+        final Graph g = new Graph(1024, 1024);
+        try (PathQueryService service = new PathQueryService(g, new JumpPointPathFinder(
+                Heuristic.Zero))) {
+            service.findPath(new PathQuery(new Point(0, 0), new Point(1023, 1023)),
+                             Duration.ZERO);
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        // The search only starts once the test has cancelled the query, so it cannot complete
+        // first. It then runs on a graph that takes far longer to search than to poll the token.
+        final Graph g = new Graph(2048, 2048);
+        final PathFinder search = new AStarPathFinder(Heuristic.Zero);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        final AtomicBoolean searchCancelled = new AtomicBoolean(false);
+        final PathFinder finder = new PathFinder() {
+            @Override
+            public List<Point> findPath(Graph graph, Point startPoint, Point goalPoint) {
+                started.countDown();
+                try {
+                    cancelled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                try {
+                    return search.findPath(graph, startPoint, goalPoint);
+                } catch (CancellationException e) {
+                    searchCancelled.set(true);
+                    throw e;
+                } finally {
+                    finished.countDown();
+                }
+            }
+        };
+
+        try (PathQueryService service = new PathQueryService(g, finder)) {
+            final Future<List<Point>> future = service.submit(
+                new PathQuery(new Point(0, 0), new Point(2047, 2047)), LONG_TIMEOUT);
+            started.await();
+            // Without interrupting the search, so only the token stops it.
+            assertTrue(future.cancel(false));
+            cancelled.countDown();
+            try {
+                future.get();
+                fail();
+            } catch (CancellationException e) {
+            }
+
+            finished.await();
+            assertTrue(searchCancelled.get());
+        }
+    }
+}